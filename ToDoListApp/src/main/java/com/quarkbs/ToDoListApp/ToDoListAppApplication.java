@@ -3,8 +3,10 @@ package com.quarkbs.ToDoListApp;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication(exclude = {DataSourceAutoConfiguration.class })
+@EnableScheduling
 public class ToDoListAppApplication {
 
 	public static void main(String[] args) {
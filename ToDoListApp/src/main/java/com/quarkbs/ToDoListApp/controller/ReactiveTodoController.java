@@ -0,0 +1,160 @@
+package com.quarkbs.ToDoListApp.controller;
+
+import com.quarkbs.ToDoListApp.dto.TodoDTO;
+import com.quarkbs.ToDoListApp.entity.Todo;
+import com.quarkbs.ToDoListApp.entity.TodoMetrics;
+import com.quarkbs.ToDoListApp.service.ReactiveTodoService;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+/**
+ * Reactive variant of {@link TodoController}, answering with Mono and Flux.
+ * The request thread is released as soon as the handler returns; the store call runs on the
+ * reactive service's scheduler and the response is written when it completes.
+ */
+@RestController
+@RequestMapping("/api/reactive/todos")
+public class ReactiveTodoController {
+    @Autowired
+    private ReactiveTodoService reactiveTodoService;
+
+    /**
+     * Retrieves a paginated list of todos with optional filters, like {@link TodoController#getAllTodos}.
+     *
+     * @param page the page number (default is 1)
+     * @param size the page size (default is 10)
+     * @param sortBy the field to sort by (default is creationDate)
+     * @param directionPriority the sort direction for priority (default is ASC)
+     * @param directionDueDate the sort direction for due date (default is ASC)
+     * @param status the status filter (optional)
+     * @param text the text filter (optional)
+     * @param priority the priority filter (optional)
+     * @param cursor the keyset cursor (optional)
+     * @return a Mono of the paginated list of todos
+     */
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<Map<String, Object>> getAllTodos(
+            @RequestParam(defaultValue = "1") int page,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "creationDate") String sortBy,
+            @RequestParam(defaultValue = "ASC") String directionPriority,
+            @RequestParam(defaultValue = "ASC") String directionDueDate,
+            @RequestParam(required = false) Boolean status,
+            @RequestParam(required = false) String text,
+            @RequestParam(required = false) Integer priority,
+            @RequestParam(required = false) String cursor) {
+
+        if (cursor != null) {
+            return reactiveTodoService.getTodosByCursor(cursor, size, status, text, priority, sortBy, directionPriority, directionDueDate);
+        }
+        PageRequest pageable = PageRequest.of(Math.max(page - 1, 0), size);
+        return reactiveTodoService.getAllTodos(pageable, status, text, priority, sortBy, directionPriority, directionDueDate);
+    }
+
+    /**
+     * Streams every todo matching the filters in sort order as newline-delimited JSON, when the
+     * client accepts application/x-ndjson. Todos are written as each chunk of {@code size} is read.
+     *
+     * @param size the number of todos read per chunk (default is 100)
+     * @param sortBy the field to sort by (default is creationDate)
+     * @param directionPriority the sort direction for priority (default is ASC)
+     * @param directionDueDate the sort direction for due date (default is ASC)
+     * @param status the status filter (optional)
+     * @param text the text filter (optional)
+     * @param priority the priority filter (optional)
+     * @return a Flux of the matching todos
+     */
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<Todo> streamTodos(
+            @RequestParam(defaultValue = "100") int size,
+            @RequestParam(defaultValue = "creationDate") String sortBy,
+            @RequestParam(defaultValue = "ASC") String directionPriority,
+            @RequestParam(defaultValue = "ASC") String directionDueDate,
+            @RequestParam(required = false) Boolean status,
+            @RequestParam(required = false) String text,
+            @RequestParam(required = false) Integer priority) {
+        return reactiveTodoService.streamTodos(Math.max(size, 1), status, text, priority, sortBy, directionPriority, directionDueDate);
+    }
+
+    /**
+     * Adds a new todo.
+     *
+     * @param todoDTO the data transfer object containing the new todo data
+     * @return a Mono of the created todo as a TodoDTO
+     */
+    @PostMapping
+    public Mono<ResponseEntity<TodoDTO>> addTodo(@RequestBody TodoDTO todoDTO) {
+        return reactiveTodoService.addTodo(todoDTO)
+                .map(createdTodo -> ResponseEntity.status(HttpStatus.CREATED).body(convertToDTO(createdTodo)));
+    }
+
+    /**
+     * Updates an existing todo.
+     *
+     * @param id the ID of the todo to update
+     * @param todoDTO the updated todo data
+     * @return a Mono of the updated todo as a TodoDTO
+     */
+    @PutMapping("/{id}")
+    public Mono<TodoDTO> updateTodo(@PathVariable Long id, @Valid @RequestBody TodoDTO todoDTO) {
+        return reactiveTodoService.updateTodo(id, todoDTO).map(this::convertToDTO);
+    }
+
+    /**
+     * Marks a todo as done.
+     *
+     * @param id the ID of the todo to mark as done
+     * @return a Mono of the updated todo as a TodoDTO
+     */
+    @PostMapping("/{id}/done")
+    public Mono<TodoDTO> doneTodo(@PathVariable Long id) {
+        return reactiveTodoService.markDone(id).map(this::convertToDTO);
+    }
+
+    /**
+     * Marks a todo as undone.
+     *
+     * @param id the ID of the todo to mark as undone
+     * @return a Mono of the updated todo as a TodoDTO
+     */
+    @PutMapping("/{id}/undone")
+    public Mono<TodoDTO> undoneTodo(@PathVariable Long id) {
+        return reactiveTodoService.markUndone(id).map(this::convertToDTO);
+    }
+
+    /**
+     * Retrieves todo metrics.
+     *
+     * @return a Mono of the todo metrics
+     */
+    @GetMapping("/metrics")
+    public Mono<TodoMetrics> metrics() {
+        return reactiveTodoService.getMetrics();
+    }
+
+    /**
+     * Converts a Todo entity to a TodoDTO.
+     *
+     * @param todo the Todo entity to convert
+     * @return the converted TodoDTO
+     */
+    private TodoDTO convertToDTO(Todo todo) {
+        TodoDTO todoDTO = new TodoDTO();
+        todoDTO.setText(todo.getText());
+        todoDTO.setStatus(todo.getStatus());
+        todoDTO.setDueDate(todo.getDueDate());
+        todoDTO.setPriority(todo.getPriority());
+        todoDTO.setCreationDate(todo.getCreationDate());
+        todoDTO.setDoneDate(todo.getDoneDate());
+        return todoDTO;
+    }
+}
@@ -1,16 +1,28 @@
 package com.quarkbs.ToDoListApp.controller;
 
+import com.quarkbs.ToDoListApp.dto.TodoBatchOperation;
+import com.quarkbs.ToDoListApp.dto.TodoBatchResult;
 import com.quarkbs.ToDoListApp.dto.TodoDTO;
 import com.quarkbs.ToDoListApp.entity.Todo;
 import com.quarkbs.ToDoListApp.entity.TodoMetrics;
+import com.quarkbs.ToDoListApp.service.TodoETags;
+import com.quarkbs.ToDoListApp.service.TodoImportFormat;
 import com.quarkbs.ToDoListApp.service.TodoService;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -19,11 +31,17 @@ import java.util.Map;
 @RestController
 @RequestMapping("/api/todos")
 public class TodoController {
+    private static final String TEXT_CSV_VALUE = "text/csv";
+
     @Autowired
     private TodoService todoService;
 
     /**
      * Retrieves a paginated list of todos with optional filters.
+     * When a cursor is given (empty for the first page) the list is paginated by keyset instead of
+     * page number, and the response carries the cursor of the next page as nextCursor.
+     * The response is tagged with the repository version and the parameters; while neither has changed,
+     * a request presenting the tag in If-None-Match is answered with 304 Not Modified without reading the store.
      *
      * @param page the page number (default is 1)
      * @param size the page size (default is 10)
@@ -33,7 +51,9 @@ public class TodoController {
      * @param status the status filter (optional)
      * @param text the text filter (optional)
      * @param priority the priority filter (optional)
-     * @return a ResponseEntity containing the paginated list of todos
+     * @param cursor the keyset cursor (optional)
+     * @param ifNoneMatch the entity tags of the lists the client holds (optional)
+     * @return a ResponseEntity containing the paginated list of todos, or no body if it has not changed
      */
     @GetMapping
     public ResponseEntity<Map<String, Object>> getAllTodos(
@@ -44,72 +64,189 @@ public class TodoController {
             @RequestParam(defaultValue = "ASC") String directionDueDate,
             @RequestParam(required = false) Boolean status,
             @RequestParam(required = false) String text,
-            @RequestParam(required = false) Integer priority) {
+            @RequestParam(required = false) Integer priority,
+            @RequestParam(required = false) String cursor,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
 
+        String eTag = todoService.getReadETag("todos", page, size, sortBy, directionPriority, directionDueDate, status, text, priority, cursor);
+        if (isNotModified(ifNoneMatch, eTag)) {
+            return notModified(eTag);
+        }
+        if (cursor != null) {
+            return revalidated(eTag).body(todoService.getTodosByCursor(cursor, size, status, text, priority, sortBy, directionPriority, directionDueDate));
+        }
         page = Math.max(page - 1, 0);
         PageRequest pageable = PageRequest.of(page, size);
         Map<String, Object> response = todoService.getAllTodos(pageable, status, text, priority, sortBy, directionPriority, directionDueDate);
-        return ResponseEntity.ok(response);
+        return revalidated(eTag).body(response);
+    }
+
+    /**
+     * Exports the todos matching the filters as newline-delimited JSON, one todo per line.
+     * The response is written while the store is walked, so exports of any size use the same memory.
+     *
+     * @param status the status filter (optional)
+     * @param text the text filter (optional)
+     * @param priority the priority filter (optional)
+     * @return a ResponseEntity streaming the matching todos
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportTodos(
+            @RequestParam(required = false) Boolean status,
+            @RequestParam(required = false) String text,
+            @RequestParam(required = false) Integer priority) {
+        StreamingResponseBody body = outputStream -> todoService.exportTodos(status, text, priority, outputStream);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
     }
 
     /**
      * Adds a new todo.
      *
      * @param todoDTO the data transfer object containing the new todo data
-     * @return a ResponseEntity containing the created todo as a TodoDTO
+     * @return a ResponseEntity containing the created todo as a TodoDTO, tagged with its version
      */
     @PostMapping
     public ResponseEntity<TodoDTO> addTodo(@RequestBody TodoDTO todoDTO) {
         Todo createdTodo = todoService.addTodo(todoDTO);
-        return ResponseEntity.status(HttpStatus.CREATED).body(convertToDTO(createdTodo));
+        return ResponseEntity.status(HttpStatus.CREATED).eTag(TodoETags.of(createdTodo)).body(convertToDTO(createdTodo));
+    }
+
+    /**
+     * Retrieves a todo, tagged with its version for conditional updates.
+     *
+     * @param id the ID of the todo
+     * @param ifNoneMatch the entity tags of the versions the client holds (optional)
+     * @return a ResponseEntity containing the todo as a TodoDTO, or no body if it has not changed
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<TodoDTO> getTodo(@PathVariable Long id,
+                                           @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        Todo todo = todoService.getTodo(id);
+        String eTag = TodoETags.of(todo);
+        if (isNotModified(ifNoneMatch, eTag)) {
+            return notModified(eTag);
+        }
+        return revalidated(eTag).body(convertToDTO(todo));
     }
 
     /**
      * Updates an existing todo.
+     * With If-Match the update is applied only if the todo is still a version the client read,
+     * and answered with 412 Precondition Failed otherwise.
      *
      * @param id the ID of the todo to update
      * @param todoDTO the updated todo data
-     * @return a ResponseEntity containing the updated todo as a TodoDTO
+     * @param ifMatch the entity tags of the versions the update was made from (optional)
+     * @return a ResponseEntity containing the updated todo as a TodoDTO, tagged with its new version
      */
     @PutMapping("/{id}")
-    public ResponseEntity<TodoDTO> updateTodo(@PathVariable Long id, @Valid @RequestBody TodoDTO todoDTO) {
-        Todo updatedTodo = todoService.updateTodo(id, todoDTO);
-        return ResponseEntity.ok(convertToDTO(updatedTodo));
+    public ResponseEntity<TodoDTO> updateTodo(@PathVariable Long id, @Valid @RequestBody TodoDTO todoDTO,
+                                              @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Todo updatedTodo = todoService.updateTodo(id, todoDTO, ifMatch);
+        return ResponseEntity.ok().eTag(TodoETags.of(updatedTodo)).body(convertToDTO(updatedTodo));
     }
 
     /**
-     * Marks a todo as done.
+     * Marks a todo as done, with If-Match only if it is still a version the client read.
      *
      * @param id the ID of the todo to mark as done
-     * @return a ResponseEntity containing the updated todo as a TodoDTO
+     * @param ifMatch the entity tags of the versions the change was made from (optional)
+     * @return a ResponseEntity containing the updated todo as a TodoDTO, tagged with its new version
      */
     @PostMapping("/{id}/done")
-    public ResponseEntity<TodoDTO> doneTodo(@PathVariable Long id) {
-        Todo doneTodo = todoService.markDone(id);
-        return ResponseEntity.ok(convertToDTO(doneTodo));
+    public ResponseEntity<TodoDTO> doneTodo(@PathVariable Long id,
+                                            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Todo doneTodo = todoService.markDone(id, ifMatch);
+        return ResponseEntity.ok().eTag(TodoETags.of(doneTodo)).body(convertToDTO(doneTodo));
     }
 
     /**
-     * Marks a todo as undone.
+     * Marks a todo as undone, with If-Match only if it is still a version the client read.
      *
      * @param id the ID of the todo to mark as undone
-     * @return a ResponseEntity containing the updated todo as a TodoDTO
+     * @param ifMatch the entity tags of the versions the change was made from (optional)
+     * @return a ResponseEntity containing the updated todo as a TodoDTO, tagged with its new version
      */
     @PutMapping("/{id}/undone")
-    public ResponseEntity<TodoDTO> undoneTodo(@PathVariable Long id) {
-        Todo undoneTodo = todoService.markUndone(id);
-        return ResponseEntity.ok(convertToDTO(undoneTodo));
+    public ResponseEntity<TodoDTO> undoneTodo(@PathVariable Long id,
+                                              @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Todo undoneTodo = todoService.markUndone(id, ifMatch);
+        return ResponseEntity.ok().eTag(TodoETags.of(undoneTodo)).body(convertToDTO(undoneTodo));
+    }
+
+    /**
+     * Applies a batch of create, update, done and undone operations.
+     * Every operation gets its own result, so one failing operation does not reject the others.
+     *
+     * @param operations the operations to apply, in order
+     * @return a ResponseEntity containing one result per operation
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<List<TodoBatchResult>> batch(@RequestBody List<TodoBatchOperation> operations) {
+        return ResponseEntity.ok(todoService.applyBatch(operations));
+    }
+
+    /**
+     * Imports todos from an NDJSON or CSV body, read and stored as it arrives.
+     * The response streams newline-delimited JSON events: one per rejected line with its error,
+     * one after every stored batch with the running counts, and a final one with the totals.
+     *
+     * @param contentType the format of the body, application/x-ndjson or text/csv
+     * @param body the import body
+     * @param response the response the progress events are written to
+     * @throws IOException if the body cannot be read or the response cannot be written
+     */
+    @PostMapping(value = "/import", consumes = {MediaType.APPLICATION_NDJSON_VALUE, TEXT_CSV_VALUE})
+    public void importTodos(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType, InputStream body, HttpServletResponse response) throws IOException {
+        TodoImportFormat format = MediaType.APPLICATION_NDJSON.isCompatibleWith(contentType) ? TodoImportFormat.NDJSON : TodoImportFormat.CSV;
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        todoService.importTodos(body, format, response.getOutputStream());
     }
 
     /**
      * Retrieves todo metrics.
+     * Tagged with the repository version like the list, so unchanged metrics are answered with 304 Not Modified.
      *
-     * @return a ResponseEntity containing the todo metrics
+     * @param ifNoneMatch the entity tags of the metrics the client holds (optional)
+     * @return a ResponseEntity containing the todo metrics, or no body if they have not changed
      */
     @GetMapping("/metrics")
-    public ResponseEntity<TodoMetrics> metrics() {
+    public ResponseEntity<TodoMetrics> metrics(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String eTag = todoService.getReadETag("metrics");
+        if (isNotModified(ifNoneMatch, eTag)) {
+            return notModified(eTag);
+        }
         TodoMetrics metrics = todoService.getMetrics();
-        return ResponseEntity.ok(metrics);
+        return revalidated(eTag).body(metrics);
+    }
+
+    /**
+     * Retrieves the counters of the list result cache.
+     *
+     * @return a ResponseEntity containing the cache hits, misses, evictions and size
+     */
+    @GetMapping("/cache/stats")
+    public ResponseEntity<Map<String, Long>> cacheStats() {
+        return ResponseEntity.ok(todoService.getCacheStats());
+    }
+
+    private static boolean isNotModified(String ifNoneMatch, String eTag) {
+        return ifNoneMatch != null && eTag != null && TodoETags.matches(ifNoneMatch, eTag, true);
+    }
+
+    private static <T> ResponseEntity<T> notModified(String eTag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).cacheControl(CacheControl.noCache()).build();
+    }
+
+    /**
+     * Starts a response that browsers cache but check with If-None-Match before every use.
+     *
+     * @param eTag the entity tag of the response, or null to send none
+     * @return the response builder
+     */
+    private static ResponseEntity.BodyBuilder revalidated(String eTag) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok().cacheControl(CacheControl.noCache());
+        return eTag == null ? builder : builder.eTag(eTag);
     }
 
     /**
@@ -0,0 +1,76 @@
+package com.quarkbs.ToDoListApp.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * One operation of a batch request.
+ */
+public class TodoBatchOperation {
+    /**
+     * Kind of batch operation, matching the single-item endpoints.
+     */
+    public enum Type {
+        @JsonProperty("create") CREATE,
+        @JsonProperty("update") UPDATE,
+        @JsonProperty("done") DONE,
+        @JsonProperty("undone") UNDONE
+    }
+
+    private Type op;
+    private Long id;
+    private TodoDTO todo;
+
+    /**
+     * Gets the kind of operation.
+     *
+     * @return the kind of operation
+     */
+    public Type getOp() {
+        return op;
+    }
+
+    /**
+     * Sets the kind of operation.
+     *
+     * @param op the kind of operation to set
+     */
+    public void setOp(Type op) {
+        this.op = op;
+    }
+
+    /**
+     * Gets the ID of the todo to change, for update, done and undone operations.
+     *
+     * @return the ID of the todo
+     */
+    public Long getId() {
+        return id;
+    }
+
+    /**
+     * Sets the ID of the todo to change.
+     *
+     * @param id the ID to set
+     */
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    /**
+     * Gets the todo data, for create and update operations.
+     *
+     * @return the todo data
+     */
+    public TodoDTO getTodo() {
+        return todo;
+    }
+
+    /**
+     * Sets the todo data.
+     *
+     * @param todo the todo data to set
+     */
+    public void setTodo(TodoDTO todo) {
+        this.todo = todo;
+    }
+}
@@ -0,0 +1,23 @@
+package com.quarkbs.ToDoListApp.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.quarkbs.ToDoListApp.entity.Todo;
+
+/**
+ * Outcome of one operation of a batch request.
+ *
+ * @param index the position of the operation in the request
+ * @param status the HTTP status code of the outcome: 201 or 200 on success, 400 or 404 on failure
+ * @param todo the saved todo, when the operation succeeded
+ * @param error the reason the operation failed, when it did
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record TodoBatchResult(int index, int status, Todo todo, String error) {
+    public static TodoBatchResult success(int index, int status, Todo todo) {
+        return new TodoBatchResult(index, status, todo, null);
+    }
+
+    public static TodoBatchResult failure(int index, int status, String error) {
+        return new TodoBatchResult(index, status, null, error);
+    }
+}
@@ -0,0 +1,27 @@
+package com.quarkbs.ToDoListApp.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * One line of the progress report streamed back by an import.
+ *
+ * @param type "error" for a line that was not imported, "progress" after each written batch, "done" at the end
+ * @param line the line of the import body the event refers to
+ * @param imported the number of todos imported so far, for progress and done events
+ * @param failed the number of lines rejected so far, for progress and done events
+ * @param error the reason the line was rejected, for error events
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record TodoImportEvent(String type, long line, Long imported, Long failed, String error) {
+    public static TodoImportEvent error(long line, String error) {
+        return new TodoImportEvent("error", line, null, null, error);
+    }
+
+    public static TodoImportEvent progress(long line, long imported, long failed) {
+        return new TodoImportEvent("progress", line, imported, failed, null);
+    }
+
+    public static TodoImportEvent done(long line, long imported, long failed) {
+        return new TodoImportEvent("done", line, imported, failed, null);
+    }
+}
@@ -1,19 +1,40 @@
 package com.quarkbs.ToDoListApp.entity;
 
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
 import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import org.hibernate.annotations.FractionalSeconds;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 /**
  * Entity class representing a Todo item.
+ * Mapped for the JPA repository backend; the indexes back its filters and sort orders.
  */
+@Entity
+@Table(name = "todo", indexes = {
+        @Index(name = "idx_todo_status_priority_due_date", columnList = "status, priority, dueDate, id"),
+        @Index(name = "idx_todo_priority_due_date", columnList = "priority, dueDate, id"),
+        @Index(name = "idx_todo_due_date", columnList = "dueDate, id"),
+        @Index(name = "idx_todo_creation_date", columnList = "creationDate, id")
+})
 public class Todo {
     /**
      * The unique identifier of the todo.
+     * Drawn from a sequence in blocks, so inserts can be batched.
      */
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "todo_seq")
+    @SequenceGenerator(name = "todo_seq", sequenceName = "todo_seq", allocationSize = 50)
     private Long id;
 
     /**
@@ -40,17 +61,20 @@ public class Todo {
      * The priority of the todo.
      * Must be between 0 and 3.
      */
+    @Min(0)
     @Max(3)
     private int priority;
 
     /**
      * The creation date of the todo.
      */
+    @FractionalSeconds(9)
     private LocalDateTime creationDate;
 
     /**
      * The date when the todo was marked as done.
      */
+    @FractionalSeconds(9)
     private LocalDateTime doneDate;
 
     /**
@@ -58,6 +82,25 @@ public class Todo {
      */
     private Long elapsedTime;
 
+    public Todo() {
+    }
+
+    /**
+     * Creates a copy of another todo.
+     *
+     * @param other the todo to copy
+     */
+    public Todo(Todo other) {
+        this.id = other.id;
+        this.text = other.text;
+        this.status = other.status;
+        this.dueDate = other.dueDate;
+        this.priority = other.priority;
+        this.creationDate = other.creationDate;
+        this.doneDate = other.doneDate;
+        this.elapsedTime = other.elapsedTime;
+    }
+
     // Getters and setters
 
     public Long getId() {
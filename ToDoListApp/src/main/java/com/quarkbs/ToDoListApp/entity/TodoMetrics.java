@@ -1,60 +1,58 @@
 package com.quarkbs.ToDoListApp.entity;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
 /**
- * Entity class representing metrics for Todo items.
+ * Immutable snapshot of the metrics for Todo items.
  */
 public class TodoMetrics {
     /**
      * The average elapsed time until completion for all todos.
      */
-    private double avgTime;
+    private final double avgTime;
 
     /**
      * The average elapsed time until completion for low priority todos.
      */
-    private double avgTimeLow;
+    private final double avgTimeLow;
 
     /**
      * The average elapsed time until completion for medium priority todos.
      */
-    private double avgTimeMedium;
+    private final double avgTimeMedium;
 
     /**
      * The average elapsed time until completion for high priority todos.
      */
-    private double avgTimeHigh;
+    private final double avgTimeHigh;
+
+    @JsonCreator
+    public TodoMetrics(@JsonProperty("avgTime") double avgTime,
+                       @JsonProperty("avgTimeLow") double avgTimeLow,
+                       @JsonProperty("avgTimeMedium") double avgTimeMedium,
+                       @JsonProperty("avgTimeHigh") double avgTimeHigh) {
+        this.avgTime = avgTime;
+        this.avgTimeLow = avgTimeLow;
+        this.avgTimeMedium = avgTimeMedium;
+        this.avgTimeHigh = avgTimeHigh;
+    }
 
-    // Getters and setters
+    // Getters
 
     public double getAvgTime() {
         return avgTime;
     }
 
-    public void setAvgTime(double avgTime) {
-        this.avgTime = avgTime;
-    }
-
     public double getAvgTimeLow() {
         return avgTimeLow;
     }
 
-    public void setAvgTimeLow(double avgTimeLow) {
-        this.avgTimeLow = avgTimeLow;
-    }
-
     public double getAvgTimeMedium() {
         return avgTimeMedium;
     }
 
-    public void setAvgTimeMedium(double avgTimeMedium) {
-        this.avgTimeMedium = avgTimeMedium;
-    }
-
     public double getAvgTimeHigh() {
         return avgTimeHigh;
     }
-
-    public void setAvgTimeHigh(double avgTimeHigh) {
-        this.avgTimeHigh = avgTimeHigh;
-    }
-}
\ No newline at end of file
+}
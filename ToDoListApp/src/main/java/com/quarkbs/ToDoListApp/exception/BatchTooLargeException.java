@@ -0,0 +1,10 @@
+package com.quarkbs.ToDoListApp.exception;
+
+/**
+ * Thrown when a batch request holds more operations than the configured maximum.
+ */
+public class BatchTooLargeException extends RuntimeException {
+    public BatchTooLargeException(String message) {
+        super(message);
+    }
+}
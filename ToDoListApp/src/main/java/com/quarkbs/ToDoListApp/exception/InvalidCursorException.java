@@ -0,0 +1,10 @@
+package com.quarkbs.ToDoListApp.exception;
+
+/**
+ * Thrown when a pagination cursor cannot be decoded or belongs to a different sort order.
+ */
+public class InvalidCursorException extends RuntimeException {
+    public InvalidCursorException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,10 @@
+package com.quarkbs.ToDoListApp.exception;
+
+/**
+ * Thrown when a todo to create or update violates the constraints declared on it.
+ */
+public class InvalidTodoException extends RuntimeException {
+    public InvalidTodoException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,10 @@
+package com.quarkbs.ToDoListApp.exception;
+
+/**
+ * Thrown when a conditional write names a version of a todo that is no longer the stored one.
+ */
+public class PreconditionFailedException extends RuntimeException {
+    public PreconditionFailedException(String message) {
+        super(message);
+    }
+}
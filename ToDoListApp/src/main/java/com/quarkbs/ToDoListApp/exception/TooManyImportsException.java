@@ -0,0 +1,10 @@
+package com.quarkbs.ToDoListApp.exception;
+
+/**
+ * Thrown when an import is requested while the maximum number of imports is already running.
+ */
+public class TooManyImportsException extends RuntimeException {
+    public TooManyImportsException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,937 @@
+package com.quarkbs.ToDoListApp.repository;
+
+import com.quarkbs.ToDoListApp.entity.Todo;
+import com.quarkbs.ToDoListApp.entity.TodoMetrics;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Repository;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Columnar in-memory implementation of the TodoRepository interface, selected by {@code todo.repository.backend=columnar}.
+ * <p>
+ * Each todo occupies one slot across parallel primitive arrays, one per field: status and priority,
+ * due date as an epoch day, creation and done dates as epoch seconds and nanos, and elapsed time.
+ * The text and its lowercased form are UTF-8 bytes in two append-only arenas. A todo therefore costs
+ * a few dozen bytes plus its text, instead of a Todo object with its boxed values and date objects,
+ * and there are no per-todo objects for the garbage collector to trace.
+ * <p>
+ * There are no secondary indexes: filters, sorting and metrics are scans over the columns they need,
+ * which run over contiguous arrays. Readers share a lock that writers take exclusively. Todos are only
+ * materialized as Todo objects for the page being returned. This backend keeps no write-ahead log
+ * or snapshots.
+ */
+@Repository
+@ConditionalOnProperty(name = "todo.repository.backend", havingValue = "columnar")
+public class ColumnarTodoRepository implements TodoRepository {
+    private static final int PRIORITY_LEVELS = 4;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /**
+     * Number of todos materialized under one read lock by {@link #forEachMatching}.
+     */
+    private static final int CHUNK_SIZE = 1024;
+
+    private static final byte FALSE = 0;
+    private static final byte TRUE = 1;
+    private static final byte NO_STATUS = 2;
+    private static final byte FREE = 3;
+    private static final int NO_DUE_DATE = CompactTodo.NO_DUE_DATE;
+    private static final long NO_VALUE = Long.MIN_VALUE;
+    private static final int ANY_PRIORITY = Integer.MIN_VALUE;
+
+    private final AtomicLong nextId = new AtomicLong(1);
+
+    /**
+     * Modification version, incremented after every write has become visible.
+     */
+    private final AtomicLong version = new AtomicLong();
+
+    /**
+     * Guards every column, the slot map and the free list.
+     */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final SlotMap slots = new SlotMap();
+    private final TextColumn texts = new TextColumn();
+
+    /**
+     * Lowercased texts, only for the todos whose text changes when lowercased; the others are matched against {@link #texts}.
+     */
+    private final TextColumn normalizedTexts = new TextColumn();
+
+    private long[] ids = new long[INITIAL_CAPACITY];
+    private byte[] statuses = new byte[INITIAL_CAPACITY];
+    private int[] priorities = new int[INITIAL_CAPACITY];
+    private int[] dueDays = new int[INITIAL_CAPACITY];
+    private long[] creationSeconds = new long[INITIAL_CAPACITY];
+    private int[] creationNanos = new int[INITIAL_CAPACITY];
+    private long[] doneSeconds = new long[INITIAL_CAPACITY];
+    private int[] doneNanos = new int[INITIAL_CAPACITY];
+    private long[] elapsedTimes = new long[INITIAL_CAPACITY];
+
+    /**
+     * Slots in use or freed so far; scans stop here.
+     */
+    private int slotCount;
+    private int[] freeSlots = new int[16];
+    private int freeCount;
+
+    public ColumnarTodoRepository() {
+        texts.grow(INITIAL_CAPACITY);
+        normalizedTexts.grow(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Retrieves all todos.
+     *
+     * @return a list of all todos
+     */
+    public List<Todo> findAll() {
+        lock.readLock().lock();
+        try {
+            List<Todo> all = new ArrayList<>(slots.size());
+            for (int slot = 0; slot < slotCount; slot++) {
+                if (statuses[slot] != FREE) {
+                    all.add(materialize(slot));
+                }
+            }
+            return all;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Passes every todo matching the filters to an action, one at a time, in slot order.
+     * The columns are scanned in chunks under the read lock and the action runs outside it,
+     * so a slow consumer does not hold up writers.
+     *
+     * @param status the status filter (optional)
+     * @param text the text filter (optional)
+     * @param priority the priority filter (optional)
+     * @param action receives each matching todo
+     */
+    public void forEachMatching(Boolean status, String text, Integer priority, Consumer<Todo> action) {
+        byte[] needle = needle(text);
+        byte wantedStatus = wantedStatus(status);
+        int wantedPriority = wantedPriority(priority);
+        List<Todo> chunk = new ArrayList<>(CHUNK_SIZE);
+        int next = 0;
+        boolean more = true;
+        while (more) {
+            lock.readLock().lock();
+            try {
+                while (next < slotCount && chunk.size() < CHUNK_SIZE) {
+                    if (matches(next, wantedStatus, wantedPriority, needle)) {
+                        chunk.add(materialize(next));
+                    }
+                    next++;
+                }
+                more = next < slotCount;
+            } finally {
+                lock.readLock().unlock();
+            }
+            chunk.forEach(action);
+            chunk.clear();
+        }
+    }
+
+    /**
+     * Retrieves a todo by its ID.
+     * The returned todo is built from the columns, so callers can change it freely before saving it again.
+     *
+     * @param id the ID of the todo
+     * @return an Optional containing the todo if found, or empty if not found
+     */
+    public Optional<Todo> findById(Long id) {
+        lock.readLock().lock();
+        try {
+            int slot = slots.get(id);
+            return slot < 0 ? Optional.empty() : Optional.of(materialize(slot));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Saves a todo.
+     *
+     * @param todo the todo to save
+     * @return the saved todo
+     */
+    public Todo save(Todo todo) {
+        prepare(todo);
+        lock.writeLock().lock();
+        try {
+            store(todo);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        version.incrementAndGet();
+        return todo;
+    }
+
+    /**
+     * Saves many todos under a single write lock, incrementing the version once.
+     *
+     * @param batch the todos to save
+     * @return the saved todos
+     */
+    public List<Todo> saveAll(List<Todo> batch) {
+        batch.forEach(this::prepare);
+        lock.writeLock().lock();
+        try {
+            batch.forEach(this::store);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        version.incrementAndGet();
+        return batch;
+    }
+
+    /**
+     * Changes a stored todo under the write lock, which every write of this backend takes.
+     *
+     * @param id the ID of the todo to change
+     * @param change changes the current todo in place, without changing its ID; if it throws, the todo stays as it was
+     * @return an Optional containing the saved todo, or empty if not found
+     */
+    public Optional<Todo> update(Long id, Consumer<Todo> change) {
+        Todo todo;
+        lock.writeLock().lock();
+        try {
+            int slot = slots.get(id);
+            if (slot < 0) {
+                return Optional.empty();
+            }
+            todo = materialize(slot);
+            change.accept(todo);
+            store(todo);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        version.incrementAndGet();
+        return Optional.of(todo);
+    }
+
+    /**
+     * Deletes a todo by its ID.
+     *
+     * @param id the ID of the todo to delete
+     */
+    public void deleteById(Long id) {
+        deleteAll(List.of(id));
+    }
+
+    /**
+     * Deletes many todos under a single write lock, incrementing the version once.
+     *
+     * @param ids the IDs of the todos to delete
+     */
+    public void deleteAll(Collection<Long> ids) {
+        lock.writeLock().lock();
+        try {
+            ids.forEach(this::remove);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        version.incrementAndGet();
+    }
+
+    /**
+     * Retrieves the modification version of the store.
+     *
+     * @return a number that grows after every save or deletion
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
+    /**
+     * Retrieves a paginated list of todos with optional filters.
+     * The filter columns are scanned for the matching slots, the first slots of the sort order up to
+     * the end of the page are selected with a bounded heap, and only the page is materialized.
+     *
+     * @param pageable the pagination information
+     * @param status the status filter (optional)
+     * @param text the text filter (optional)
+     * @param priority the priority filter (optional)
+     * @param sortBy the field to sort by
+     * @param directionPriority the sort direction for priority
+     * @param directionDueDate the sort direction for due date
+     * @return a map containing the paginated list of todos and additional metadata
+     */
+    public Map<String, Object> findByFilter(PageRequest pageable, Boolean status, String text, Integer priority, String sortBy, String directionPriority, String directionDueDate) {
+        byte[] needle = needle(text);
+        lock.readLock().lock();
+        try {
+            Matches matches = scan(status, needle, priority);
+            int total = matches.count();
+            int start = (int) Math.min(pageable.getOffset(), total);
+            int end = Math.min(start + pageable.getPageSize(), total);
+            SlotOrder order = order(sortBy, directionPriority, directionDueDate);
+            int[] ordered = order == null ? matches.slots() : firstK(matches.slots(), total, order, end);
+            List<Todo> paginatedTodos = new ArrayList<>(end - start);
+            for (int i = start; i < end; i++) {
+                paginatedTodos.add(materialize(ordered[i]));
+            }
+            return Map.of(
+                    "todosList", paginatedTodos,
+                    "total", total
+            );
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Retrieves the todos following a keyset cursor in a sort order.
+     * The matching slots after the cursor's sort key are kept and the first of them selected with a bounded heap.
+     *
+     * @param cursor the cursor returned with the previous page, or null or empty for the first page
+     * @param size the maximum number of todos to return
+     * @param status the status filter (optional)
+     * @param text the text filter (optional)
+     * @param priority the priority filter (optional)
+     * @param sortBy the field to sort by
+     * @param directionPriority the sort direction for priority
+     * @param directionDueDate the sort direction for due date
+     * @return a map containing the todos, the total and the cursor of the next page (null on the last page)
+     */
+    public Map<String, Object> findByCursor(String cursor, int size, Boolean status, String text, Integer priority, String sortBy, String directionPriority, String directionDueDate) {
+        SortedIndexes.Key after = cursor == null || cursor.isEmpty() ? null : TodoCursor.decode(cursor, sortBy, directionPriority, directionDueDate).key();
+        SlotOrder order = order(sortBy, directionPriority, directionDueDate);
+        if (order == null) {
+            throw new IllegalArgumentException("Cursor pagination needs a sort order: " + sortBy);
+        }
+        byte[] needle = needle(text);
+        List<Todo> pageTodos = new ArrayList<>();
+        int total;
+        SortedIndexes.Key lastKey = null;
+        boolean more;
+        lock.readLock().lock();
+        try {
+            Matches matches = scan(status, needle, priority);
+            int[] candidates = matches.slots();
+            total = matches.count();
+            int remaining = total;
+            if (after != null) {
+                remaining = 0;
+                for (int i = 0; i < total; i++) {
+                    if (SortedIndexes.isAfter(sortBy, directionPriority, directionDueDate, keyOf(sortBy, candidates[i]), after)) {
+                        candidates[remaining++] = candidates[i];
+                    }
+                }
+            }
+            int[] next = firstK(candidates, remaining, order, size + 1);
+            int count = Math.min(size, next.length);
+            for (int i = 0; i < count; i++) {
+                pageTodos.add(materialize(next[i]));
+            }
+            more = next.length > size && count > 0;
+            if (more) {
+                lastKey = keyOf(sortBy, next[count - 1]);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        Map<String, Object> response = new HashMap<>();
+        response.put("todosList", pageTodos);
+        response.put("total", total);
+        response.put("nextCursor", more ? new TodoCursor(sortBy, directionPriority, directionDueDate, lastKey).encode() : null);
+        return response;
+    }
+
+    /**
+     * Retrieves a snapshot of the todo metrics with one scan over the elapsed time and priority columns.
+     *
+     * @return the todo metrics, in minutes
+     */
+    public TodoMetrics getMetrics() {
+        long[] totals;
+        lock.readLock().lock();
+        try {
+            totals = sumElapsedTimes(elapsedTimes, priorities, slotCount);
+        } finally {
+            lock.readLock().unlock();
+        }
+        return new TodoMetrics(average(totals[0], totals[1]), average(totals[2], totals[3]), average(totals[4], totals[5]), average(totals[6], totals[7]));
+    }
+
+    /**
+     * Sums the elapsed times and counts the completed todos, overall and per priority, without a branch:
+     * a quarter of the todos are done in no particular order, and mispredicted branches made the scan five
+     * times slower. {@code (x | -x) >>> 63} is 1 for any non-zero x and 0 for zero.
+     *
+     * @param elapsed the elapsed time column
+     * @param priority the priority column
+     * @param end the number of slots to scan
+     * @return the sum and count overall, then for priorities 1, 2 and 3
+     */
+    private static long[] sumElapsedTimes(long[] elapsed, int[] priority, int end) {
+        long sum = 0, sumLow = 0, sumMedium = 0, sumHigh = 0;
+        long count = 0, countLow = 0, countMedium = 0, countHigh = 0;
+        for (int slot = 0; slot < end; slot++) {
+            long value = elapsed[slot];
+            long missing = value ^ NO_VALUE;
+            long present = (missing | -missing) >>> 63;
+            long counted = value & -present;
+            int level = priority[slot];
+            long low = (((level ^ 1) | -(level ^ 1)) >>> 31 ^ 1) & present;
+            long medium = (((level ^ 2) | -(level ^ 2)) >>> 31 ^ 1) & present;
+            long high = (((level ^ 3) | -(level ^ 3)) >>> 31 ^ 1) & present;
+            sum += counted;
+            count += present;
+            sumLow += counted & -low;
+            countLow += low;
+            sumMedium += counted & -medium;
+            countMedium += medium;
+            sumHigh += counted & -high;
+            countHigh += high;
+        }
+        return new long[]{sum, count, sumLow, countLow, sumMedium, countMedium, sumHigh, countHigh};
+    }
+
+    /**
+     * Reports the heap used by the columns, the arenas and the slot map, including spare capacity.
+     *
+     * @return the footprint in bytes
+     */
+    public long footprintBytes() {
+        lock.readLock().lock();
+        try {
+            long perSlot = Long.BYTES * 4 + Integer.BYTES * 4 + 1;
+            return perSlot * ids.length + (long) Integer.BYTES * freeSlots.length
+                    + texts.footprintBytes() + normalizedTexts.footprintBytes() + slots.footprintBytes();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Computes an average elapsed time in minutes.
+     *
+     * @param sum the sum of elapsed seconds
+     * @param count the number of completed todos
+     * @return the average in minutes, or 0 when there is nothing to average
+     */
+    private static double average(long sum, long count) {
+        return count == 0 ? 0L : ((double) sum / count) / 60;
+    }
+
+    /**
+     * Assigns an ID and a creation date to a todo that lacks them.
+     *
+     * @param todo the todo to save
+     */
+    private void prepare(Todo todo) {
+        if (todo.getId() == null) {
+            todo.setId(nextId.getAndIncrement());
+        } else {
+            nextId.accumulateAndGet(todo.getId() + 1, Math::max);
+        }
+        if (todo.getCreationDate() == null) {
+            todo.setCreationDate(LocalDateTime.now());
+        }
+    }
+
+    /**
+     * Writes a todo into its slot, taking a free slot for a new todo. Called under the write lock.
+     *
+     * @param todo the prepared todo
+     */
+    private void store(Todo todo) {
+        int slot = slots.get(todo.getId());
+        if (slot < 0) {
+            slot = allocate();
+            slots.put(todo.getId(), slot);
+        }
+        ids[slot] = todo.getId();
+        statuses[slot] = todo.getStatus() == null ? NO_STATUS : todo.getStatus() ? TRUE : FALSE;
+        priorities[slot] = todo.getPriority();
+        dueDays[slot] = CompactTodo.encodeDueDate(todo.getDueDate());
+        creationSeconds[slot] = todo.getCreationDate().toEpochSecond(ZoneOffset.UTC);
+        creationNanos[slot] = todo.getCreationDate().getNano();
+        doneSeconds[slot] = todo.getDoneDate() == null ? NO_VALUE : todo.getDoneDate().toEpochSecond(ZoneOffset.UTC);
+        doneNanos[slot] = todo.getDoneDate() == null ? 0 : todo.getDoneDate().getNano();
+        elapsedTimes[slot] = todo.getElapsedTime() == null ? NO_VALUE : todo.getElapsedTime();
+        String text = todo.getText();
+        String normalized = text == null ? null : TrigramIndex.normalize(text);
+        texts.set(slot, text);
+        normalizedTexts.set(slot, normalized == null || normalized.equals(text) ? null : normalized);
+        texts.compactIfWasteful(slotCount);
+        normalizedTexts.compactIfWasteful(slotCount);
+    }
+
+    /**
+     * Frees the slot of a todo. Called under the write lock.
+     *
+     * @param id the ID of the todo to delete
+     */
+    private void remove(Long id) {
+        int slot = slots.remove(id);
+        if (slot < 0) {
+            return;
+        }
+        statuses[slot] = FREE;
+        elapsedTimes[slot] = NO_VALUE;
+        texts.set(slot, null);
+        normalizedTexts.set(slot, null);
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+        }
+        freeSlots[freeCount++] = slot;
+    }
+
+    /**
+     * Takes a freed slot, or the next unused one, growing every column when they are full.
+     */
+    private int allocate() {
+        if (freeCount > 0) {
+            return freeSlots[--freeCount];
+        }
+        if (slotCount == ids.length) {
+            int capacity = ids.length * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            statuses = Arrays.copyOf(statuses, capacity);
+            priorities = Arrays.copyOf(priorities, capacity);
+            dueDays = Arrays.copyOf(dueDays, capacity);
+            creationSeconds = Arrays.copyOf(creationSeconds, capacity);
+            creationNanos = Arrays.copyOf(creationNanos, capacity);
+            doneSeconds = Arrays.copyOf(doneSeconds, capacity);
+            doneNanos = Arrays.copyOf(doneNanos, capacity);
+            elapsedTimes = Arrays.copyOf(elapsedTimes, capacity);
+            texts.grow(capacity);
+            normalizedTexts.grow(capacity);
+        }
+        return slotCount++;
+    }
+
+    /**
+     * Builds a Todo from the columns of a slot. Called under the read lock.
+     */
+    private Todo materialize(int slot) {
+        Todo todo = new Todo();
+        todo.setId(ids[slot]);
+        todo.setText(texts.get(slot));
+        todo.setStatus(statuses[slot] == NO_STATUS ? null : statuses[slot] == TRUE);
+        todo.setPriority(priorities[slot]);
+        todo.setDueDate(dueDays[slot] == NO_DUE_DATE ? null : LocalDate.ofEpochDay(dueDays[slot]));
+        todo.setCreationDate(LocalDateTime.ofEpochSecond(creationSeconds[slot], creationNanos[slot], ZoneOffset.UTC));
+        todo.setDoneDate(doneSeconds[slot] == NO_VALUE ? null : LocalDateTime.ofEpochSecond(doneSeconds[slot], doneNanos[slot], ZoneOffset.UTC));
+        todo.setElapsedTime(elapsedTimes[slot] == NO_VALUE ? null : elapsedTimes[slot]);
+        return todo;
+    }
+
+    /**
+     * Encodes the text filter as the UTF-8 bytes of its lowercased form.
+     *
+     * @param text the text filter (optional)
+     * @return the bytes to look for, or null if there is no text filter
+     */
+    private static byte[] needle(String text) {
+        return text == null || text.isEmpty() ? null : TrigramIndex.normalize(text).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Scans the filter columns for the slots of the matching todos. Called under the read lock.
+     *
+     * @return the matching slots, in slot order
+     */
+    private Matches scan(Boolean status, byte[] needle, Integer priority) {
+        int[] matches = new int[slotCount];
+        int count = selectSlots(statuses, priorities, slotCount, wantedStatus(status), wantedPriority(priority), matches);
+        if (needle != null) {
+            int kept = 0;
+            for (int i = 0; i < count; i++) {
+                int slot = matches[i];
+                if ((normalizedTexts.isNull(slot) ? texts : normalizedTexts).contains(slot, needle)) {
+                    matches[kept++] = slot;
+                }
+            }
+            count = kept;
+        }
+        return new Matches(matches, count);
+    }
+
+    /**
+     * Slots found by a scan, at the start of an array sized for every slot.
+     */
+    private record Matches(int[] slots, int count) {
+    }
+
+    /**
+     * Collects the slots matching the status and priority filters. Every slot is written and the count only
+     * advances on a match, so there is no branch to mispredict when the filters keep an unpredictable share
+     * of the todos.
+     *
+     * @param matches receives the matching slots, with room for every slot
+     * @return the number of matching slots
+     */
+    private static int selectSlots(byte[] statuses, int[] priorities, int end, byte wantedStatus, int wantedPriority, int[] matches) {
+        boolean anyStatus = wantedStatus == FREE;
+        boolean anyPriority = wantedPriority == ANY_PRIORITY;
+        int count = 0;
+        for (int slot = 0; slot < end; slot++) {
+            byte value = statuses[slot];
+            boolean match = value != FREE & (anyStatus | value == wantedStatus) & (anyPriority | priorities[slot] == wantedPriority);
+            matches[count] = slot;
+            count += match ? 1 : 0;
+        }
+        return count;
+    }
+
+    /**
+     * Checks a slot against the filters, with the status and priority filters already unboxed. Called under the read lock.
+     *
+     * @param wantedStatus the status byte to match, or {@link #FREE} to match any status
+     * @param wantedPriority the priority to match, or {@link #ANY_PRIORITY} to match any priority
+     * @param needle the text to look for, or null to match any text
+     */
+    private boolean matches(int slot, byte wantedStatus, int wantedPriority, byte[] needle) {
+        byte value = statuses[slot];
+        if (value == FREE || (wantedStatus != FREE && value != wantedStatus)) {
+            return false;
+        }
+        if (wantedPriority != ANY_PRIORITY && priorities[slot] != wantedPriority) {
+            return false;
+        }
+        return needle == null || (normalizedTexts.isNull(slot) ? texts : normalizedTexts).contains(slot, needle);
+    }
+
+    private static byte wantedStatus(Boolean status) {
+        return status == null ? FREE : status ? TRUE : FALSE;
+    }
+
+    private static int wantedPriority(Integer priority) {
+        return priority == null ? ANY_PRIORITY : priority;
+    }
+
+    /**
+     * Order of two slots in a sort order.
+     */
+    @FunctionalInterface
+    private interface SlotOrder {
+        int compare(int x, int y);
+    }
+
+    /**
+     * Builds the slot order matching {@link TodoSort}. The due date column sorts todos without a due date last.
+     *
+     * @return the order, or null if the todos are not sorted
+     */
+    private SlotOrder order(String sortBy, String directionPriority, String directionDueDate) {
+        int prioritySign = Objects.equals(directionPriority, "ASC") ? 1 : -1;
+        int dueDateSign = Objects.equals(directionDueDate, "ASC") ? 1 : -1;
+        return switch (sortBy) {
+            case "priority" -> (x, y) -> {
+                int result = prioritySign * Integer.compare(priorities[x], priorities[y]);
+                return result != 0 ? result : compareDueDateAndId(x, y);
+            };
+            case "dueDate" -> (x, y) -> dueDateSign * compareDueDateAndId(x, y);
+            case "priorityDueDate" -> (x, y) -> {
+                int result = prioritySign * Integer.compare(priorities[x], priorities[y]);
+                return result != 0 ? result : dueDateSign * compareDueDateAndId(x, y);
+            };
+            case "creationDate" -> (x, y) -> {
+                int result = Long.compare(creationSeconds[x], creationSeconds[y]);
+                if (result == 0) {
+                    result = Integer.compare(creationNanos[x], creationNanos[y]);
+                }
+                return prioritySign * (result != 0 ? result : Long.compare(ids[x], ids[y]));
+            };
+            default -> null;
+        };
+    }
+
+    private int compareDueDateAndId(int x, int y) {
+        int result = Integer.compare(dueDays[x], dueDays[y]);
+        return result != 0 ? result : Long.compare(ids[x], ids[y]);
+    }
+
+    /**
+     * Selects the first slots of a sort order with a bounded max-heap, then sorts them.
+     *
+     * @param candidates the slots to select from
+     * @param length the number of candidates to consider, from the start of the array
+     * @param order the sort order
+     * @param limit the number of slots to select
+     * @return the first {@code min(limit, length)} slots in order
+     */
+    private static int[] firstK(int[] candidates, int length, SlotOrder order, int limit) {
+        int[] heap = new int[Math.max(0, Math.min(limit, length))];
+        int size = 0;
+        for (int i = 0; i < length && heap.length > 0; i++) {
+            int slot = candidates[i];
+            if (size < heap.length) {
+                heap[size] = slot;
+                siftUp(heap, size++, order);
+            } else if (order.compare(slot, heap[0]) < 0) {
+                heap[0] = slot;
+                siftDown(heap, 0, size, order);
+            }
+        }
+        for (int end = size - 1; end > 0; end--) {
+            int largest = heap[0];
+            heap[0] = heap[end];
+            heap[end] = largest;
+            siftDown(heap, 0, end, order);
+        }
+        return heap;
+    }
+
+    private static void siftUp(int[] heap, int index, SlotOrder order) {
+        int slot = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (order.compare(slot, heap[parent]) <= 0) {
+                break;
+            }
+            heap[index] = heap[parent];
+            index = parent;
+        }
+        heap[index] = slot;
+    }
+
+    private static void siftDown(int[] heap, int index, int size, SlotOrder order) {
+        int slot = heap[index];
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && order.compare(heap[child + 1], heap[child]) > 0) {
+                child++;
+            }
+            if (order.compare(slot, heap[child]) >= 0) {
+                break;
+            }
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = slot;
+    }
+
+    /**
+     * Builds the sort key of a slot as {@link SortedIndexes} does for a todo, so cursors are shared with the other backends.
+     */
+    private SortedIndexes.Key keyOf(String sortBy, int slot) {
+        long dueDay = dueDays[slot] == NO_DUE_DATE ? Long.MAX_VALUE : dueDays[slot];
+        return switch (sortBy) {
+            case "dueDate" -> new SortedIndexes.Key(dueDay, 0, 0, ids[slot]);
+            case "creationDate" -> new SortedIndexes.Key(creationSeconds[slot], creationNanos[slot], 0, ids[slot]);
+            default -> new SortedIndexes.Key(priorities[slot], dueDay, 0, ids[slot]);
+        };
+    }
+
+    /**
+     * Variable-length UTF-8 strings of the slots, appended to one byte arena.
+     * Replaced and removed strings leave their bytes behind until the arena is compacted.
+     */
+    private static final class TextColumn {
+        private static final int MIN_COMPACTION_BYTES = 1 << 16;
+
+        private int[] offsets = new int[0];
+        private int[] lengths = new int[0];
+        private byte[] bytes = new byte[MIN_COMPACTION_BYTES];
+        private int used;
+        private int garbage;
+
+        void grow(int capacity) {
+            int previous = lengths.length;
+            offsets = Arrays.copyOf(offsets, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+            Arrays.fill(lengths, previous, capacity, -1);
+        }
+
+        void set(int slot, String value) {
+            if (lengths[slot] > 0) {
+                garbage += lengths[slot];
+            }
+            if (value == null) {
+                lengths[slot] = -1;
+                return;
+            }
+            byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+            if (used + encoded.length > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, used + encoded.length));
+            }
+            System.arraycopy(encoded, 0, bytes, used, encoded.length);
+            offsets[slot] = used;
+            lengths[slot] = encoded.length;
+            used += encoded.length;
+        }
+
+        boolean isNull(int slot) {
+            return lengths[slot] < 0;
+        }
+
+        String get(int slot) {
+            return lengths[slot] < 0 ? null : new String(bytes, offsets[slot], lengths[slot], StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Looks for a byte sequence in the string of a slot. UTF-8 never matches a character in the
+         * middle of another, so a byte match is a character match.
+         */
+        boolean contains(int slot, byte[] needle) {
+            int length = lengths[slot];
+            if (length < needle.length) {
+                return false;
+            }
+            int start = offsets[slot];
+            int last = start + length - needle.length;
+            byte first = needle[0];
+            for (int i = start; i <= last; i++) {
+                if (bytes[i] != first) {
+                    continue;
+                }
+                int j = 1;
+                while (j < needle.length && bytes[i + j] == needle[j]) {
+                    j++;
+                }
+                if (j == needle.length) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Copies the live strings to a new arena once more than half of the arena is garbage.
+         *
+         * @param slotCount the number of slots in use or freed
+         */
+        void compactIfWasteful(int slotCount) {
+            if (garbage < MIN_COMPACTION_BYTES || garbage * 2L < used) {
+                return;
+            }
+            byte[] compacted = new byte[Math.max(MIN_COMPACTION_BYTES, (used - garbage) * 2)];
+            int position = 0;
+            for (int slot = 0; slot < slotCount; slot++) {
+                if (lengths[slot] > 0) {
+                    System.arraycopy(bytes, offsets[slot], compacted, position, lengths[slot]);
+                    offsets[slot] = position;
+                    position += lengths[slot];
+                }
+            }
+            bytes = compacted;
+            used = position;
+            garbage = 0;
+        }
+
+        long footprintBytes() {
+            return (long) Integer.BYTES * (offsets.length + lengths.length) + bytes.length;
+        }
+    }
+
+    /**
+     * Open-addressing hash map from todo ID to slot, with linear probing and no per-entry objects.
+     */
+    private static final class SlotMap {
+        private static final long EMPTY = Long.MIN_VALUE;
+
+        private long[] keys = newKeys(1024);
+        private int[] values = new int[1024];
+        private int size;
+
+        int size() {
+            return size;
+        }
+
+        int get(long key) {
+            int mask = keys.length - 1;
+            for (int i = index(key, mask); ; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    return values[i];
+                }
+                if (keys[i] == EMPTY) {
+                    return -1;
+                }
+            }
+        }
+
+        void put(long key, int value) {
+            if ((size + 1) * 2 > keys.length) {
+                rehash(keys.length * 2);
+            }
+            int mask = keys.length - 1;
+            int i = index(key, mask);
+            while (keys[i] != EMPTY && keys[i] != key) {
+                i = (i + 1) & mask;
+            }
+            if (keys[i] == EMPTY) {
+                size++;
+            }
+            keys[i] = key;
+            values[i] = value;
+        }
+
+        /**
+         * Removes a key, shifting back the entries of its probe run so lookups need no tombstones.
+         *
+         * @return the slot of the key, or -1 if it was absent
+         */
+        int remove(long key) {
+            int mask = keys.length - 1;
+            int i = index(key, mask);
+            while (keys[i] != key) {
+                if (keys[i] == EMPTY) {
+                    return -1;
+                }
+                i = (i + 1) & mask;
+            }
+            int removed = values[i];
+            size--;
+            int gap = i;
+            for (int j = (gap + 1) & mask; keys[j] != EMPTY; j = (j + 1) & mask) {
+                int home = index(keys[j], mask);
+                if (((j - home) & mask) >= ((j - gap) & mask)) {
+                    keys[gap] = keys[j];
+                    values[gap] = values[j];
+                    gap = j;
+                }
+            }
+            keys[gap] = EMPTY;
+            return removed;
+        }
+
+        long footprintBytes() {
+            return (long) Long.BYTES * keys.length + (long) Integer.BYTES * values.length;
+        }
+
+        private void rehash(int capacity) {
+            long[] oldKeys = keys;
+            int[] oldValues = values;
+            keys = newKeys(capacity);
+            values = new int[capacity];
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != EMPTY) {
+                    put(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+
+        private static int index(long key, int mask) {
+            long hash = key * 0x9E3779B97F4A7C15L;
+            return (int) (hash ^ (hash >>> 32)) & mask;
+        }
+
+        private static long[] newKeys(int capacity) {
+            long[] keys = new long[capacity];
+            Arrays.fill(keys, EMPTY);
+            return keys;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.quarkbs.ToDoListApp.repository;
+
+import com.quarkbs.ToDoListApp.entity.Todo;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Form in which the in-memory backend stores a todo.
+ * A Todo holds a boxed ID, a LocalDate, one or two LocalDateTime objects of three objects each and a boxed
+ * elapsed time, besides itself and its text. This record keeps all of them as primitives in one object:
+ * <pre>
+ * long   id
+ * String text
+ * byte   flags                status in the low two bits (0 = false, 1 = true, 2 = null), priority above them
+ * int    due day              epoch day, {@link #NO_DUE_DATE} = null
+ * long   creation second      epoch second (UTC), {@link #NO_VALUE} = null
+ * int    creation nano        nanosecond of second
+ * long   done second          epoch second (UTC), {@link #NO_VALUE} = null
+ * int    done nano            nanosecond of second
+ * long   elapsed time         seconds, {@link #NO_VALUE} = null
+ * </pre>
+ * The text stays a String: compact strings already keep Latin-1 text at one byte per character, and
+ * the text filter would otherwise decode it on every check. A Todo is built only when a todo leaves the
+ * repository.
+ */
+record CompactTodo(long id, String text, byte flags, int dueDay, long creationSecond, int creationNano,
+                   long doneSecond, int doneNano, long elapsedTime) {
+    static final int NO_DUE_DATE = Integer.MAX_VALUE;
+    static final long NO_VALUE = Long.MIN_VALUE;
+
+    /**
+     * Range of the priorities that fit in the six bits above the status.
+     */
+    static final int MIN_PRIORITY = -32;
+    static final int MAX_PRIORITY = 31;
+
+    private static final int STATUS_BITS = 2;
+    private static final int STATUS_MASK = 0b11;
+    private static final int NO_STATUS = 2;
+
+    /**
+     * Encodes a todo.
+     *
+     * @param todo the todo, with an ID
+     * @return the compact form of the todo
+     * @throws IllegalArgumentException if the priority or the due date cannot be encoded
+     */
+    static CompactTodo of(Todo todo) {
+        LocalDateTime creationDate = todo.getCreationDate();
+        LocalDateTime doneDate = todo.getDoneDate();
+        return of(
+                todo.getId(),
+                todo.getText(),
+                todo.getStatus(),
+                todo.getPriority(),
+                encodeDueDate(todo.getDueDate()),
+                creationDate == null ? NO_VALUE : creationDate.toEpochSecond(ZoneOffset.UTC),
+                creationDate == null ? 0 : creationDate.getNano(),
+                doneDate == null ? NO_VALUE : doneDate.toEpochSecond(ZoneOffset.UTC),
+                doneDate == null ? 0 : doneDate.getNano(),
+                todo.getElapsedTime() == null ? NO_VALUE : todo.getElapsedTime());
+    }
+
+    /**
+     * Encodes a todo from fields already in this record's units, so a decoder needs no Todo in between.
+     *
+     * @param id the ID
+     * @param text the text, or null
+     * @param status the status, or null
+     * @param priority the priority
+     * @param dueDay the due date as an epoch day, or {@link #NO_DUE_DATE}
+     * @param creationSecond the creation date as an epoch second (UTC), or {@link #NO_VALUE}
+     * @param creationNano the nanosecond of the creation date
+     * @param doneSecond the done date as an epoch second (UTC), or {@link #NO_VALUE}
+     * @param doneNano the nanosecond of the done date
+     * @param elapsedTime the elapsed time in seconds, or {@link #NO_VALUE}
+     * @return the compact form of the todo
+     * @throws IllegalArgumentException if the priority cannot be encoded
+     */
+    static CompactTodo of(long id, String text, Boolean status, int priority, int dueDay, long creationSecond,
+                          int creationNano, long doneSecond, int doneNano, long elapsedTime) {
+        if (priority < MIN_PRIORITY || priority > MAX_PRIORITY) {
+            throw new IllegalArgumentException("Priority out of range: " + priority);
+        }
+        int flags = priority << STATUS_BITS | (status == null ? NO_STATUS : status ? 1 : 0);
+        return new CompactTodo(id, text, (byte) flags, dueDay, creationSecond, creationNano, doneSecond, doneNano, elapsedTime);
+    }
+
+    /**
+     * Encodes a due date as an epoch day.
+     *
+     * @param dueDate the due date, or null
+     * @return the epoch day, or {@link #NO_DUE_DATE} if there is no due date
+     * @throws IllegalArgumentException if the date is too far from 1970 for an int epoch day
+     */
+    static int encodeDueDate(LocalDate dueDate) {
+        if (dueDate == null) {
+            return NO_DUE_DATE;
+        }
+        return encodeDueDay(dueDate.toEpochDay());
+    }
+
+    /**
+     * Checks that an epoch day fits the due day field.
+     *
+     * @param epochDay the due date as an epoch day
+     * @return the epoch day
+     * @throws IllegalArgumentException if the day is too far from 1970 for an int epoch day
+     */
+    static int encodeDueDay(long epochDay) {
+        if (epochDay < Integer.MIN_VALUE || epochDay >= NO_DUE_DATE) {
+            throw new IllegalArgumentException("Due date out of range: epoch day " + epochDay);
+        }
+        return (int) epochDay;
+    }
+
+    /**
+     * Decodes the todo.
+     *
+     * @return a new Todo with the stored values
+     */
+    Todo toTodo() {
+        Todo todo = new Todo();
+        todo.setId(id);
+        todo.setText(text);
+        todo.setStatus(status());
+        todo.setPriority(priority());
+        todo.setDueDate(dueDay == NO_DUE_DATE ? null : LocalDate.ofEpochDay(dueDay));
+        todo.setCreationDate(creationSecond == NO_VALUE ? null : LocalDateTime.ofEpochSecond(creationSecond, creationNano, ZoneOffset.UTC));
+        todo.setDoneDate(doneSecond == NO_VALUE ? null : LocalDateTime.ofEpochSecond(doneSecond, doneNano, ZoneOffset.UTC));
+        todo.setElapsedTime(hasElapsedTime() ? elapsedTime : null);
+        return todo;
+    }
+
+    /**
+     * Decodes the status from the flags.
+     *
+     * @return the status, or null if the todo has none
+     */
+    Boolean status() {
+        int status = flags & STATUS_MASK;
+        return status == NO_STATUS ? null : status == 1;
+    }
+
+    int priority() {
+        return flags >> STATUS_BITS;
+    }
+
+    boolean hasElapsedTime() {
+        return elapsedTime != NO_VALUE;
+    }
+}
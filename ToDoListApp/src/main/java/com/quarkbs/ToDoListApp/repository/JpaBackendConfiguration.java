@@ -0,0 +1,30 @@
+package com.quarkbs.ToDoListApp.repository;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * Data source of the JPA repository backend.
+ * The data source auto-configuration is excluded so the in-memory backend runs without a database;
+ * this configuration provides one from the {@code spring.datasource.*} properties when the JPA
+ * backend is selected, which in turn enables the JPA auto-configuration.
+ */
+@Configuration
+@ConditionalOnProperty(name = "todo.repository.backend", havingValue = "jpa")
+public class JpaBackendConfiguration {
+    @Bean
+    @ConfigurationProperties("spring.datasource")
+    public DataSourceProperties dataSourceProperties() {
+        return new DataSourceProperties();
+    }
+
+    @Bean
+    public DataSource dataSource(DataSourceProperties dataSourceProperties) {
+        return dataSourceProperties.initializeDataSourceBuilder().build();
+    }
+}
@@ -0,0 +1,470 @@
+package com.quarkbs.ToDoListApp.repository;
+
+import com.quarkbs.ToDoListApp.entity.Todo;
+import com.quarkbs.ToDoListApp.entity.TodoMetrics;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * JPA implementation of the TodoRepository interface, selected by {@code todo.repository.backend=jpa}.
+ * Filtering, sorting, pagination, counting and the metrics aggregation all run in the database,
+ * backed by the indexes declared on {@link Todo}.
+ */
+@Repository
+@ConditionalOnProperty(name = "todo.repository.backend", havingValue = "jpa")
+@Transactional(readOnly = true)
+public class JpaTodoRepository implements TodoRepository {
+    private static final int PRIORITY_LEVELS = 4;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Number of writes sent to the database in one JDBC batch by {@link #saveAll}.
+     */
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int batchSize = 50;
+
+    /**
+     * Modification version, incremented after every write transaction has committed.
+     */
+    private final AtomicLong version = new AtomicLong();
+
+    /**
+     * Retrieves all todos.
+     *
+     * @return a list of all todos
+     */
+    public List<Todo> findAll() {
+        return entityManager.createQuery("select t from Todo t order by t.id", Todo.class).getResultList();
+    }
+
+    /**
+     * Passes every todo matching the filters to an action, one at a time, in ID order.
+     * The rows are read through a forward-only cursor in chunks of the JDBC fetch size, and each
+     * todo is detached once handed over, so neither the result set nor the persistence context grows.
+     *
+     * @param status the status filter (optional)
+     * @param text the text filter (optional)
+     * @param priority the priority filter (optional)
+     * @param action receives each matching todo
+     */
+    public void forEachMatching(Boolean status, String text, Integer priority, Consumer<Todo> action) {
+        Map<String, Object> parameters = new HashMap<>();
+        TypedQuery<Todo> query = entityManager.createQuery("select t from Todo t" + where(conditions(status, text, priority, parameters)) + " order by t.id", Todo.class);
+        parameters.forEach(query::setParameter);
+        query.setHint(HibernateHints.HINT_FETCH_SIZE, batchSize);
+        query.setHint(HibernateHints.HINT_READ_ONLY, true);
+        try (Stream<Todo> todos = query.getResultStream()) {
+            todos.forEach(todo -> {
+                entityManager.detach(todo);
+                action.accept(todo);
+            });
+        }
+    }
+
+    /**
+     * Retrieves a todo by its ID.
+     * The todo is detached when the read transaction ends, so callers can change it freely before saving it again.
+     *
+     * @param id the ID of the todo
+     * @return an Optional containing the todo if found, or empty if not found
+     */
+    public Optional<Todo> findById(Long id) {
+        return Optional.ofNullable(entityManager.find(Todo.class, id));
+    }
+
+    /**
+     * Saves a todo.
+     *
+     * @param todo the todo to save
+     * @return the saved todo
+     */
+    @Transactional
+    public Todo save(Todo todo) {
+        store(todo);
+        incrementVersionAfterCommit();
+        return todo;
+    }
+
+    /**
+     * Saves many todos in one transaction, sending the inserts and updates in JDBC batches.
+     *
+     * @param todos the todos to save
+     * @return the saved todos
+     */
+    @Transactional
+    public List<Todo> saveAll(List<Todo> todos) {
+        for (int i = 0; i < todos.size(); i++) {
+            store(todos.get(i));
+            if ((i + 1) % batchSize == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        incrementVersionAfterCommit();
+        return todos;
+    }
+
+    /**
+     * Changes a stored todo in one transaction, reading it with a row lock held until the commit,
+     * so concurrent changes of the same todo wait for each other and changes of other todos do not.
+     *
+     * @param id the ID of the todo to change
+     * @param change changes the current todo in place, without changing its ID; if it throws, the transaction rolls back
+     * @return an Optional containing the saved todo, or empty if not found
+     */
+    @Transactional
+    public Optional<Todo> update(Long id, Consumer<Todo> change) {
+        Todo todo = entityManager.find(Todo.class, id, LockModeType.PESSIMISTIC_WRITE);
+        if (todo == null) {
+            return Optional.empty();
+        }
+        change.accept(todo);
+        incrementVersionAfterCommit();
+        return Optional.of(todo);
+    }
+
+    /**
+     * Deletes a todo by its ID, without loading it first.
+     *
+     * @param id the ID of the todo to delete
+     */
+    @Transactional
+    public void deleteById(Long id) {
+        int deleted = entityManager.createQuery("delete from Todo t where t.id = :id")
+                .setParameter("id", id)
+                .executeUpdate();
+        if (deleted > 0) {
+            incrementVersionAfterCommit();
+        }
+    }
+
+    /**
+     * Deletes many todos with a single statement.
+     *
+     * @param ids the IDs of the todos to delete
+     */
+    @Transactional
+    public void deleteAll(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        int deleted = entityManager.createQuery("delete from Todo t where t.id in :ids")
+                .setParameter("ids", ids)
+                .executeUpdate();
+        if (deleted > 0) {
+            incrementVersionAfterCommit();
+        }
+    }
+
+    /**
+     * Retrieves the modification version of the store.
+     *
+     * @return a number that grows after every committed save or deletion
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
+    /**
+     * Persists a copy of a new todo, so the caller's object never becomes managed, or merges an existing one.
+     *
+     * @param todo the todo to store
+     */
+    private void store(Todo todo) {
+        if (todo.getCreationDate() == null) {
+            todo.setCreationDate(LocalDateTime.now());
+        }
+        if (todo.getId() == null) {
+            Todo stored = new Todo(todo);
+            entityManager.persist(stored);
+            todo.setId(stored.getId());
+        } else {
+            entityManager.merge(todo);
+        }
+    }
+
+    /**
+     * Increments the version once the current transaction has committed, so a result read under
+     * the new version always includes the write.
+     */
+    private void incrementVersionAfterCommit() {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                version.incrementAndGet();
+            }
+        });
+    }
+
+    /**
+     * Retrieves a paginated list of todos with optional filters.
+     * The page and the total are each read with a single query.
+     *
+     * @param pageable the pagination information
+     * @param status the status filter (optional)
+     * @param text the text filter (optional)
+     * @param priority the priority filter (optional)
+     * @param sortBy the field to sort by
+     * @param directionPriority the sort direction for priority
+     * @param directionDueDate the sort direction for due date
+     * @return a map containing the paginated list of todos and additional metadata
+     */
+    public Map<String, Object> findByFilter(PageRequest pageable, Boolean status, String text, Integer priority, String sortBy, String directionPriority, String directionDueDate) {
+        Map<String, Object> parameters = new HashMap<>();
+        List<String> conditions = conditions(status, text, priority, parameters);
+        int total = count(conditions, parameters);
+
+        TypedQuery<Todo> query = entityManager.createQuery("select t from Todo t" + where(conditions)
+                + orderBy(terms(sortBy, directionPriority, directionDueDate), status, priority), Todo.class);
+        parameters.forEach(query::setParameter);
+        List<Todo> paginatedTodos = query.setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize())
+                .getResultList();
+
+        return Map.of(
+                "todosList", paginatedTodos,
+                "total", total
+        );
+    }
+
+    /**
+     * Retrieves the todos following a keyset cursor in a sort order.
+     * The cursor becomes a condition on the sort columns, so the database seeks to it through the
+     * sort order's index instead of skipping the rows before it.
+     *
+     * @param cursor the cursor returned with the previous page, or null or empty for the first page
+     * @param size the maximum number of todos to return
+     * @param status the status filter (optional)
+     * @param text the text filter (optional)
+     * @param priority the priority filter (optional)
+     * @param sortBy the field to sort by
+     * @param directionPriority the sort direction for priority
+     * @param directionDueDate the sort direction for due date
+     * @return a map containing the todos, the total and the cursor of the next page (null on the last page)
+     */
+    public Map<String, Object> findByCursor(String cursor, int size, Boolean status, String text, Integer priority, String sortBy, String directionPriority, String directionDueDate) {
+        List<Term> terms = terms(sortBy, directionPriority, directionDueDate);
+        if (terms.isEmpty()) {
+            throw new IllegalArgumentException("Cursor pagination needs a sort order: " + sortBy);
+        }
+        Map<String, Object> parameters = new HashMap<>();
+        List<String> conditions = conditions(status, text, priority, parameters);
+        int total = count(conditions, parameters);
+
+        List<String> pageConditions = new ArrayList<>(conditions);
+        if (cursor != null && !cursor.isEmpty()) {
+            SortedIndexes.Key after = TodoCursor.decode(cursor, sortBy, directionPriority, directionDueDate).key();
+            pageConditions.add(after(terms, cursorValues(sortBy, after), parameters));
+        }
+        TypedQuery<Todo> query = entityManager.createQuery("select t from Todo t" + where(pageConditions) + orderBy(terms, status, priority), Todo.class);
+        parameters.forEach(query::setParameter);
+        List<Todo> nextTodos = query.setMaxResults(size + 1).getResultList();
+
+        List<Todo> pageTodos = nextTodos.subList(0, Math.min(size, nextTodos.size()));
+        String nextCursor = null;
+        if (nextTodos.size() > size && !pageTodos.isEmpty()) {
+            Todo last = pageTodos.get(pageTodos.size() - 1);
+            nextCursor = new TodoCursor(sortBy, directionPriority, directionDueDate, SortedIndexes.keyOf(sortBy, last)).encode();
+        }
+        Map<String, Object> response = new HashMap<>();
+        response.put("todosList", new ArrayList<>(pageTodos));
+        response.put("total", total);
+        response.put("nextCursor", nextCursor);
+        return response;
+    }
+
+    /**
+     * Retrieves a snapshot of the todo metrics.
+     * The sums and counts per priority are aggregated by the database in one grouped query.
+     *
+     * @return the todo metrics, in minutes
+     */
+    public TodoMetrics getMetrics() {
+        List<Object[]> rows = entityManager.createQuery(
+                "select t.priority, sum(t.elapsedTime), count(t.elapsedTime) from Todo t where t.elapsedTime is not null group by t.priority",
+                Object[].class).getResultList();
+        long sum = 0;
+        long count = 0;
+        long[] sums = new long[PRIORITY_LEVELS];
+        long[] counts = new long[PRIORITY_LEVELS];
+        for (Object[] row : rows) {
+            int priority = (Integer) row[0];
+            long prioritySum = ((Number) row[1]).longValue();
+            long priorityCount = ((Number) row[2]).longValue();
+            sum += prioritySum;
+            count += priorityCount;
+            if (priority >= 0 && priority < PRIORITY_LEVELS) {
+                sums[priority] = prioritySum;
+                counts[priority] = priorityCount;
+            }
+        }
+        return new TodoMetrics(average(sum, count), average(sums[1], counts[1]), average(sums[2], counts[2]), average(sums[3], counts[3]));
+    }
+
+    /**
+     * Computes an average elapsed time in minutes.
+     *
+     * @param sum the sum of elapsed seconds
+     * @param count the number of completed todos
+     * @return the average in minutes, or 0 when there is nothing to average
+     */
+    private static double average(long sum, long count) {
+        return count == 0 ? 0L : ((double) sum / count) / 60;
+    }
+
+    /**
+     * Builds the conditions of the filters.
+     * The text filter is a case-insensitive substring match with the LIKE wildcards of the query escaped.
+     *
+     * @param status the status filter (optional)
+     * @param text the text filter (optional)
+     * @param priority the priority filter (optional)
+     * @param parameters receives the values of the query parameters
+     * @return the conditions, to be joined with AND
+     */
+    private static List<String> conditions(Boolean status, String text, Integer priority, Map<String, Object> parameters) {
+        List<String> conditions = new ArrayList<>();
+        if (status != null) {
+            conditions.add("t.status = :status");
+            parameters.put("status", status);
+        }
+        if (text != null && !text.isEmpty()) {
+            conditions.add("lower(t.text) like :text escape '\\'");
+            String query = TrigramIndex.normalize(text).replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+            parameters.put("text", "%" + query + "%");
+        }
+        if (priority != null) {
+            conditions.add("t.priority = :priority");
+            parameters.put("priority", priority);
+        }
+        return conditions;
+    }
+
+    private int count(List<String> conditions, Map<String, Object> parameters) {
+        TypedQuery<Long> query = entityManager.createQuery("select count(t) from Todo t" + where(conditions), Long.class);
+        parameters.forEach(query::setParameter);
+        return query.getSingleResult().intValue();
+    }
+
+    private static String where(List<String> conditions) {
+        return conditions.isEmpty() ? "" : " where " + String.join(" and ", conditions);
+    }
+
+    /**
+     * One column of a sort order. None of the sorted columns is nullable in the database.
+     *
+     * @param path the attribute path in the query
+     * @param ascending whether the column is sorted in ascending order
+     */
+    private record Term(String path, boolean ascending) {
+    }
+
+    /**
+     * Lists the columns of a sort order, matching {@link TodoSort}.
+     *
+     * @return the columns, or an empty list if the todos are not sorted
+     */
+    private static List<Term> terms(String sortBy, String directionPriority, String directionDueDate) {
+        boolean priorityAscending = Objects.equals(directionPriority, "ASC");
+        boolean dueDateAscending = Objects.equals(directionDueDate, "ASC");
+        return switch (sortBy) {
+            case "priority" -> List.of(new Term("t.priority", priorityAscending), new Term("t.dueDate", true), new Term("t.id", true));
+            case "dueDate" -> List.of(new Term("t.dueDate", dueDateAscending), new Term("t.id", dueDateAscending));
+            case "priorityDueDate" -> List.of(new Term("t.priority", priorityAscending),
+                    new Term("t.dueDate", dueDateAscending), new Term("t.id", dueDateAscending));
+            case "creationDate" -> List.of(new Term("t.creationDate", priorityAscending), new Term("t.id", priorityAscending));
+            default -> List.of();
+        };
+    }
+
+    /**
+     * Builds the ORDER BY clause of a sort order.
+     * Columns filtered on a single value lead the clause: it orders the same rows, but it now starts
+     * with the columns of the matching index, so the database reads the page from that index instead
+     * of sorting every match.
+     *
+     * @param terms the columns of the sort order
+     * @param status the status filter (optional)
+     * @param priority the priority filter (optional)
+     * @return the ORDER BY clause
+     */
+    private static String orderBy(List<Term> terms, Boolean status, Integer priority) {
+        List<String> columns = new ArrayList<>();
+        if (status != null) {
+            columns.add("t.status");
+        }
+        if (priority != null) {
+            columns.add("t.priority");
+        }
+        for (Term term : terms) {
+            if (!columns.contains(term.path())) {
+                columns.add(term.path() + (term.ascending() ? " asc" : " desc"));
+            }
+        }
+        if (terms.isEmpty()) {
+            columns.add("t.id");
+        }
+        return " order by " + String.join(", ", columns);
+    }
+
+    /**
+     * Decodes the sort column values of the last todo of the previous page from its index key.
+     */
+    private static List<Object> cursorValues(String sortBy, SortedIndexes.Key key) {
+        return switch (sortBy) {
+            case "dueDate" -> List.of(LocalDate.ofEpochDay(key.a()), key.id());
+            case "creationDate" -> List.of(LocalDateTime.ofEpochSecond(key.a(), (int) key.b(), ZoneOffset.UTC), key.id());
+            default -> List.of((int) key.a(), LocalDate.ofEpochDay(key.b()), key.id());
+        };
+    }
+
+    /**
+     * Builds the condition selecting the rows that come strictly after the given column values in a sort order:
+     * the rows equal on the first {@code i} columns and after the values on column {@code i}, for any {@code i}.
+     *
+     * @param terms the columns of the sort order
+     * @param values the column values of the last todo of the previous page
+     * @param parameters receives the values of the query parameters
+     * @return the condition
+     */
+    private static String after(List<Term> terms, List<Object> values, Map<String, Object> parameters) {
+        StringJoiner alternatives = new StringJoiner(" or ", "(", ")");
+        for (int i = 0; i < terms.size(); i++) {
+            Term term = terms.get(i);
+            String after = term.path() + (term.ascending() ? " > :" : " < :") + parameter(parameters, values.get(i));
+            StringJoiner conjunction = new StringJoiner(" and ", "(", ")");
+            for (int j = 0; j < i; j++) {
+                conjunction.add(terms.get(j).path() + " = :" + parameter(parameters, values.get(j)));
+            }
+            conjunction.add(after);
+            alternatives.add(conjunction.toString());
+        }
+        return alternatives.toString();
+    }
+
+    private static String parameter(Map<String, Object> parameters, Object value) {
+        String name = "k" + parameters.size();
+        parameters.put(name, value);
+        return name;
+    }
+}
@@ -0,0 +1,423 @@
+package com.quarkbs.ToDoListApp.repository;
+
+import com.quarkbs.ToDoListApp.entity.Todo;
+import com.quarkbs.ToDoListApp.entity.TodoMetrics;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Repository;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+/**
+ * Sharded in-memory implementation of the TodoRepository interface, selected by {@code todo.repository.backend=sharded}.
+ * <p>
+ * Todos are partitioned by ID across {@code todo.repository.shards} in-memory repositories (by default one per
+ * processor), each with its own store, indexes, counters and locks, so writers to different shards never
+ * contend. IDs are handed out here, so consecutive todos land on consecutive shards.
+ * <p>
+ * Reads by ID and writes go to one shard. Queries fan out to every shard in parallel, the calling thread
+ * taking one shard itself: {@link #findByFilter} asks each shard for its first {@code offset + size} todos
+ * and merges these sorted runs, cursors resume in every shard from the same sort key, and the metrics add up
+ * the sums and counts of each shard before averaging. This backend keeps no write-ahead log or snapshots.
+ */
+@Repository
+@ConditionalOnProperty(name = "todo.repository.backend", havingValue = "sharded")
+public class ShardedTodoRepository implements TodoRepository, MeterBinder {
+    @Value("${todo.repository.shards:0}")
+    private int shardCount;
+
+    private final AtomicLong nextId = new AtomicLong(1);
+
+    private TodoRepositoryImpl[] shards;
+
+    /**
+     * Runs the shards the calling thread does not take, or null with a single shard.
+     */
+    private ExecutorService fanOutExecutor;
+
+    public ShardedTodoRepository() {
+    }
+
+    /**
+     * Creates a repository with a number of shards, ready to use.
+     *
+     * @param shardCount the number of shards, or 0 for one per processor
+     */
+    public ShardedTodoRepository(int shardCount) {
+        this.shardCount = shardCount;
+        start();
+    }
+
+    /**
+     * Creates the shards and the fan-out threads.
+     */
+    @PostConstruct
+    public void start() {
+        int count = shardCount > 0 ? shardCount : Runtime.getRuntime().availableProcessors();
+        shards = new TodoRepositoryImpl[count];
+        for (int i = 0; i < count; i++) {
+            shards[i] = new TodoRepositoryImpl();
+        }
+        if (count > 1) {
+            AtomicInteger threads = new AtomicInteger();
+            fanOutExecutor = Executors.newFixedThreadPool(count - 1, runnable -> {
+                Thread thread = new Thread(runnable, "todo-shard-" + threads.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Stops the fan-out threads.
+     */
+    @PreDestroy
+    public void close() {
+        if (fanOutExecutor != null) {
+            fanOutExecutor.shutdown();
+        }
+    }
+
+    /**
+     * Retrieves all todos.
+     *
+     * @return a list of all todos, shard by shard
+     */
+    public List<Todo> findAll() {
+        List<Todo> all = new ArrayList<>();
+        for (List<Todo> todos : fanOut(shard -> shards[shard].findAll())) {
+            all.addAll(todos);
+        }
+        return all;
+    }
+
+    /**
+     * Passes every todo matching the filters to an action, one shard after the other, so the action
+     * is never called concurrently.
+     *
+     * @param status the status filter (optional)
+     * @param text the text filter (optional)
+     * @param priority the priority filter (optional)
+     * @param action receives each matching todo
+     */
+    public void forEachMatching(Boolean status, String text, Integer priority, Consumer<Todo> action) {
+        for (TodoRepositoryImpl shard : shards) {
+            shard.forEachMatching(status, text, priority, action);
+        }
+    }
+
+    /**
+     * Retrieves a todo by its ID from its shard.
+     *
+     * @param id the ID of the todo
+     * @return an Optional containing the todo if found, or empty if not found
+     */
+    public Optional<Todo> findById(Long id) {
+        return shardOf(id).findById(id);
+    }
+
+    /**
+     * Saves a todo to its shard, assigning an ID first to a new todo.
+     *
+     * @param todo the todo to save
+     * @return the saved todo
+     */
+    public Todo save(Todo todo) {
+        return shardOf(assignId(todo)).save(todo);
+    }
+
+    /**
+     * Saves many todos, each shard storing its part of the batch in parallel.
+     *
+     * @param todos the todos to save
+     * @return the saved todos
+     */
+    public List<Todo> saveAll(List<Todo> todos) {
+        List<List<Todo>> parts = partition(todos, this::assignId);
+        fanOut(shard -> {
+            List<Todo> part = parts.get(shard);
+            return part.isEmpty() ? part : shards[shard].saveAll(part);
+        });
+        return todos;
+    }
+
+    /**
+     * Changes a stored todo in its shard, holding up no write to the other todos.
+     *
+     * @param id the ID of the todo to change
+     * @param change changes the current todo in place, without changing its ID; if it throws, the todo stays as it was
+     * @return an Optional containing the saved todo, or empty if not found
+     */
+    public Optional<Todo> update(Long id, Consumer<Todo> change) {
+        return shardOf(id).update(id, change);
+    }
+
+    /**
+     * Deletes a todo by its ID from its shard.
+     *
+     * @param id the ID of the todo to delete
+     */
+    public void deleteById(Long id) {
+        shardOf(id).deleteById(id);
+    }
+
+    /**
+     * Deletes many todos, each shard deleting its part of the batch in parallel.
+     *
+     * @param ids the IDs of the todos to delete
+     */
+    public void deleteAll(Collection<Long> ids) {
+        List<List<Long>> parts = partition(ids, Function.identity());
+        fanOut(shard -> {
+            List<Long> part = parts.get(shard);
+            if (!part.isEmpty()) {
+                shards[shard].deleteAll(part);
+            }
+            return part;
+        });
+    }
+
+    /**
+     * Retrieves the modification version of the store, the sum of the versions of the shards.
+     *
+     * @return a number that grows after every save or deletion
+     */
+    public long getVersion() {
+        long version = 0;
+        for (TodoRepositoryImpl shard : shards) {
+            version += shard.getVersion();
+        }
+        return version;
+    }
+
+    /**
+     * Retrieves a paginated list of todos with optional filters.
+     * Every shard returns its first {@code offset + size} matches in the sort order and the page is cut
+     * from the merge of these runs; the total is the sum of the shard totals.
+     *
+     * @param pageable the pagination information
+     * @param status the status filter (optional)
+     * @param text the text filter (optional)
+     * @param priority the priority filter (optional)
+     * @param sortBy the field to sort by
+     * @param directionPriority the sort direction for priority
+     * @param directionDueDate the sort direction for due date
+     * @return a map containing the paginated list of todos and additional metadata
+     */
+    public Map<String, Object> findByFilter(PageRequest pageable, Boolean status, String text, Integer priority, String sortBy, String directionPriority, String directionDueDate) {
+        int end = (int) Math.min(pageable.getOffset() + pageable.getPageSize(), Integer.MAX_VALUE);
+        PageRequest head = PageRequest.of(0, end);
+        List<Map<String, Object>> results = fanOut(shard -> shards[shard].findByFilter(head, status, text, priority, sortBy, directionPriority, directionDueDate));
+
+        int total = 0;
+        for (Map<String, Object> result : results) {
+            total += (int) result.get("total");
+        }
+        List<Todo> merged = merge(results, TodoSort.comparator(sortBy, directionPriority, directionDueDate), end);
+        int start = (int) Math.min(pageable.getOffset(), merged.size());
+        return Map.of(
+                "todosList", List.copyOf(merged.subList(start, merged.size())),
+                "total", total
+        );
+    }
+
+    /**
+     * Retrieves the todos following a keyset cursor in a sort order.
+     * Cursors hold a sort key, not a position, so every shard resumes from the same cursor and the
+     * page is cut from the merge of the shard pages.
+     *
+     * @param cursor the cursor returned with the previous page, or null or empty for the first page
+     * @param size the maximum number of todos to return
+     * @param status the status filter (optional)
+     * @param text the text filter (optional)
+     * @param priority the priority filter (optional)
+     * @param sortBy the field to sort by
+     * @param directionPriority the sort direction for priority
+     * @param directionDueDate the sort direction for due date
+     * @return a map containing the todos, the total and the cursor of the next page (null on the last page)
+     */
+    public Map<String, Object> findByCursor(String cursor, int size, Boolean status, String text, Integer priority, String sortBy, String directionPriority, String directionDueDate) {
+        List<Map<String, Object>> results = fanOut(shard -> shards[shard].findByCursor(cursor, size, status, text, priority, sortBy, directionPriority, directionDueDate));
+
+        int total = 0;
+        boolean more = false;
+        for (Map<String, Object> result : results) {
+            total += (int) result.get("total");
+            more |= result.get("nextCursor") != null;
+        }
+        List<Todo> merged = merge(results, TodoSort.comparator(sortBy, directionPriority, directionDueDate), size + 1);
+        List<Todo> pageTodos = merged.subList(0, Math.min(size, merged.size()));
+        String nextCursor = null;
+        if ((more || merged.size() > size) && !pageTodos.isEmpty()) {
+            Todo last = pageTodos.get(pageTodos.size() - 1);
+            nextCursor = new TodoCursor(sortBy, directionPriority, directionDueDate, SortedIndexes.keyOf(sortBy, last)).encode();
+        }
+        Map<String, Object> response = new HashMap<>();
+        response.put("todosList", List.copyOf(pageTodos));
+        response.put("total", total);
+        response.put("nextCursor", nextCursor);
+        return response;
+    }
+
+    /**
+     * Retrieves a snapshot of the todo metrics from the elapsed time sums and counts of every shard.
+     *
+     * @return the todo metrics, in minutes
+     */
+    public TodoMetrics getMetrics() {
+        TodoRepositoryImpl.ElapsedTotals totals = TodoRepositoryImpl.ElapsedTotals.NONE;
+        for (TodoRepositoryImpl shard : shards) {
+            totals = totals.plus(shard.elapsedTotals());
+        }
+        return totals.toMetrics();
+    }
+
+    /**
+     * Registers the number of stored todos and the number of shards.
+     *
+     * @param registry the meter registry
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("todo.store.size", this, ShardedTodoRepository::size)
+                .description("Number of stored todos")
+                .register(registry);
+        Gauge.builder("todo.store.shards", shards, array -> array.length)
+                .description("Number of shards of the store")
+                .register(registry);
+    }
+
+    private int size() {
+        int size = 0;
+        for (TodoRepositoryImpl shard : shards) {
+            size += shard.size();
+        }
+        return size;
+    }
+
+    private Long assignId(Todo todo) {
+        if (todo.getId() == null) {
+            todo.setId(nextId.getAndIncrement());
+        } else {
+            nextId.accumulateAndGet(todo.getId() + 1, Math::max);
+        }
+        return todo.getId();
+    }
+
+    private TodoRepositoryImpl shardOf(long id) {
+        return shards[shardIndex(id)];
+    }
+
+    private int shardIndex(long id) {
+        return (int) Math.floorMod(id, (long) shards.length);
+    }
+
+    /**
+     * Splits elements by the shard of their ID, keeping their order within each shard.
+     *
+     * @param elements the todos or IDs to split
+     * @param idOf gives the ID of an element
+     * @return one list per shard
+     */
+    private <T> List<List<T>> partition(Collection<T> elements, Function<T, Long> idOf) {
+        List<List<T>> parts = new ArrayList<>(shards.length);
+        for (int i = 0; i < shards.length; i++) {
+            parts.add(new ArrayList<>(elements.size() / shards.length + 1));
+        }
+        for (T element : elements) {
+            parts.get(shardIndex(idOf.apply(element))).add(element);
+        }
+        return parts;
+    }
+
+    /**
+     * Runs an operation on every shard, the other shards on the fan-out threads while the calling
+     * thread runs the first one.
+     *
+     * @param operation the operation to run, given the index of a shard
+     * @return the results, in shard order
+     */
+    private <T> List<T> fanOut(IntFunction<T> operation) {
+        if (fanOutExecutor == null) {
+            return List.of(operation.apply(0));
+        }
+        List<CompletableFuture<T>> others = new ArrayList<>(shards.length - 1);
+        for (int i = 1; i < shards.length; i++) {
+            int shard = i;
+            others.add(CompletableFuture.supplyAsync(() -> operation.apply(shard), fanOutExecutor));
+        }
+        List<T> results = new ArrayList<>(shards.length);
+        results.add(operation.apply(0));
+        try {
+            for (CompletableFuture<T> other : others) {
+                results.add(other.join());
+            }
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+        return results;
+    }
+
+    /**
+     * Merges the sorted todo lists of the shard results into the first todos of the sort order.
+     *
+     * @param results the shard results, each holding its todos under {@code todosList}
+     * @param comparator the sort order, or null to concatenate the lists in shard order
+     * @param limit the number of todos to keep
+     * @return the first {@code limit} todos
+     */
+    @SuppressWarnings("unchecked")
+    private static List<Todo> merge(List<Map<String, Object>> results, Comparator<Todo> comparator, int limit) {
+        List<List<Todo>> runs = new ArrayList<>(results.size());
+        for (Map<String, Object> result : results) {
+            runs.add((List<Todo>) result.get("todosList"));
+        }
+        List<Todo> merged = new ArrayList<>();
+        if (comparator == null) {
+            for (List<Todo> run : runs) {
+                for (Todo todo : run) {
+                    if (merged.size() == limit) {
+                        return merged;
+                    }
+                    merged.add(todo);
+                }
+            }
+            return merged;
+        }
+        // Heap of run indexes ordered by the next todo of each run
+        int[] positions = new int[runs.size()];
+        PriorityQueue<Integer> heads = new PriorityQueue<>(Math.max(runs.size(), 1),
+                (a, b) -> comparator.compare(runs.get(a).get(positions[a]), runs.get(b).get(positions[b])));
+        for (int run = 0; run < runs.size(); run++) {
+            if (!runs.get(run).isEmpty()) {
+                heads.add(run);
+            }
+        }
+        while (merged.size() < limit && !heads.isEmpty()) {
+            int run = heads.poll();
+            merged.add(runs.get(run).get(positions[run]++));
+            if (positions[run] < runs.get(run).size()) {
+                heads.add(run);
+            }
+        }
+        return merged;
+    }
+}
@@ -0,0 +1,276 @@
+package com.quarkbs.ToDoListApp.repository;
+
+import com.quarkbs.ToDoListApp.entity.Todo;
+
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Function;
+import java.util.function.LongFunction;
+import java.util.stream.Stream;
+
+/**
+ * Skip-list indexes that keep todos in the orders of {@link TodoSort}, so a sorted page can be
+ * read by walking an index forward or backward instead of sorting the matches.
+ * <ul>
+ *     <li>due date: (due date, ID)</li>
+ *     <li>creation date: (creation date, ID)</li>
+ *     <li>priority: (priority, due date, ID)</li>
+ * </ul>
+ * Entries are only keys; a walk resolves each ID to the stored todo and drops entries that no
+ * longer match it, which hides the short moment during an update when both the old and the new
+ * key are present. Walks are only weakly consistent: a todo that moves while a walk runs can be
+ * passed over or met twice, so callers check that no todo moved during the walk.
+ */
+final class SortedIndexes {
+    private final NavigableSet<Key> byDueDate = new ConcurrentSkipListSet<>();
+    private final NavigableSet<Key> byCreationDate = new ConcurrentSkipListSet<>();
+    private final NavigableSet<Key> byPriority = new ConcurrentSkipListSet<>();
+
+    /**
+     * Adds the new positions of a todo to every index.
+     * Called before the map holds the new version; the keys of the previous version stay in place
+     * until {@link #retire} runs, so the indexes hold a key matching the stored version at all times.
+     *
+     * @param previous the stored version being replaced, or null for a new todo
+     * @param current the version being stored, or null when the todo is deleted
+     */
+    void add(CompactTodo previous, CompactTodo current) {
+        add(byDueDate, dueDateKey(previous), dueDateKey(current));
+        add(byCreationDate, creationDateKey(previous), creationDateKey(current));
+        add(byPriority, priorityKey(previous), priorityKey(current));
+    }
+
+    /**
+     * Tells whether replacing a todo moves it in any index, so that old keys are left to {@link #retire}.
+     *
+     * @param previous the stored version being replaced
+     * @param current the version being stored, or null when the todo is deleted
+     * @return true if a key of the previous version differs from the one of the current version
+     */
+    boolean moves(CompactTodo previous, CompactTodo current) {
+        return !Objects.equals(dueDateKey(previous), dueDateKey(current))
+                || !Objects.equals(creationDateKey(previous), creationDateKey(current))
+                || !Objects.equals(priorityKey(previous), priorityKey(current));
+    }
+
+    /**
+     * Removes the positions of a replaced version that the stored version no longer has.
+     * Called once the map holds the stored version, under the lock of the todo's ID, so a key
+     * that a later write has added back is kept.
+     *
+     * @param previous the replaced version
+     * @param stored the version the map holds now, or null when the todo is deleted
+     */
+    void retire(CompactTodo previous, CompactTodo stored) {
+        retire(byDueDate, dueDateKey(previous), dueDateKey(stored));
+        retire(byCreationDate, creationDateKey(previous), creationDateKey(stored));
+        retire(byPriority, priorityKey(previous), priorityKey(stored));
+    }
+
+    /**
+     * Fills the empty indexes with many todos at once.
+     * The keys of each index are sorted first and inserted in ascending order, so every insertion
+     * follows the same path down the skip list instead of landing at a random position.
+     *
+     * @param todos the todos to index
+     */
+    void load(Collection<CompactTodo> todos) {
+        load(byDueDate, todos, SortedIndexes::dueDateKey);
+        load(byCreationDate, todos, SortedIndexes::creationDateKey);
+        load(byPriority, todos, SortedIndexes::priorityKey);
+    }
+
+    private static void load(NavigableSet<Key> index, Collection<CompactTodo> todos, Function<CompactTodo, Key> keyOf) {
+        Key[] keys = todos.stream().map(keyOf).toArray(Key[]::new);
+        Arrays.sort(keys);
+        index.addAll(Arrays.asList(keys));
+    }
+
+    /**
+     * Lazily walks the todos in a sort order.
+     *
+     * @param sortBy the field to sort by
+     * @param directionPriority the sort direction for priority
+     * @param directionDueDate the sort direction for due date
+     * @param priority when given, only todos with this priority are walked
+     * @param after when given, the walk starts right after this key
+     * @param lookup resolves a todo ID to the stored todo
+     * @return the todos in order, or null if the sort order has no index
+     */
+    Stream<CompactTodo> walk(String sortBy, String directionPriority, String directionDueDate, Integer priority, Key after, LongFunction<CompactTodo> lookup) {
+        return switch (sortBy) {
+            case "dueDate" -> resolve(ordered(byDueDate, directionDueDate, after), lookup, SortedIndexes::dueDateKey);
+            case "creationDate" -> resolve(ordered(byCreationDate, directionPriority, after), lookup, SortedIndexes::creationDateKey);
+            case "priority" -> walkByPriority(directionPriority, "ASC", priority, after, lookup);
+            case "priorityDueDate" -> walkByPriority(directionPriority, directionDueDate, priority, after, lookup);
+            default -> null;
+        };
+    }
+
+    /**
+     * Walks the priority index one priority at a time, so priority and due date can run in different directions.
+     */
+    private Stream<CompactTodo> walkByPriority(String directionPriority, String directionDueDate, Integer priority, Key after, LongFunction<CompactTodo> lookup) {
+        boolean ascending = Objects.equals(directionPriority, "ASC");
+        List<Integer> priorities = priority != null ? List.of(priority) : priorities(ascending);
+        return priorities.stream()
+                .filter(p -> after == null || (ascending ? p >= after.a() : p <= after.a()))
+                .flatMap(p -> resolve(ordered(byPriority.subSet(Key.lowest(p), true, Key.highest(p), true), directionDueDate,
+                        after != null && after.a() == p ? after : null), lookup, SortedIndexes::priorityKey));
+    }
+
+    /**
+     * Lists the distinct priorities present in the priority index by jumping from one to the next.
+     */
+    private List<Integer> priorities(boolean ascending) {
+        List<Integer> priorities = new ArrayList<>();
+        Key key = ascending ? first(byPriority) : last(byPriority);
+        while (key != null) {
+            int p = (int) key.a();
+            priorities.add(p);
+            key = ascending ? byPriority.higher(Key.highest(p)) : byPriority.lower(Key.lowest(p));
+        }
+        return priorities;
+    }
+
+    /**
+     * Computes the key of a todo in the index backing a sort order.
+     *
+     * @param sortBy the field to sort by
+     * @param todo the todo
+     * @return the key, or null if the sort order has no index
+     */
+    static Key keyOf(String sortBy, CompactTodo todo) {
+        return switch (sortBy) {
+            case "dueDate" -> dueDateKey(todo);
+            case "creationDate" -> creationDateKey(todo);
+            case "priority", "priorityDueDate" -> priorityKey(todo);
+            default -> null;
+        };
+    }
+
+    /**
+     * Computes the key of a todo in a sort order, as {@link #keyOf(String, CompactTodo)} does for a stored todo.
+     *
+     * @param sortBy the field to sort by
+     * @param todo the todo
+     * @return the key, or null if the sort order has no index
+     */
+    static Key keyOf(String sortBy, Todo todo) {
+        long dueDay = todo.getDueDate() == null ? Long.MAX_VALUE : todo.getDueDate().toEpochDay();
+        return switch (sortBy) {
+            case "dueDate" -> new Key(dueDay, 0, 0, todo.getId());
+            case "creationDate" -> new Key(todo.getCreationDate().toEpochSecond(ZoneOffset.UTC), todo.getCreationDate().getNano(), 0, todo.getId());
+            case "priority", "priorityDueDate" -> new Key(todo.getPriority(), dueDay, 0, todo.getId());
+            default -> null;
+        };
+    }
+
+    /**
+     * Tells whether a key comes strictly after another one in a sort order.
+     *
+     * @param sortBy the field to sort by
+     * @param directionPriority the sort direction for priority
+     * @param directionDueDate the sort direction for due date
+     * @param key the key to test
+     * @param after the reference key
+     * @return true if {@code key} is walked after {@code after}
+     */
+    static boolean isAfter(String sortBy, String directionPriority, String directionDueDate, Key key, Key after) {
+        return switch (sortBy) {
+            case "dueDate" -> sign(directionDueDate) * key.compareTo(after) > 0;
+            case "creationDate" -> sign(directionPriority) * key.compareTo(after) > 0;
+            case "priority", "priorityDueDate" -> key.a() != after.a()
+                    ? sign(directionPriority) * Long.compare(key.a(), after.a()) > 0
+                    : sign(sortBy.equals("priority") ? "ASC" : directionDueDate) * key.compareTo(after) > 0;
+            default -> false;
+        };
+    }
+
+    private static int sign(String direction) {
+        return Objects.equals(direction, "ASC") ? 1 : -1;
+    }
+
+    private static Stream<Key> ordered(NavigableSet<Key> index, String direction, Key after) {
+        boolean ascending = Objects.equals(direction, "ASC");
+        NavigableSet<Key> remaining = after == null ? index : ascending ? index.tailSet(after, false) : index.headSet(after, false);
+        return ascending ? remaining.stream() : remaining.descendingSet().stream();
+    }
+
+    private static Stream<CompactTodo> resolve(Stream<Key> keys, LongFunction<CompactTodo> lookup, Function<CompactTodo, Key> keyOf) {
+        return keys.map(key -> {
+            CompactTodo todo = lookup.apply(key.id());
+            return todo != null && key.equals(keyOf.apply(todo)) ? todo : null;
+        }).filter(Objects::nonNull);
+    }
+
+    private static void add(NavigableSet<Key> index, Key previous, Key current) {
+        if (current != null && !current.equals(previous)) {
+            index.add(current);
+        }
+    }
+
+    private static void retire(NavigableSet<Key> index, Key previous, Key stored) {
+        if (previous != null && !previous.equals(stored)) {
+            index.remove(previous);
+        }
+    }
+
+    private static Key first(NavigableSet<Key> index) {
+        return index.isEmpty() ? null : index.ceiling(Key.lowest(Long.MIN_VALUE));
+    }
+
+    private static Key last(NavigableSet<Key> index) {
+        return index.isEmpty() ? null : index.floor(Key.highest(Long.MAX_VALUE));
+    }
+
+    private static Key dueDateKey(CompactTodo todo) {
+        return todo == null ? null : new Key(dueDay(todo), 0, 0, todo.id());
+    }
+
+    private static Key creationDateKey(CompactTodo todo) {
+        return todo == null ? null : new Key(todo.creationSecond(), todo.creationNano(), 0, todo.id());
+    }
+
+    private static Key priorityKey(CompactTodo todo) {
+        return todo == null ? null : new Key(todo.priority(), dueDay(todo), 0, todo.id());
+    }
+
+    /**
+     * Encodes the due date so that todos without one sort last, like in {@link TodoSort}.
+     */
+    private static long dueDay(CompactTodo todo) {
+        return todo.dueDay() == CompactTodo.NO_DUE_DATE ? Long.MAX_VALUE : todo.dueDay();
+    }
+
+    /**
+     * Index key compared field by field, ending with the todo ID.
+     */
+    record Key(long a, long b, long c, long id) implements Comparable<Key> {
+        static Key lowest(long a) {
+            return new Key(a, Long.MIN_VALUE, Long.MIN_VALUE, Long.MIN_VALUE);
+        }
+
+        static Key highest(long a) {
+            return new Key(a, Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE);
+        }
+
+        @Override
+        public int compareTo(Key other) {
+            int result = Long.compare(a, other.a);
+            if (result == 0) {
+                result = Long.compare(b, other.b);
+            }
+            if (result == 0) {
+                result = Long.compare(c, other.c);
+            }
+            return result == 0 ? Long.compare(id, other.id) : result;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.quarkbs.ToDoListApp.repository;
+
+import com.quarkbs.ToDoListApp.entity.Todo;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Fixed binary layout of a todo, shared by the write-ahead log and the snapshots.
+ * <pre>
+ * long   id
+ * byte   status               0 = false, 1 = true, 2 = null
+ * int    priority
+ * long   due date             epoch day, Long.MIN_VALUE = null
+ * long   creation date        epoch second (UTC), Long.MIN_VALUE = null
+ * int    creation date        nanosecond of second
+ * long   done date            epoch second (UTC), Long.MIN_VALUE = null
+ * int    done date            nanosecond of second
+ * long   elapsed time         seconds, Long.MIN_VALUE = null
+ * int    text length          bytes, -1 = null
+ * byte[] text                 UTF-8
+ * </pre>
+ */
+final class TodoBinaryFormat {
+    private static final int FIXED_SIZE = 8 + 1 + 4 + 8 + 12 + 12 + 8 + 4;
+    private static final long NULL = Long.MIN_VALUE;
+
+    private TodoBinaryFormat() {
+    }
+
+    /**
+     * Encodes the text of a todo, which has to be known before the record size can be computed.
+     *
+     * @param todo the todo
+     * @return the UTF-8 text, or null if the todo has no text
+     */
+    static byte[] text(Todo todo) {
+        return todo.getText() == null ? null : todo.getText().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Computes the encoded size of a todo.
+     *
+     * @param text the encoded text of the todo
+     * @return the size in bytes
+     */
+    static int size(byte[] text) {
+        return FIXED_SIZE + (text == null ? 0 : text.length);
+    }
+
+    /**
+     * Writes a todo at the buffer's position.
+     *
+     * @param buffer the buffer to write to
+     * @param todo the todo
+     * @param text the encoded text of the todo
+     */
+    static void write(ByteBuffer buffer, Todo todo, byte[] text) {
+        buffer.putLong(todo.getId());
+        buffer.put(todo.getStatus() == null ? (byte) 2 : todo.getStatus() ? (byte) 1 : (byte) 0);
+        buffer.putInt(todo.getPriority());
+        buffer.putLong(todo.getDueDate() == null ? NULL : todo.getDueDate().toEpochDay());
+        putDateTime(buffer, todo.getCreationDate());
+        putDateTime(buffer, todo.getDoneDate());
+        buffer.putLong(todo.getElapsedTime() == null ? NULL : todo.getElapsedTime());
+        if (text == null) {
+            buffer.putInt(-1);
+        } else {
+            buffer.putInt(text.length);
+            buffer.put(text);
+        }
+    }
+
+    /**
+     * Reads a todo at the buffer's position.
+     *
+     * @param buffer the buffer to read from
+     * @return the decoded todo
+     */
+    static Todo read(ByteBuffer buffer) {
+        Todo todo = new Todo();
+        todo.setId(buffer.getLong());
+        byte status = buffer.get();
+        todo.setStatus(status == 2 ? null : status == 1);
+        todo.setPriority(buffer.getInt());
+        long dueDate = buffer.getLong();
+        todo.setDueDate(dueDate == NULL ? null : LocalDate.ofEpochDay(dueDate));
+        todo.setCreationDate(getDateTime(buffer));
+        todo.setDoneDate(getDateTime(buffer));
+        long elapsedTime = buffer.getLong();
+        todo.setElapsedTime(elapsedTime == NULL ? null : elapsedTime);
+        int textLength = buffer.getInt();
+        if (textLength >= 0) {
+            byte[] text = new byte[textLength];
+            buffer.get(text);
+            todo.setText(new String(text, StandardCharsets.UTF_8));
+        }
+        return todo;
+    }
+
+    /**
+     * Reads a todo at the buffer's position straight into the form the in-memory backend stores.
+     *
+     * @param buffer the buffer to read from
+     * @return the decoded todo
+     * @throws IllegalArgumentException if the priority or the due date cannot be stored
+     */
+    static CompactTodo readCompact(ByteBuffer buffer) {
+        long id = buffer.getLong();
+        byte status = buffer.get();
+        int priority = buffer.getInt();
+        long dueDate = buffer.getLong();
+        long creationSecond = buffer.getLong();
+        int creationNano = buffer.getInt();
+        long doneSecond = buffer.getLong();
+        int doneNano = buffer.getInt();
+        long elapsedTime = buffer.getLong();
+        int textLength = buffer.getInt();
+        String text = null;
+        if (textLength >= 0) {
+            byte[] bytes = new byte[textLength];
+            buffer.get(bytes);
+            text = new String(bytes, StandardCharsets.UTF_8);
+        }
+        // The null marker of the seconds and the elapsed time is the one CompactTodo uses
+        return CompactTodo.of(id, text, status == 2 ? null : status == 1, priority,
+                dueDate == NULL ? CompactTodo.NO_DUE_DATE : CompactTodo.encodeDueDay(dueDate),
+                creationSecond, creationNano, doneSecond, doneNano, elapsedTime);
+    }
+
+    private static void putDateTime(ByteBuffer buffer, LocalDateTime dateTime) {
+        buffer.putLong(dateTime == null ? NULL : dateTime.toEpochSecond(ZoneOffset.UTC));
+        buffer.putInt(dateTime == null ? 0 : dateTime.getNano());
+    }
+
+    private static LocalDateTime getDateTime(ByteBuffer buffer) {
+        long epochSecond = buffer.getLong();
+        int nano = buffer.getInt();
+        return epochSecond == NULL ? null : LocalDateTime.ofEpochSecond(epochSecond, nano, ZoneOffset.UTC);
+    }
+}
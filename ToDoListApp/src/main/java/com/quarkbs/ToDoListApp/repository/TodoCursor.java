@@ -0,0 +1,63 @@
+package com.quarkbs.ToDoListApp.repository;
+
+import com.quarkbs.ToDoListApp.exception.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque keyset pagination cursor: the sort order of the listing and the sort key of the last todo returned.
+ * It is encoded as URL-safe Base64 so clients treat it as an opaque token.
+ *
+ * @param sortBy the field the listing is sorted by
+ * @param directionPriority the sort direction for priority
+ * @param directionDueDate the sort direction for due date
+ * @param key the sort key of the last todo returned
+ */
+record TodoCursor(String sortBy, String directionPriority, String directionDueDate, SortedIndexes.Key key) {
+    private static final String VERSION = "v1";
+    private static final String SEPARATOR = "|";
+
+    /**
+     * Encodes the cursor.
+     *
+     * @return the opaque cursor token
+     */
+    String encode() {
+        String raw = String.join(SEPARATOR, VERSION, sortBy, directionPriority, directionDueDate,
+                Long.toString(key.a()), Long.toString(key.b()), Long.toString(key.c()), Long.toString(key.id()));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a cursor and checks that it was issued for the requested sort order.
+     *
+     * @param token the opaque cursor token
+     * @param sortBy the field the listing is sorted by
+     * @param directionPriority the sort direction for priority
+     * @param directionDueDate the sort direction for due date
+     * @return the decoded cursor
+     * @throws InvalidCursorException if the token is malformed or was issued for another sort order
+     */
+    static TodoCursor decode(String token, String sortBy, String directionPriority, String directionDueDate) {
+        String[] parts;
+        try {
+            parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split("\\" + SEPARATOR, -1);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException("Malformed cursor");
+        }
+        if (parts.length != 8 || !VERSION.equals(parts[0])) {
+            throw new InvalidCursorException("Malformed cursor");
+        }
+        if (!parts[1].equals(sortBy) || !parts[2].equals(directionPriority) || !parts[3].equals(directionDueDate)) {
+            throw new InvalidCursorException("Cursor was issued for a different sort order");
+        }
+        try {
+            SortedIndexes.Key key = new SortedIndexes.Key(Long.parseLong(parts[4]), Long.parseLong(parts[5]),
+                    Long.parseLong(parts[6]), Long.parseLong(parts[7]));
+            return new TodoCursor(sortBy, directionPriority, directionDueDate, key);
+        } catch (NumberFormatException e) {
+            throw new InvalidCursorException("Malformed cursor");
+        }
+    }
+}
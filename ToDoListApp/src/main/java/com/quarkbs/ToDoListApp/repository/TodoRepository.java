@@ -4,9 +4,11 @@ import com.quarkbs.ToDoListApp.entity.Todo;
 import com.quarkbs.ToDoListApp.entity.TodoMetrics;
 import org.springframework.data.domain.PageRequest;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * Repository interface for managing Todo entities.
@@ -19,6 +21,17 @@ public interface TodoRepository {
      */
     List<Todo> findAll();
 
+    /**
+     * Passes every todo matching the filters to an action, one at a time and in no particular order,
+     * without collecting them first, so the memory used does not grow with the number of todos.
+     *
+     * @param status the status filter (optional)
+     * @param text the text filter (optional)
+     * @param priority the priority filter (optional)
+     * @param action receives each matching todo
+     */
+    void forEachMatching(Boolean status, String text, Integer priority, Consumer<Todo> action);
+
     /**
      * Retrieves a todo by its ID.
      *
@@ -35,6 +48,24 @@ public interface TodoRepository {
      */
     Todo save(Todo todo);
 
+    /**
+     * Saves many todos as one batch, so the per-write overhead of the store is paid once.
+     *
+     * @param todos the todos to save
+     * @return the saved todos
+     */
+    List<Todo> saveAll(List<Todo> todos);
+
+    /**
+     * Changes a stored todo in one atomic step for its ID: no other write to the todo happens between
+     * reading it and saving the change, while writes to other todos go on.
+     *
+     * @param id the ID of the todo to change
+     * @param change changes the current todo in place, without changing its ID; if it throws, the todo stays as it was
+     * @return an Optional containing the saved todo, or empty if not found
+     */
+    Optional<Todo> update(Long id, Consumer<Todo> change);
+
     /**
      * Deletes a todo by its ID.
      *
@@ -42,6 +73,21 @@ public interface TodoRepository {
      */
     void deleteById(Long id);
 
+    /**
+     * Deletes many todos as one batch.
+     *
+     * @param ids the IDs of the todos to delete
+     */
+    void deleteAll(Collection<Long> ids);
+
+    /**
+     * Retrieves the modification version of the store.
+     * Results computed while the version was {@code v} are current as long as it still is {@code v}.
+     *
+     * @return a number that grows after every save or deletion
+     */
+    long getVersion();
+
     /**
      * Retrieves a paginated list of todos with optional filters.
      *
@@ -57,13 +103,24 @@ public interface TodoRepository {
     Map<String, Object> findByFilter(PageRequest pageable, Boolean status, String text, Integer priority, String sortBy, String directionPriority, String directionDueDate);
 
     /**
-     * Retrieves todo metrics.
+     * Retrieves the todos following a keyset cursor in a sort order.
+     *
+     * @param cursor the cursor returned with the previous page, or null or empty for the first page
+     * @param size the maximum number of todos to return
+     * @param status the status filter (optional)
+     * @param text the text filter (optional)
+     * @param priority the priority filter (optional)
+     * @param sortBy the field to sort by
+     * @param directionPriority the sort direction for priority
+     * @param directionDueDate the sort direction for due date
+     * @return a map containing the todos, the total and the cursor of the next page (null on the last page)
+     */
+    Map<String, Object> findByCursor(String cursor, int size, Boolean status, String text, Integer priority, String sortBy, String directionPriority, String directionDueDate);
+
+    /**
+     * Retrieves a snapshot of the todo metrics.
      *
-     * @param allTotal the total elapsed time for all todos
-     * @param allTotalLow the total elapsed time for low priority todos
-     * @param allTotalMedium the total elapsed time for medium priority todos
-     * @param allTotalHigh the total elapsed time for high priority todos
      * @return the todo metrics
      */
-    TodoMetrics getMetrics(double allTotal, double allTotalLow, double allTotalMedium, double allTotalHigh);
+    TodoMetrics getMetrics();
 }
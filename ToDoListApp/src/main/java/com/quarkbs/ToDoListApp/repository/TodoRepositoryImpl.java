@@ -2,24 +2,171 @@ package com.quarkbs.ToDoListApp.repository;
 
 import com.quarkbs.ToDoListApp.entity.Todo;
 import com.quarkbs.ToDoListApp.entity.TodoMetrics;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Repository;
 
+import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * In-memory implementation of the TodoRepository interface.
+ * It is the default backend, selected by {@code todo.repository.backend=memory}.
+ * Todos are stored as {@link CompactTodo} records and turned back into Todo objects only when they are returned.
+ * Bound to a meter registry, it reports its size and index sizes as gauges and times the
+ * phases of findByFilter.
  */
 @Repository
-public class TodoRepositoryImpl implements TodoRepository {
-    private final Map<Long, Todo> todos = new ConcurrentHashMap<>();
+@ConditionalOnProperty(name = "todo.repository.backend", havingValue = "memory", matchIfMissing = true)
+public class TodoRepositoryImpl implements TodoRepository, MeterBinder {
+    private static final int PRIORITY_LEVELS = 4;
+
+    /**
+     * A page is selected with a bounded heap instead of a full sort when the matches
+     * outnumber the todos up to the end of the page by at least this factor.
+     */
+    private static final int TOP_K_FACTOR = 4;
+
+    private final Map<Long, CompactTodo> todos = new ConcurrentHashMap<>();
     private final AtomicLong nextId = new AtomicLong(1);
-    private final TodoMetrics metrics = new TodoMetrics();
+
+    /**
+     * Modification version, incremented after every write has become visible.
+     */
+    private final AtomicLong version = new AtomicLong();
+
+    /**
+     * Running sum and count of the elapsed times of all completed todos.
+     */
+    private final LongAdder elapsedSum = new LongAdder();
+    private final LongAdder elapsedCount = new LongAdder();
+
+    /**
+     * Running sums and counts of the elapsed times of completed todos, indexed by priority.
+     */
+    private final LongAdder[] elapsedSums = newAdders(PRIORITY_LEVELS);
+    private final LongAdder[] elapsedCounts = newAdders(PRIORITY_LEVELS);
+
+    /**
+     * Secondary index from status to the IDs of the todos having that status.
+     */
+    private final Map<Boolean, Set<Long>> statusIndex = new ConcurrentHashMap<>();
+
+    /**
+     * Secondary index from priority to the IDs of the todos having that priority.
+     */
+    private final Map<Integer, Set<Long>> priorityIndex = new ConcurrentHashMap<>();
+
+    /**
+     * Trigram index over the lowercased todo text.
+     */
+    private final TrigramIndex textIndex = new TrigramIndex();
+
+    /**
+     * Number of todos per (status, priority) pair, keyed by {@link #statusPriorityKey}.
+     */
+    private final Map<Long, LongAdder> statusPriorityCounts = new ConcurrentHashMap<>();
+
+    /**
+     * Skip-list indexes in the due date, creation date and priority sort orders.
+     */
+    private final SortedIndexes sortedIndexes = new SortedIndexes();
+
+    /**
+     * Numbers of updates that have started and finished moving a stored todo in the sorted indexes.
+     * A walk that no move overlapped has seen every todo once; see {@link #settledMoves}.
+     */
+    private final AtomicLong movesStarted = new AtomicLong();
+    private final AtomicLong movesFinished = new AtomicLong();
+
+    /**
+     * Optional write-ahead log recording every save and deletion.
+     */
+    @Autowired(required = false)
+    private TodoWriteAheadLog writeAheadLog;
+
+    /**
+     * Optional store of periodic snapshots, loaded on startup before the write-ahead log is replayed.
+     */
+    @Autowired(required = false)
+    private TodoSnapshotStore snapshotStore;
+
+    /**
+     * Optional pool on which text queries over many candidates are filtered and sorted in parallel.
+     */
+    @Autowired(required = false)
+    private TodoScanPool scanPool;
+
+    /**
+     * Shared by writers while they update a todo, taken exclusively by a snapshot only to rotate
+     * the write-ahead log, so every write logged before the rotation is visible to the snapshot.
+     */
+    private final ReadWriteLock rotationLock = new ReentrantReadWriteLock();
+
+    /**
+     * One findByFilter call in this many has its phases timed. Recording a histogram costs about as much
+     * as serving a page from the sorted index, so timing every call would slow the queries it measures.
+     */
+    @Value("${todo.metrics.find-sample-rate:16}")
+    private int findSampleRate = 16;
+
+    /**
+     * Timers of the phases of findByFilter, which record nothing until the repository is bound to a meter registry.
+     */
+    private volatile FindTimers findTimers = FindTimers.NONE;
+
+    public TodoRepositoryImpl() {
+    }
+
+    /**
+     * Creates a repository scanning large text queries on a pool.
+     *
+     * @param scanPool the scan pool
+     */
+    public TodoRepositoryImpl(TodoScanPool scanPool) {
+        this.scanPool = scanPool;
+    }
+
+    /**
+     * Creates a repository logging to a write-ahead log; call {@link #recover()} before using it.
+     *
+     * @param writeAheadLog the opened write-ahead log
+     */
+    public TodoRepositoryImpl(TodoWriteAheadLog writeAheadLog) {
+        this.writeAheadLog = writeAheadLog;
+    }
+
+    /**
+     * Creates a repository with a snapshot store and an optional write-ahead log; call {@link #recover()} before using it.
+     *
+     * @param writeAheadLog the opened write-ahead log, or null
+     * @param snapshotStore the snapshot store
+     */
+    public TodoRepositoryImpl(TodoWriteAheadLog writeAheadLog, TodoSnapshotStore snapshotStore) {
+        this.writeAheadLog = writeAheadLog;
+        this.snapshotStore = snapshotStore;
+    }
 
     /**
      * Retrieves all todos.
@@ -27,65 +174,193 @@ public class TodoRepositoryImpl implements TodoRepository {
      * @return a list of all todos
      */
     public List<Todo> findAll() {
-        return new ArrayList<>(todos.values());
+        return todos.values().stream().map(CompactTodo::toTodo).collect(Collectors.toCollection(ArrayList::new));
     }
 
     /**
-     * Retrieves todo metrics.
+     * Passes every todo matching the filters to an action, one at a time.
+     * The store is walked in place, through the smallest status or priority bucket when there is one,
+     * and each todo is decoded only as it is handed over. The text index is not used because its
+     * candidate list grows with the number of matches.
      *
-     * @param allTotal the total elapsed time for all todos
-     * @param allTotalLow the total elapsed time for low priority todos
-     * @param allTotalMedium the total elapsed time for medium priority todos
-     * @param allTotalHigh the total elapsed time for high priority todos
-     * @return the todo metrics
+     * @param status the status filter (optional)
+     * @param text the text filter (optional)
+     * @param priority the priority filter (optional)
+     * @param action receives each matching todo
      */
-    public TodoMetrics getMetrics(double allTotal, double allTotalLow, double allTotalMedium, double allTotalHigh) {
-        int todosElapsedNullsSize = todos.values().stream().filter(todo -> todo.getElapsedTime() == null).toList().size();
-        int todosLowsSize = todos.values().stream().filter(todo -> todo.getPriority() == 1).filter(todo -> todo.getElapsedTime() != null).toList().size();
-        int todosMediumSize = todos.values().stream().filter(todo -> todo.getPriority() == 2).filter(todo -> todo.getElapsedTime() != null).toList().size();
-        int todosHighSize = todos.values().stream().filter(todo -> todo.getPriority() == 3).filter(todo -> todo.getElapsedTime() != null).toList().size();
+    public void forEachMatching(Boolean status, String text, Integer priority, Consumer<Todo> action) {
+        candidates(status, null, priority)
+                .filter(filter(status, normalizeQuery(text), priority))
+                .forEach(todo -> action.accept(todo.toTodo()));
+    }
 
-        allTotal = todos.size() - todosElapsedNullsSize == 0 ? 0L : (allTotal / (todos.size() - todosElapsedNullsSize)) / 60;
-        allTotalLow = todosLowsSize == 0 ? 0L : (allTotalLow / todosLowsSize) / 60;
-        allTotalMedium = todosMediumSize == 0 ? 0L : (allTotalMedium / todosMediumSize) / 60;
-        allTotalHigh = todosHighSize == 0 ? 0L : (allTotalHigh / todosHighSize) / 60;
+    /**
+     * Retrieves a snapshot of the todo metrics.
+     * The averages come from running sums and counts, so no todo is visited.
+     *
+     * @return the todo metrics, in minutes
+     */
+    public TodoMetrics getMetrics() {
+        return new TodoMetrics(
+                average(elapsedSum, elapsedCount),
+                average(elapsedSums[1], elapsedCounts[1]),
+                average(elapsedSums[2], elapsedCounts[2]),
+                average(elapsedSums[3], elapsedCounts[3]));
+    }
 
-        metrics.setAvgTime(allTotal);
-        metrics.setAvgTimeLow(allTotalLow);
-        metrics.setAvgTimeMedium(allTotalMedium);
-        metrics.setAvgTimeHigh(allTotalHigh);
+    /**
+     * Reads the running sums and counts behind the metrics, which, unlike the averages, add up across repositories.
+     *
+     * @return the elapsed time totals
+     */
+    ElapsedTotals elapsedTotals() {
+        long[] sums = new long[PRIORITY_LEVELS];
+        long[] counts = new long[PRIORITY_LEVELS];
+        for (int priority = 0; priority < PRIORITY_LEVELS; priority++) {
+            sums[priority] = elapsedSums[priority].sum();
+            counts[priority] = elapsedCounts[priority].sum();
+        }
+        return new ElapsedTotals(elapsedSum.sum(), elapsedCount.sum(), sums, counts);
+    }
 
+    /**
+     * Computes an average elapsed time in minutes.
+     *
+     * @param sum the running sum of elapsed seconds
+     * @param count the running count of completed todos
+     * @return the average in minutes, or 0 when there is nothing to average
+     */
+    private static double average(LongAdder sum, LongAdder count) {
+        return average(sum.sum(), count.sum());
+    }
+
+    private static double average(long sum, long count) {
+        return count == 0 ? 0L : ((double) sum / count) / 60;
+    }
+
+    /**
+     * Sums and counts of the elapsed times of completed todos, overall and indexed by priority.
+     *
+     * @param sum the sum of all elapsed times, in seconds
+     * @param count the number of completed todos
+     * @param sums the sums of the elapsed times by priority
+     * @param counts the numbers of completed todos by priority
+     */
+    record ElapsedTotals(long sum, long count, long[] sums, long[] counts) {
+        static final ElapsedTotals NONE = new ElapsedTotals(0, 0, new long[PRIORITY_LEVELS], new long[PRIORITY_LEVELS]);
+
+        ElapsedTotals plus(ElapsedTotals other) {
+            long[] addedSums = new long[PRIORITY_LEVELS];
+            long[] addedCounts = new long[PRIORITY_LEVELS];
+            for (int priority = 0; priority < PRIORITY_LEVELS; priority++) {
+                addedSums[priority] = sums[priority] + other.sums[priority];
+                addedCounts[priority] = counts[priority] + other.counts[priority];
+            }
+            return new ElapsedTotals(sum + other.sum, count + other.count, addedSums, addedCounts);
+        }
 
-        return metrics;
+        TodoMetrics toMetrics() {
+            return new TodoMetrics(average(sum, count), average(sums[1], counts[1]), average(sums[2], counts[2]), average(sums[3], counts[3]));
+        }
     }
 
     /**
      * Retrieves a todo by its ID.
+     * The returned todo is decoded from the stored form, so callers can change it freely before saving it again.
      *
      * @param id the ID of the todo
      * @return an Optional containing the todo if found, or empty if not found
      */
     public Optional<Todo> findById(Long id) {
-        return todos.values().stream().filter(todo -> todo.getId().equals(id)).findFirst();
+        return Optional.ofNullable(todos.get(id)).map(CompactTodo::toTodo);
     }
 
     /**
      * Saves a todo.
+     * The todo is encoded and swapped in atomically, so readers see either the
+     * previous or the new version of an existing todo, never a missing one.
      *
      * @param todo the todo to save
      * @return the saved todo
+     * @throws IllegalArgumentException if the priority or the due date is outside the range {@link CompactTodo} can hold
+     * @throws java.io.UncheckedIOException if the write-ahead log has failed, in which case nothing is stored
      */
     public Todo save(Todo todo) {
+        long sequence = put(prepare(todo), true);
+        version.incrementAndGet();
+        awaitDurable(sequence);
+        return todo;
+    }
+
+    /**
+     * Saves many todos.
+     * Every todo is stored and logged as by {@link #save}, but the version is incremented once,
+     * so cached results are invalidated once, and the batch waits only once for the write-ahead log.
+     *
+     * @param batch the todos to save
+     * @return the saved todos
+     */
+    public List<Todo> saveAll(List<Todo> batch) {
+        long sequence = 0;
+        for (Todo todo : batch) {
+            sequence = Math.max(sequence, put(prepare(todo), true));
+        }
+        version.incrementAndGet();
+        awaitDurable(sequence);
+        return batch;
+    }
+
+    /**
+     * Changes a stored todo while the map holds the lock of its ID, so writes to other todos are not held up.
+     * The todo is decoded, changed, encoded and logged within that step, and the version is incremented
+     * once the change is visible.
+     *
+     * @param id the ID of the todo to change
+     * @param change changes the current todo in place, without changing its ID; if it throws, the todo stays as it was
+     * @return an Optional containing the saved todo, or empty if not found
+     * @throws IllegalArgumentException if the changed priority or due date is outside the range {@link CompactTodo} can hold
+     */
+    public Optional<Todo> update(Long id, Consumer<Todo> change) {
+        Todo[] updated = {null};
+        CompactTodo[] replaced = {null};
+        long[] sequence = {0};
+        rotationLock.readLock().lock();
+        try {
+            CompactTodo current = todos.computeIfPresent(id, (key, previous) -> {
+                Todo todo = previous.toTodo();
+                change.accept(todo);
+                CompactTodo stored = CompactTodo.of(todo);
+                sequence[0] = replace(previous, stored, todo);
+                updated[0] = todo;
+                replaced[0] = previous;
+                return stored;
+            });
+            retire(replaced[0], current);
+        } finally {
+            rotationLock.readLock().unlock();
+        }
+        if (updated[0] == null) {
+            return Optional.empty();
+        }
+        version.incrementAndGet();
+        awaitDurable(sequence[0]);
+        return Optional.of(updated[0]);
+    }
+
+    /**
+     * Assigns an ID and a creation date to a todo that lacks them and encodes it for storage.
+     *
+     * @param todo the todo to save
+     * @return the compact form to store
+     */
+    private CompactTodo prepare(Todo todo) {
         if (todo.getId() == null) {
             todo.setId(nextId.getAndIncrement());
-        } else {
-            deleteById(todo.getId());
         }
         if (todo.getCreationDate() == null) {
             todo.setCreationDate(LocalDateTime.now());
         }
-        todos.put(todo.getId(), todo);
-        return todo;
+        return CompactTodo.of(todo);
     }
 
     /**
@@ -94,11 +369,378 @@ public class TodoRepositoryImpl implements TodoRepository {
      * @param id the ID of the todo to delete
      */
     public void deleteById(Long id) {
-        todos.remove(id);
+        long sequence = remove(id, true);
+        version.incrementAndGet();
+        awaitDurable(sequence);
+    }
+
+    /**
+     * Deletes many todos, incrementing the version and waiting for the write-ahead log once.
+     *
+     * @param ids the IDs of the todos to delete
+     */
+    public void deleteAll(Collection<Long> ids) {
+        long sequence = 0;
+        for (Long id : ids) {
+            sequence = Math.max(sequence, remove(id, true));
+        }
+        version.incrementAndGet();
+        awaitDurable(sequence);
+    }
+
+    /**
+     * Loads the latest snapshot and replays the write-ahead log segments written after it,
+     * for whichever of the two is configured, into the empty store.
+     *
+     * @throws IOException if the snapshot or the log cannot be read
+     */
+    @PostConstruct
+    public void recover() throws IOException {
+        long walSegment = 0;
+        if (snapshotStore != null) {
+            List<CompactTodo> loaded = new ArrayList<>();
+            TodoSnapshotStore.Loaded snapshot = snapshotStore.loadCompact(loaded::add);
+            if (snapshot != null) {
+                load(loaded);
+                nextId.accumulateAndGet(snapshot.nextId(), Math::max);
+                walSegment = snapshot.walSegment();
+            }
+        }
+        if (writeAheadLog != null) {
+            writeAheadLog.continueAfter(walSegment);
+            writeAheadLog.replay(walSegment, todo -> {
+                put(CompactTodo.of(todo), false);
+                nextId.accumulateAndGet(todo.getId() + 1, Math::max);
+            }, id -> remove(id, false));
+        }
+    }
+
+    /**
+     * Fills the empty store with many todos at once, before it serves any request.
+     * The todos are indexed in ID order, which makes every trigram posting list insertion an
+     * append, and the sorted indexes are built from pre-sorted keys.
+     *
+     * @param loaded the todos to store
+     */
+    private void load(List<CompactTodo> loaded) {
+        loaded.sort(Comparator.comparingLong(CompactTodo::id));
+        for (CompactTodo todo : loaded) {
+            todos.put(todo.id(), todo);
+            if (todo.text() != null) {
+                textIndex.update(todo.id(), null, todo.text());
+            }
+            reindexFilters(null, todo);
+            account(null, todo);
+        }
+        sortedIndexes.load(loaded);
+        version.incrementAndGet();
+    }
+
+    /**
+     * Writes a snapshot of the store without blocking writers.
+     * With a write-ahead log, the log is first rotated at a point where no write is in progress;
+     * the snapshot then covers every rotated segment, which are deleted once it is on disk.
+     *
+     * @throws IOException if the snapshot cannot be written
+     */
+    public void snapshot() throws IOException {
+        if (snapshotStore == null) {
+            return;
+        }
+        long walSegment = 0;
+        if (writeAheadLog != null) {
+            rotationLock.writeLock().lock();
+            try {
+                walSegment = writeAheadLog.rotate();
+            } finally {
+                rotationLock.writeLock().unlock();
+            }
+            writeAheadLog.awaitRotation(walSegment);
+        }
+        snapshotStore.write(() -> todos.values().stream().map(CompactTodo::toTodo).iterator(), nextId.get(), walSegment);
+        if (writeAheadLog != null) {
+            writeAheadLog.deleteSegments(walSegment);
+        }
+    }
+
+    /**
+     * Stores a todo and updates every index and aggregate in one atomic step for its ID.
+     * The caller increments the version once its writes are visible.
+     *
+     * @param stored the compact form of the todo to store
+     * @param log whether to queue the save in the write-ahead log
+     * @return the log sequence number of the save, or 0 if it was not logged
+     */
+    private long put(CompactTodo stored, boolean log) {
+        long[] sequence = {0};
+        CompactTodo[] replaced = {null};
+        rotationLock.readLock().lock();
+        try {
+            todos.compute(stored.id(), (id, previous) -> {
+                sequence[0] = replace(previous, stored, log && writeAheadLog != null ? stored.toTodo() : null);
+                replaced[0] = previous;
+                return stored;
+            });
+            retire(replaced[0], stored);
+        } finally {
+            rotationLock.readLock().unlock();
+        }
+        return sequence[0];
+    }
+
+    /**
+     * Logs a save and moves the indexes and aggregates from the previous to the new form of a todo.
+     * Called while the map holds the lock of the todo's ID.
+     *
+     * @param previous the stored form, or null for a new todo
+     * @param stored the form to store
+     * @param logged the todo to queue in the write-ahead log, or null to not log the save
+     * @return the log sequence number of the save, or 0 if it was not logged
+     */
+    private long replace(CompactTodo previous, CompactTodo stored, Todo logged) {
+        long sequence = logged != null && writeAheadLog != null ? writeAheadLog.appendSave(logged) : 0;
+        reindex(previous, stored);
+        account(previous, stored);
+        return sequence;
+    }
+
+    /**
+     * Removes the sorted index keys of a replaced version once the map holds its successor.
+     * Until then a walk that reaches the new keys resolves them to the previous version and drops
+     * them, so the old keys must stay for the todo to be found. The removal takes the lock of the
+     * todo's ID again and keeps any key the version stored by then still has.
+     *
+     * @param previous the replaced version, or null if nothing was replaced
+     * @param current the version that replaced it, or null when the todo was deleted
+     */
+    private void retire(CompactTodo previous, CompactTodo current) {
+        if (previous != null && sortedIndexes.moves(previous, current)) {
+            todos.compute(previous.id(), (id, stored) -> {
+                sortedIndexes.retire(previous, stored);
+                return stored;
+            });
+            if (current != null) {
+                movesFinished.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Reads the number of moves in the sorted indexes before a walk, when none is in progress.
+     * The skip-list iterators are only weakly consistent: a todo that moves while a walk runs can
+     * be passed over under both its keys or met under both. A walk is exact if no move was in
+     * progress when it started and none started until it ended, as {@link #unmoved} checks.
+     *
+     * @return the number of moves started so far, or -1 while a move is in progress
+     */
+    private long settledMoves() {
+        long started = movesStarted.get();
+        return movesFinished.get() == started ? started : -1;
+    }
+
+    /**
+     * Tells whether no todo moved in the sorted indexes since {@link #settledMoves} was read.
+     *
+     * @param moves the value returned by {@link #settledMoves}
+     * @return true if a walk run in between is exact
+     */
+    private boolean unmoved(long moves) {
+        return moves >= 0 && movesStarted.get() == moves;
+    }
+
+    /**
+     * Removes a todo and its index and aggregate entries in one atomic step for its ID.
+     * The caller increments the version once its writes are visible.
+     *
+     * @param id the ID of the todo to remove
+     * @param log whether to queue the deletion in the write-ahead log
+     * @return the log sequence number of the deletion, or 0 if nothing was logged
+     */
+    private long remove(Long id, boolean log) {
+        long[] sequence = {0};
+        CompactTodo[] replaced = {null};
+        rotationLock.readLock().lock();
+        try {
+            todos.computeIfPresent(id, (key, previous) -> {
+                if (log && writeAheadLog != null) {
+                    sequence[0] = writeAheadLog.appendDelete(key);
+                }
+                reindex(previous, null);
+                account(previous, null);
+                replaced[0] = previous;
+                return null;
+            });
+            retire(replaced[0], null);
+        } finally {
+            rotationLock.readLock().unlock();
+        }
+        return sequence[0];
+    }
+
+    /**
+     * Waits outside of any map lock until a logged write is durable.
+     *
+     * @param sequence the log sequence number, or 0 if the write was not logged
+     */
+    private void awaitDurable(long sequence) {
+        if (sequence > 0) {
+            writeAheadLog.awaitDurable(sequence);
+        }
+    }
+
+    /**
+     * Counts the stored todos.
+     *
+     * @return the number of todos
+     */
+    int size() {
+        return todos.size();
+    }
+
+    /**
+     * Retrieves the modification version of the store.
+     *
+     * @return a number that grows after every save or deletion
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
+    /**
+     * Moves a todo between the status and priority index buckets, adds its new sorted index positions
+     * and re-indexes its text. The new buckets are filled before the old ones are cleared,
+     * so a filtered read running concurrently with an update still finds the todo; the old sorted
+     * positions are removed by {@link #retire} once the map holds the new version.
+     *
+     * @param previous the stored version being replaced, or null for a new todo
+     * @param current the version being stored, or null when the todo is deleted
+     */
+    private void reindex(CompactTodo previous, CompactTodo current) {
+        String previousText = previous == null ? null : previous.text();
+        String currentText = current == null ? null : current.text();
+        if (!Objects.equals(previousText, currentText)) {
+            textIndex.update(current == null ? previous.id() : current.id(), previousText, currentText);
+        }
+        if (previous != null && current != null && sortedIndexes.moves(previous, current)) {
+            movesStarted.incrementAndGet();
+        }
+        sortedIndexes.add(previous, current);
+        reindexFilters(previous, current);
+    }
+
+    /**
+     * Moves a todo between the status and priority index buckets and counters.
+     *
+     * @param previous the stored version being replaced, or null for a new todo
+     * @param current the version being stored, or null when the todo is deleted
+     */
+    private void reindexFilters(CompactTodo previous, CompactTodo current) {
+        if (current != null) {
+            statusPriorityCounts.computeIfAbsent(statusPriorityKey(current.status(), current.priority()), key -> new LongAdder()).increment();
+        }
+        if (previous != null) {
+            statusPriorityCounts.get(statusPriorityKey(previous.status(), previous.priority())).decrement();
+        }
+        if (current != null) {
+            if (current.status() != null) {
+                statusIndex.computeIfAbsent(current.status(), key -> ConcurrentHashMap.newKeySet()).add(current.id());
+            }
+            priorityIndex.computeIfAbsent(current.priority(), key -> ConcurrentHashMap.newKeySet()).add(current.id());
+        }
+        if (previous != null) {
+            if (previous.status() != null && (current == null || !previous.status().equals(current.status()))) {
+                statusIndex.get(previous.status()).remove(previous.id());
+            }
+            if (current == null || previous.priority() != current.priority()) {
+                priorityIndex.get(previous.priority()).remove(previous.id());
+            }
+        }
+    }
+
+    /**
+     * Moves a todo's elapsed time between the running metrics aggregates.
+     *
+     * @param previous the stored version being replaced, or null for a new todo
+     * @param current the version being stored, or null when the todo is deleted
+     */
+    private void account(CompactTodo previous, CompactTodo current) {
+        if (previous != null && previous.hasElapsedTime()) {
+            addElapsed(previous, -1);
+        }
+        if (current != null && current.hasElapsedTime()) {
+            addElapsed(current, 1);
+        }
+    }
+
+    /**
+     * Adds or subtracts a todo's elapsed time to the total and per-priority aggregates.
+     *
+     * @param todo the completed todo
+     * @param sign 1 to add the todo, -1 to subtract it
+     */
+    private void addElapsed(CompactTodo todo, int sign) {
+        elapsedSum.add(sign * todo.elapsedTime());
+        elapsedCount.add(sign);
+        if (todo.priority() >= 0 && todo.priority() < PRIORITY_LEVELS) {
+            elapsedSums[todo.priority()].add(sign * todo.elapsedTime());
+            elapsedCounts[todo.priority()].add(sign);
+        }
+    }
+
+    private static LongAdder[] newAdders(int size) {
+        LongAdder[] adders = new LongAdder[size];
+        Arrays.setAll(adders, i -> new LongAdder());
+        return adders;
+    }
+
+    /**
+     * Returns the todos that may match the filters.
+     * A text query long enough for the trigram index is answered from it, otherwise the smallest
+     * matching status or priority bucket is used, and without any of those filters every stored
+     * todo is a candidate.
+     *
+     * @param status the status filter (optional)
+     * @param query the normalized text filter (optional)
+     * @param priority the priority filter (optional)
+     * @return a stream of candidate todos that still have to be checked against every filter
+     */
+    private Stream<CompactTodo> candidates(Boolean status, String query, Integer priority) {
+        if (query != null) {
+            long[] textIds = textIndex.candidates(query);
+            if (textIds != null) {
+                return Arrays.stream(textIds).mapToObj(todos::get).filter(Objects::nonNull);
+            }
+        }
+        Set<Long> ids = null;
+        if (status != null) {
+            ids = statusIndex.getOrDefault(status, Set.of());
+        }
+        if (priority != null) {
+            Set<Long> priorityIds = priorityIndex.getOrDefault(priority, Set.of());
+            if (ids == null || priorityIds.size() < ids.size()) {
+                ids = priorityIds;
+            }
+        }
+        if (ids == null) {
+            return todos.values().stream();
+        }
+        return ids.stream().map(todos::get).filter(Objects::nonNull);
+    }
+
+    /**
+     * Reports the estimated heap footprint of the text index.
+     *
+     * @return the estimated size of the trigram index in bytes
+     */
+    public long getTextIndexFootprint() {
+        return textIndex.footprintBytes();
     }
 
     /**
      * Retrieves a paginated list of todos with optional filters.
+     * Text queries are filtered and sorted on the scan pool, when there is one, once their candidates
+     * reach its threshold. Other queries walk the sorted index, and are scanned like text queries
+     * when a todo moved in it during the walk.
      *
      * @param pageable the pagination information
      * @param status the status filter (optional)
@@ -110,38 +752,286 @@ public class TodoRepositoryImpl implements TodoRepository {
      * @return a map containing the paginated list of todos and additional metadata
      */
     public Map<String, Object> findByFilter(PageRequest pageable, Boolean status, String text, Integer priority, String sortBy, String directionPriority, String directionDueDate) {
-        List<Todo> filteredTodos = todos.values().stream()
-                .filter(todo -> status == null || todo.getStatus().equals(status))
-                .filter(todo -> text == null || todo.getText().toLowerCase().contains(text.toLowerCase()))
-                .filter(todo -> priority == null || todo.getPriority() == priority)
-                .collect(Collectors.toList());
-
-        if (!sortBy.isEmpty()) {
-            Comparator<Todo> comparator = Comparator.comparingInt(todo -> 0);
-            comparator = switch (sortBy) {
-                case "priority" ->
-                        comparator.thenComparing(Objects.equals(directionPriority, "ASC") ? Comparator.comparingInt(Todo::getPriority) : Comparator.comparingInt(Todo::getPriority).reversed());
-                case "dueDate" ->
-                        comparator.thenComparing(Objects.equals(directionDueDate, "ASC") ? Comparator.comparing(Todo::getDueDate) : Comparator.comparing(Todo::getDueDate).reversed());
-                case "priorityDueDate" ->
-                        comparator.thenComparing(Objects.equals(directionPriority, "ASC") ? Comparator.comparingInt(Todo::getPriority) : Comparator.comparingInt(Todo::getPriority).reversed())
-                                .thenComparing(Objects.equals(directionDueDate, "ASC") ? Comparator.comparing(Todo::getDueDate) : Comparator.comparing(Todo::getDueDate).reversed());
-                case "creationDate" ->
-                        comparator.thenComparing(Objects.equals(directionPriority, "ASC") ? Comparator.comparing(Todo::getCreationDate) : Comparator.comparing(Todo::getCreationDate).reversed());
-                default -> comparator;
-            };
-            filteredTodos.sort(comparator);
-        }
-
-        int start = (int) pageable.getOffset();
+        FindTimers timers = findTimers.sample();
+        long began = timers.start();
+        String query = normalizeQuery(text);
+        Predicate<CompactTodo> filter = filter(status, query, priority);
+
+        long moves = query == null ? settledMoves() : -1;
+        if (moves >= 0) {
+            // The sorted index hands the todos over in order, so filtering and skipping to the page are one walk
+            Stream<CompactTodo> ordered = sortedIndexes.walk(sortBy, directionPriority, directionDueDate, priority, null, todos::get);
+            boolean walked = ordered != null;
+            if (!walked) {
+                ordered = candidates(status, null, priority);
+            }
+            List<Todo> paginatedTodos = ordered.filter(filter)
+                    .skip(pageable.getOffset())
+                    .limit(pageable.getPageSize())
+                    .map(CompactTodo::toTodo)
+                    .toList();
+            // A todo that moved during the walk may be missing or repeated, so the page is then read by a scan
+            if (!walked || unmoved(moves)) {
+                long filtered = timers.filtered(began);
+                Map<String, Object> result = page(paginatedTodos, pageable, count(status, priority));
+                timers.paged(filtered);
+                return result;
+            }
+        }
+
+        // Sorted orders end with the ID, so a parallel scan returns exactly the todos of a sequential one
+        Comparator<CompactTodo> comparator = TodoSort.storedComparator(sortBy, directionPriority, directionDueDate);
+        Spliterator<CompactTodo> source = candidates(status, query, priority).spliterator();
+        boolean parallel = comparator != null && scanPool != null && scanPool.accepts(source.estimateSize());
+        List<CompactTodo> filteredTodos = parallel
+                ? scanPool.run(() -> StreamSupport.stream(source, true).filter(filter).collect(Collectors.toList()))
+                : StreamSupport.stream(source, false).filter(filter).collect(Collectors.toList());
+        long filtered = timers.filtered(began);
+
+        int start = (int) Math.min(pageable.getOffset(), filteredTodos.size());
         int end = Math.min((start + pageable.getPageSize()), filteredTodos.size());
-        List<Todo> paginatedTodos = filteredTodos.subList(start, end);
+        List<CompactTodo> sortedTodos = filteredTodos;
+        if (comparator != null) {
+            if ((long) end * TOP_K_FACTOR < filteredTodos.size()) {
+                sortedTodos = parallel
+                        ? scanPool.run(() -> filteredTodos.parallelStream().collect(TodoSort.toFirstK(comparator, end)))
+                        : TodoSort.firstK(filteredTodos, comparator, end);
+            } else if (parallel) {
+                sortedTodos = scanPool.run(() -> {
+                    CompactTodo[] array = filteredTodos.toArray(CompactTodo[]::new);
+                    Arrays.parallelSort(array, comparator);
+                    return Arrays.asList(array);
+                });
+            } else {
+                filteredTodos.sort(comparator);
+            }
+        }
+        long sorted = timers.sorted(filtered);
+        List<Todo> paginatedTodos = sortedTodos.subList(start, end).stream().map(CompactTodo::toTodo).toList();
+
+        Map<String, Object> result = page(paginatedTodos, pageable, filteredTodos.size());
+        timers.paged(sorted);
+        return result;
+    }
+
+    /**
+     * Retrieves the todos following a keyset cursor in a sort order.
+     * The walk resumes at the cursor's sort key, so each page costs O(page size) in the sorted
+     * index and is not shifted by todos inserted or removed before the cursor.
+     *
+     * @param cursor the cursor returned with the previous page, or null or empty for the first page
+     * @param size the maximum number of todos to return
+     * @param status the status filter (optional)
+     * @param text the text filter (optional)
+     * @param priority the priority filter (optional)
+     * @param sortBy the field to sort by
+     * @param directionPriority the sort direction for priority
+     * @param directionDueDate the sort direction for due date
+     * @return a map containing the todos, the total and the cursor of the next page (null on the last page)
+     */
+    public Map<String, Object> findByCursor(String cursor, int size, Boolean status, String text, Integer priority, String sortBy, String directionPriority, String directionDueDate) {
+        SortedIndexes.Key after = cursor == null || cursor.isEmpty() ? null : TodoCursor.decode(cursor, sortBy, directionPriority, directionDueDate).key();
+        String query = normalizeQuery(text);
+        Predicate<CompactTodo> filter = filter(status, query, priority);
+
+        Comparator<CompactTodo> comparator = TodoSort.storedComparator(sortBy, directionPriority, directionDueDate);
+        if (query == null && comparator == null) {
+            throw new IllegalArgumentException("Cursor pagination needs a sort order: " + sortBy);
+        }
+
+        List<CompactTodo> nextTodos = null;
+        int total = 0;
+        long moves = query == null ? settledMoves() : -1;
+        if (moves >= 0) {
+            Stream<CompactTodo> ordered = sortedIndexes.walk(sortBy, directionPriority, directionDueDate, priority, after, todos::get);
+            nextTodos = ordered.filter(filter).limit(size + 1L).toList();
+            total = count(status, priority);
+            if (!unmoved(moves)) {
+                nextTodos = null;
+            }
+        }
+        if (nextTodos == null) {
+            List<CompactTodo> filteredTodos = candidates(status, query, priority).filter(filter).collect(Collectors.toList());
+            total = filteredTodos.size();
+            if (after != null) {
+                filteredTodos.removeIf(todo -> !SortedIndexes.isAfter(sortBy, directionPriority, directionDueDate, SortedIndexes.keyOf(sortBy, todo), after));
+            }
+            nextTodos = TodoSort.firstK(filteredTodos, comparator, size + 1);
+        }
+
+        List<CompactTodo> pageTodos = nextTodos.subList(0, Math.min(size, nextTodos.size()));
+        String nextCursor = null;
+        if (nextTodos.size() > size && !pageTodos.isEmpty()) {
+            CompactTodo last = pageTodos.get(pageTodos.size() - 1);
+            nextCursor = new TodoCursor(sortBy, directionPriority, directionDueDate, SortedIndexes.keyOf(sortBy, last)).encode();
+        }
+        Map<String, Object> response = new HashMap<>();
+        response.put("todosList", pageTodos.stream().map(CompactTodo::toTodo).toList());
+        response.put("total", total);
+        response.put("nextCursor", nextCursor);
+        return response;
+    }
+
+    /**
+     * Registers the gauges of the store and its indexes and starts timing the phases of findByFilter.
+     * The text index gauges walk every posting list, so they cost a little on each scrape and nothing otherwise.
+     *
+     * @param registry the meter registry
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("todo.store.size", todos, Map::size)
+                .description("Number of stored todos")
+                .register(registry);
+        Gauge.builder("todo.store.todos", this, repository -> repository.count(false, null))
+                .description("Number of stored todos by status")
+                .tag("status", "open")
+                .register(registry);
+        Gauge.builder("todo.store.todos", this, repository -> repository.count(true, null))
+                .description("Number of stored todos by status")
+                .tag("status", "done")
+                .register(registry);
+        Gauge.builder("todo.index.text.trigrams", textIndex, TrigramIndex::trigramCount)
+                .description("Number of distinct trigrams in the text index")
+                .register(registry);
+        Gauge.builder("todo.index.text.postings", textIndex, TrigramIndex::postingCount)
+                .description("Number of (trigram, todo) pairs in the text index")
+                .register(registry);
+        Gauge.builder("todo.index.text.footprint", textIndex, TrigramIndex::footprintBytes)
+                .description("Estimated heap used by the text index")
+                .baseUnit("bytes")
+                .register(registry);
+        findTimers = FindTimers.register(registry, findSampleRate);
+    }
+
+    /**
+     * Timers of the filter, sort and page phases of a sample of the findByFilter calls.
+     * On the sorted index path the filter phase also walks to the page and there is no sort phase.
+     * {@link #NONE} has no timers and does not read the clock.
+     */
+    private record FindTimers(Timer filter, Timer sort, Timer page, int sampleRate) {
+        static final FindTimers NONE = new FindTimers(null, null, null, 1);
+
+        static FindTimers register(MeterRegistry registry, int sampleRate) {
+            return new FindTimers(timer(registry, "filter"), timer(registry, "sort"), timer(registry, "page"), Math.max(sampleRate, 1));
+        }
+
+        private static Timer timer(MeterRegistry registry, String phase) {
+            return Timer.builder("todo.repository.find")
+                    .description("Time spent in each phase of a sample of the findByFilter calls")
+                    .tag("phase", phase)
+                    .publishPercentileHistogram()
+                    .register(registry);
+        }
+
+        /**
+         * Decides whether the current call is timed.
+         *
+         * @return these timers for a sampled call, otherwise {@link #NONE}
+         */
+        FindTimers sample() {
+            return filter != null && (sampleRate == 1 || ThreadLocalRandom.current().nextInt(sampleRate) == 0) ? this : NONE;
+        }
+
+        long start() {
+            return filter == null ? 0 : System.nanoTime();
+        }
+
+        long filtered(long since) {
+            return lap(filter, since);
+        }
 
+        long sorted(long since) {
+            return lap(sort, since);
+        }
+
+        void paged(long since) {
+            lap(page, since);
+        }
+
+        /**
+         * Records the time since the end of the previous phase.
+         *
+         * @param timer the timer of the phase that just ended, or null when the call is not timed
+         * @param since the end of the previous phase, from {@link System#nanoTime()}
+         * @return the end of this phase
+         */
+        private static long lap(Timer timer, long since) {
+            if (timer == null) {
+                return 0;
+            }
+            long now = System.nanoTime();
+            timer.record(now - since, TimeUnit.NANOSECONDS);
+            return now;
+        }
+    }
+
+    /**
+     * Normalizes the text filter, treating an empty filter as no filter.
+     *
+     * @param text the text filter (optional)
+     * @return the normalized query, or null if there is no text filter
+     */
+    private static String normalizeQuery(String text) {
+        return text == null || text.isEmpty() ? null : TrigramIndex.normalize(text);
+    }
+
+    /**
+     * Builds the predicate checking a todo against every filter.
+     *
+     * @param status the status filter (optional)
+     * @param query the normalized text filter (optional)
+     * @param priority the priority filter (optional)
+     * @return the predicate
+     */
+    private static Predicate<CompactTodo> filter(Boolean status, String query, Integer priority) {
+        return todo -> (status == null || status.equals(todo.status()))
+                && (query == null || (todo.text() != null && TrigramIndex.normalize(todo.text()).contains(query)))
+                && (priority == null || todo.priority() == priority);
+    }
+
+    /**
+     * Counts the todos matching the status and priority filters from the maintained counters.
+     *
+     * @param status the status filter (optional)
+     * @param priority the priority filter (optional)
+     * @return the number of matching todos
+     */
+    private int count(Boolean status, Integer priority) {
+        if (status != null && priority != null) {
+            LongAdder count = statusPriorityCounts.get(statusPriorityKey(status, priority));
+            return count == null ? 0 : count.intValue();
+        }
+        if (status != null) {
+            return statusIndex.getOrDefault(status, Set.of()).size();
+        }
+        if (priority != null) {
+            return priorityIndex.getOrDefault(priority, Set.of()).size();
+        }
+        return todos.size();
+    }
+
+    /**
+     * Builds the key of a (status, priority) pair in {@link #statusPriorityCounts}.
+     */
+    private static long statusPriorityKey(Boolean status, int priority) {
+        long statusCode = status == null ? 2 : status ? 1 : 0;
+        return (statusCode << 32) | (priority & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Wraps a page of todos in the response map of findByFilter.
+     *
+     * @param paginatedTodos the todos of the page
+     * @param pageable the pagination information
+     * @param total the total number of matching todos
+     * @return a map containing the paginated list of todos and the total
+     */
+    private static Map<String, Object> page(List<Todo> paginatedTodos, PageRequest pageable, int total) {
         return Map.of(
-                "todosList", new PageImpl<>(paginatedTodos, pageable, filteredTodos.size()).getContent(),
-                "total", filteredTodos.size()
+                "todosList", new PageImpl<>(paginatedTodos, pageable, total).getContent(),
+                "total", total
         );
-
     }
 
 }
@@ -0,0 +1,92 @@
+package com.quarkbs.ToDoListApp.repository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.function.Supplier;
+
+/**
+ * Bounded fork/join pool on which the in-memory repository filters and sorts large candidate sets in parallel.
+ * Parallel streams and sorts fork their subtasks into the pool they run in, so a scan submitted here never
+ * spreads to the common pool, and at most {@code todo.scan.parallelism} threads (by default half the processors)
+ * work on scans however many requests start one, leaving the other processors to the request threads.
+ * Scans over fewer candidates than {@code todo.scan.parallel-threshold} stay on the calling thread, where
+ * handing the work over costs more than splitting it saves. With a single scan thread there is no pool and
+ * every scan is sequential.
+ */
+@Component
+@ConditionalOnProperty(name = "todo.repository.backend", havingValue = "memory", matchIfMissing = true)
+public class TodoScanPool {
+    @Value("${todo.scan.parallelism:0}")
+    private int parallelism;
+
+    @Value("${todo.scan.parallel-threshold:10000}")
+    private long parallelThreshold = 10_000;
+
+    private ForkJoinPool pool;
+
+    public TodoScanPool() {
+    }
+
+    /**
+     * Creates a pool, ready to use.
+     *
+     * @param parallelism the number of scan threads, or 0 for half the processors
+     * @param parallelThreshold the number of candidates from which a scan runs in parallel
+     */
+    public TodoScanPool(int parallelism, long parallelThreshold) {
+        this.parallelism = parallelism;
+        this.parallelThreshold = parallelThreshold;
+        start();
+    }
+
+    /**
+     * Starts the scan threads.
+     */
+    @PostConstruct
+    public void start() {
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors() / 2;
+        if (threads > 1) {
+            pool = new ForkJoinPool(threads, forkJoinPool -> {
+                ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+                thread.setName("todo-scan-" + thread.getPoolIndex());
+                return thread;
+            }, null, false);
+        }
+    }
+
+    /**
+     * Stops the scan threads.
+     */
+    @PreDestroy
+    public void close() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Decides whether a scan is worth running in parallel.
+     *
+     * @param candidates the estimated number of todos the scan visits
+     * @return true if the scan should run through {@link #run}
+     */
+    boolean accepts(long candidates) {
+        return pool != null && candidates >= parallelThreshold;
+    }
+
+    /**
+     * Runs a scan in the pool and waits for its result.
+     *
+     * @param scan the scan, using parallel streams or sorts
+     * @return the result of the scan
+     */
+    <T> T run(Supplier<T> scan) {
+        return pool.submit(scan::get).join();
+    }
+}
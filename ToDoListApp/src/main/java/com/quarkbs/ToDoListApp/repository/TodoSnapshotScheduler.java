@@ -0,0 +1,29 @@
+package com.quarkbs.ToDoListApp.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * Takes periodic snapshots of the in-memory repository on the scheduler thread.
+ * Only created for the in-memory backend; the other backends do not take snapshots.
+ */
+@Component
+@ConditionalOnExpression("${todo.snapshot.enabled:false} and '${todo.repository.backend:memory}' == 'memory'")
+public class TodoSnapshotScheduler {
+    @Autowired
+    private TodoRepositoryImpl todoRepository;
+
+    /**
+     * Writes a snapshot after each configured interval.
+     *
+     * @throws IOException if the snapshot cannot be written
+     */
+    @Scheduled(fixedDelayString = "${todo.snapshot.interval:PT5M}", initialDelayString = "${todo.snapshot.interval:PT5M}")
+    public void snapshot() throws IOException {
+        todoRepository.snapshot();
+    }
+}
@@ -0,0 +1,159 @@
+package com.quarkbs.ToDoListApp.repository;
+
+import com.quarkbs.ToDoListApp.entity.Todo;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Compact binary snapshots of the in-memory repository.
+ * <pre>
+ * int    magic                "TODO"
+ * int    format version
+ * long   next ID
+ * long   last write-ahead log segment covered by the snapshot, 0 without a log
+ * long   todo count
+ * then per todo:
+ * int    record length
+ * byte[] record               {@link TodoBinaryFormat}
+ * </pre>
+ * A snapshot is written to a temporary file, forced and renamed over the previous one, so the
+ * snapshot file is always complete. It is loaded through a memory mapping of the file.
+ */
+@Component
+@ConditionalOnExpression("${todo.snapshot.enabled:false} and '${todo.repository.backend:memory}' == 'memory'")
+public class TodoSnapshotStore {
+    private static final int MAGIC = 0x544F444F;
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 4 + 4 + 8 + 8 + 8;
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private final Path path;
+
+    public TodoSnapshotStore(@Value("${todo.snapshot.path:data/todo-snapshot.bin}") Path path) {
+        this.path = path;
+    }
+
+    /**
+     * Header of a loaded snapshot.
+     *
+     * @param nextId the next todo ID at the time of the snapshot
+     * @param walSegment the last write-ahead log segment covered by the snapshot
+     * @param count the number of todos in the snapshot
+     */
+    public record Loaded(long nextId, long walSegment, long count) {
+    }
+
+    /**
+     * Writes a snapshot of the todos.
+     * The todos are read one by one while writers keep going, so each todo is captured in some state
+     * it had during the snapshot; the write-ahead log segments after {@code walSegment} bring them up to date.
+     *
+     * @param todos the stored todos
+     * @param nextId the next todo ID, read before the todos
+     * @param walSegment the last write-ahead log segment covered by the snapshot, 0 without a log
+     * @throws IOException if the snapshot cannot be written
+     */
+    public void write(Iterable<Todo> todos, long nextId, long walSegment) throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            channel.position(HEADER_SIZE);
+            long count = 0;
+            long maxId = 0;
+            for (Todo todo : todos) {
+                byte[] text = TodoBinaryFormat.text(todo);
+                int size = TodoBinaryFormat.size(text);
+                if (buffer.remaining() < Integer.BYTES + size) {
+                    flush(channel, buffer);
+                    if (buffer.capacity() < Integer.BYTES + size) {
+                        buffer = ByteBuffer.allocateDirect(Integer.BYTES + size);
+                    }
+                }
+                buffer.putInt(size);
+                TodoBinaryFormat.write(buffer, todo, text);
+                maxId = Math.max(maxId, todo.getId());
+                count++;
+            }
+            flush(channel, buffer);
+
+            buffer.putInt(MAGIC).putInt(FORMAT_VERSION).putLong(Math.max(nextId, maxId + 1)).putLong(walSegment).putLong(count);
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer, buffer.position());
+            }
+            channel.force(false);
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Loads the snapshot, if there is one.
+     *
+     * @param loaded receives each todo of the snapshot
+     * @return the snapshot header, or null if there is no snapshot
+     * @throws IOException if the snapshot cannot be read or is not a snapshot file
+     */
+    public Loaded load(Consumer<Todo> loaded) throws IOException {
+        return load(TodoBinaryFormat::read, loaded);
+    }
+
+    /**
+     * Loads the snapshot, if there is one, decoding each todo straight into its stored form,
+     * so no Todo is built on the way into the in-memory backend.
+     *
+     * @param loaded receives each todo of the snapshot
+     * @return the snapshot header, or null if there is no snapshot
+     * @throws IOException if the snapshot cannot be read or is not a snapshot file
+     */
+    Loaded loadCompact(Consumer<CompactTodo> loaded) throws IOException {
+        return load(TodoBinaryFormat::readCompact, loaded);
+    }
+
+    private <T> Loaded load(Function<ByteBuffer, T> decoder, Consumer<T> loaded) throws IOException {
+        if (!Files.exists(path)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot larger than 2 GB: " + path);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+                throw new IOException("Not a todo snapshot: " + path);
+            }
+            long nextId = buffer.getLong();
+            long walSegment = buffer.getLong();
+            long count = buffer.getLong();
+            for (long i = 0; i < count; i++) {
+                int size = buffer.getInt();
+                int end = buffer.position() + size;
+                loaded.accept(decoder.apply(buffer));
+                buffer.position(end);
+            }
+            return new Loaded(nextId, walSegment, count);
+        }
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
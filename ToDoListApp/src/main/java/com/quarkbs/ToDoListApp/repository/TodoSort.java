@@ -0,0 +1,136 @@
+package com.quarkbs.ToDoListApp.repository;
+
+import com.quarkbs.ToDoListApp.entity.Todo;
+
+import java.util.*;
+import java.util.stream.Collector;
+
+/**
+ * Sort orders supported by the list endpoint.
+ * Every order ends with the todo ID, so it is total and every sort path returns the same sequence.
+ * <ul>
+ *     <li>{@code priority}: priority in its direction, then due date and ID ascending</li>
+ *     <li>{@code dueDate}: due date and ID in the due date direction</li>
+ *     <li>{@code priorityDueDate}: priority in its direction, then due date and ID in the due date direction</li>
+ *     <li>{@code creationDate}: creation date and ID in the priority direction</li>
+ * </ul>
+ * Todos without a due date sort after every dated todo in ascending order.
+ */
+public final class TodoSort {
+    private static final Comparator<Todo> BY_PRIORITY = Comparator.comparingInt(Todo::getPriority);
+    private static final Comparator<Todo> BY_DUE_DATE_AND_ID = Comparator.comparing(Todo::getDueDate, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(Todo::getId);
+    private static final Comparator<Todo> BY_CREATION_DATE_AND_ID = Comparator.comparing(Todo::getCreationDate)
+            .thenComparing(Todo::getId);
+
+    private static final Comparator<CompactTodo> STORED_BY_PRIORITY = Comparator.comparingInt(CompactTodo::priority);
+    private static final Comparator<CompactTodo> STORED_BY_DUE_DATE_AND_ID = Comparator.comparingInt(CompactTodo::dueDay)
+            .thenComparingLong(CompactTodo::id);
+    private static final Comparator<CompactTodo> STORED_BY_CREATION_DATE_AND_ID = Comparator.comparingLong(CompactTodo::creationSecond)
+            .thenComparingInt(CompactTodo::creationNano)
+            .thenComparingLong(CompactTodo::id);
+
+    private TodoSort() {
+    }
+
+    /**
+     * Builds the comparator for a sort order.
+     *
+     * @param sortBy the field to sort by
+     * @param directionPriority the sort direction for priority
+     * @param directionDueDate the sort direction for due date
+     * @return the comparator, or null if the todos are not sorted
+     */
+    public static Comparator<Todo> comparator(String sortBy, String directionPriority, String directionDueDate) {
+        return switch (sortBy) {
+            case "priority" -> direction(BY_PRIORITY, directionPriority).thenComparing(BY_DUE_DATE_AND_ID);
+            case "dueDate" -> direction(BY_DUE_DATE_AND_ID, directionDueDate);
+            case "priorityDueDate" ->
+                    direction(BY_PRIORITY, directionPriority).thenComparing(direction(BY_DUE_DATE_AND_ID, directionDueDate));
+            case "creationDate" -> direction(BY_CREATION_DATE_AND_ID, directionPriority);
+            default -> null;
+        };
+    }
+
+    /**
+     * Builds the comparator for a sort order over the todos stored by the in-memory backend.
+     * The due day of a todo without a due date is {@link CompactTodo#NO_DUE_DATE}, which sorts after every date.
+     *
+     * @param sortBy the field to sort by
+     * @param directionPriority the sort direction for priority
+     * @param directionDueDate the sort direction for due date
+     * @return the comparator, or null if the todos are not sorted
+     */
+    static Comparator<CompactTodo> storedComparator(String sortBy, String directionPriority, String directionDueDate) {
+        return switch (sortBy) {
+            case "priority" -> direction(STORED_BY_PRIORITY, directionPriority).thenComparing(STORED_BY_DUE_DATE_AND_ID);
+            case "dueDate" -> direction(STORED_BY_DUE_DATE_AND_ID, directionDueDate);
+            case "priorityDueDate" ->
+                    direction(STORED_BY_PRIORITY, directionPriority).thenComparing(direction(STORED_BY_DUE_DATE_AND_ID, directionDueDate));
+            case "creationDate" -> direction(STORED_BY_CREATION_DATE_AND_ID, directionPriority);
+            default -> null;
+        };
+    }
+
+    /**
+     * Selects the first todos of a sort order with a bounded max-heap, without sorting the whole collection.
+     *
+     * @param todos the todos to select from
+     * @param comparator the sort order
+     * @param limit the number of todos to select
+     * @return the first {@code limit} todos in order
+     */
+    public static <T> List<T> firstK(Collection<T> todos, Comparator<T> comparator, int limit) {
+        if (limit <= 0) {
+            return new ArrayList<>();
+        }
+        PriorityQueue<T> heap = new PriorityQueue<>(limit, comparator.reversed());
+        for (T todo : todos) {
+            offer(heap, todo, comparator, limit);
+        }
+        return sorted(heap, comparator);
+    }
+
+    /**
+     * Collects the first todos of a sort order like {@link #firstK}; run in parallel, each thread keeps
+     * its own bounded heap and the heaps are merged at the end.
+     *
+     * @param comparator the sort order
+     * @param limit the number of todos to select
+     * @return a collector of the first {@code limit} todos in order
+     */
+    public static <T> Collector<T, ?, List<T>> toFirstK(Comparator<T> comparator, int limit) {
+        return Collector.<T, PriorityQueue<T>, List<T>>of(
+                () -> new PriorityQueue<>(Math.max(limit, 1), comparator.reversed()),
+                (heap, todo) -> offer(heap, todo, comparator, limit),
+                (heap, other) -> {
+                    for (T todo : other) {
+                        offer(heap, todo, comparator, limit);
+                    }
+                    return heap;
+                },
+                heap -> sorted(heap, comparator));
+    }
+
+    /**
+     * Adds a todo to a bounded max-heap if it belongs among the first {@code limit}.
+     */
+    private static <T> void offer(PriorityQueue<T> heap, T todo, Comparator<T> comparator, int limit) {
+        if (heap.size() < limit) {
+            heap.add(todo);
+        } else if (limit > 0 && comparator.compare(todo, heap.peek()) < 0) {
+            heap.poll();
+            heap.add(todo);
+        }
+    }
+
+    private static <T> List<T> sorted(PriorityQueue<T> heap, Comparator<T> comparator) {
+        List<T> result = new ArrayList<>(heap);
+        result.sort(comparator);
+        return result;
+    }
+
+    private static <T> Comparator<T> direction(Comparator<T> ascending, String direction) {
+        return Objects.equals(direction, "ASC") ? ascending : ascending.reversed();
+    }
+}
@@ -0,0 +1,485 @@
+package com.quarkbs.ToDoListApp.repository;
+
+import com.quarkbs.ToDoListApp.entity.Todo;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only write-ahead log of the saves and deletions applied to the in-memory repository.
+ * <p>
+ * Writers only serialize their record and queue it; a single writer thread appends queued records
+ * to the file. Depending on the durability mode:
+ * <ul>
+ *     <li>{@code SYNC}: every record is written and forced to disk on its own before its writer returns</li>
+ *     <li>{@code GROUP}: all records queued while the previous batch was being forced are written and
+ *     forced together, and their writers return once that single fsync completes</li>
+ *     <li>{@code ASYNC}: writers return immediately; the file is forced at most every second</li>
+ * </ul>
+ * Every record is framed as {@code [int length][byte type][payload][int crc32]}, so a torn record at
+ * the end of the file after a crash is detected and cut off on startup.
+ * <p>
+ * When a snapshot is taken the log is rotated: the current file is renamed to a numbered segment
+ * ({@code todo-wal.log.1}, {@code todo-wal.log.2}, ...) and a new file is started. Segments covered
+ * by a snapshot are deleted once the snapshot is on disk.
+ * <p>
+ * Once a write fails the writer thread stops: the failure is logged and reported by the health
+ * endpoint, and every later record is refused, so the repository rejects writes it could not log.
+ * Only created for the in-memory backend, so no writer thread runs for the other backends.
+ */
+@Component
+@ConditionalOnExpression("${todo.wal.enabled:false} and '${todo.repository.backend:memory}' == 'memory'")
+public class TodoWriteAheadLog implements HealthIndicator {
+    private static final Logger LOG = LoggerFactory.getLogger(TodoWriteAheadLog.class);
+
+    /**
+     * Durability guaranteed to a writer when its save or deletion returns.
+     */
+    public enum Durability { SYNC, GROUP, ASYNC }
+
+    private static final byte SAVE = 1;
+    private static final byte DELETE = 2;
+    private static final long ASYNC_FORCE_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final Path path;
+    private final Durability durability;
+
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final ReentrantLock durableLock = new ReentrantLock();
+    private final Condition durableAdvanced = durableLock.newCondition();
+
+    private FileChannel channel;
+    private Thread writer;
+    private long validLength;
+    private long lastSequence;
+    private long lastSegment;
+    private volatile long durableSequence;
+    private volatile long rotatedSegment;
+    private volatile IOException failure;
+    private volatile boolean running;
+
+    public TodoWriteAheadLog(@Value("${todo.wal.path:data/todo-wal.log}") Path path,
+                             @Value("${todo.wal.durability:GROUP}") Durability durability) {
+        this.path = path;
+        this.durability = durability;
+    }
+
+    /**
+     * Opens the log for appending, cutting off a torn record at its end, and starts the writer thread.
+     *
+     * @throws IOException if the log cannot be opened
+     */
+    @PostConstruct
+    public void open() throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        lastSegment = segments().stream().mapToLong(Long::longValue).max().orElse(0);
+        rotatedSegment = lastSegment;
+        validLength = scan(path, Long.MAX_VALUE, null);
+        channel.truncate(validLength);
+        channel.position(validLength);
+        running = true;
+        writer = new Thread(this::writeLoop, "todo-wal-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Replays every complete record of the log in order.
+     *
+     * @param saved receives each saved todo
+     * @param deleted receives the ID of each deleted todo
+     * @throws IOException if the log cannot be read
+     */
+    public void replay(Consumer<Todo> saved, Consumer<Long> deleted) throws IOException {
+        replay(0, saved, deleted);
+    }
+
+    /**
+     * Replays in order the complete records of the segments after a snapshot and of the current file.
+     *
+     * @param afterSegment the last segment covered by the snapshot, or 0 to replay every segment
+     * @param saved receives each saved todo
+     * @param deleted receives the ID of each deleted todo
+     * @throws IOException if the log cannot be read
+     */
+    public void replay(long afterSegment, Consumer<Todo> saved, Consumer<Long> deleted) throws IOException {
+        Replay replay = new Replay(saved, deleted);
+        for (long segment : segments()) {
+            if (segment > afterSegment) {
+                scan(segmentPath(segment), Long.MAX_VALUE, replay);
+            }
+        }
+        scan(path, validLength, replay);
+    }
+
+    /**
+     * Queues a save record.
+     * Called while the todo's map entry is locked, so records of the same todo are queued in write order.
+     *
+     * @param todo the saved todo
+     * @return the sequence number to pass to {@link #awaitDurable}
+     * @throws UncheckedIOException if the log has failed; nothing is queued
+     */
+    public long appendSave(Todo todo) {
+        byte[] text = TodoBinaryFormat.text(todo);
+        ByteBuffer record = frame(SAVE, TodoBinaryFormat.size(text));
+        TodoBinaryFormat.write(record, todo, text);
+        return enqueue(record);
+    }
+
+    /**
+     * Queues a deletion record.
+     *
+     * @param id the ID of the deleted todo
+     * @return the sequence number to pass to {@link #awaitDurable}
+     * @throws UncheckedIOException if the log has failed; nothing is queued
+     */
+    public long appendDelete(long id) {
+        ByteBuffer record = frame(DELETE, Long.BYTES);
+        record.putLong(id);
+        return enqueue(record);
+    }
+
+    /**
+     * Blocks until a record is as durable as the configured mode requires.
+     *
+     * @param sequence the sequence number returned when the record was queued
+     * @throws UncheckedIOException if the log could not be written
+     */
+    public void awaitDurable(long sequence) {
+        if (durability == Durability.ASYNC) {
+            return;
+        }
+        durableLock.lock();
+        try {
+            while (durableSequence < sequence && failure == null) {
+                durableAdvanced.awaitUninterruptibly();
+            }
+        } finally {
+            durableLock.unlock();
+        }
+        if (durableSequence < sequence) {
+            throw new UncheckedIOException("Write-ahead log failed", failure);
+        }
+    }
+
+    /**
+     * Queues a rotation of the log. Every record queued before it ends up in the returned segment,
+     * every record queued after it in the new file.
+     *
+     * @return the number of the segment the current file is renamed to
+     * @throws UncheckedIOException if the log has failed
+     */
+    public long rotate() {
+        appendLock.lock();
+        try {
+            checkWritable();
+            long segment = ++lastSegment;
+            queue.add(new Pending(++lastSequence, null, segment));
+            return segment;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Numbers the next segments after one a snapshot already covers.
+     * Segments covered by a snapshot are deleted, so after a restart the files alone may number new
+     * segments from 1 again; a recovery from that snapshot would then skip them as already covered.
+     * Called before the first rotation.
+     *
+     * @param segment the last segment covered by the loaded snapshot
+     */
+    public void continueAfter(long segment) {
+        appendLock.lock();
+        try {
+            if (segment > lastSegment) {
+                lastSegment = segment;
+                rotatedSegment = segment;
+            }
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Blocks until a queued rotation has been carried out, whatever the durability mode.
+     *
+     * @param segment the segment number returned by {@link #rotate()}
+     * @throws UncheckedIOException if the log could not be rotated
+     */
+    public void awaitRotation(long segment) {
+        durableLock.lock();
+        try {
+            while (rotatedSegment < segment && failure == null) {
+                durableAdvanced.awaitUninterruptibly();
+            }
+        } finally {
+            durableLock.unlock();
+        }
+        if (rotatedSegment < segment) {
+            throw new UncheckedIOException("Write-ahead log failed", failure);
+        }
+    }
+
+    /**
+     * Deletes the segments covered by a snapshot.
+     *
+     * @param upToSegment the last segment covered by the snapshot
+     * @throws IOException if a segment cannot be deleted
+     */
+    public void deleteSegments(long upToSegment) throws IOException {
+        for (long segment : segments()) {
+            if (segment <= upToSegment) {
+                Files.deleteIfExists(segmentPath(segment));
+            }
+        }
+    }
+
+    /**
+     * Writes the queued records, forces the log and stops the writer thread.
+     *
+     * @throws IOException if the log cannot be closed
+     */
+    @PreDestroy
+    public void close() throws IOException {
+        running = false;
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.force(false);
+        channel.close();
+    }
+
+    /**
+     * Reports the log as down once the writer thread has stopped on a failure.
+     *
+     * @return the health of the log
+     */
+    @Override
+    public Health health() {
+        IOException failed = failure;
+        return failed == null
+                ? Health.up().withDetail("durability", durability).build()
+                : Health.down(failed).build();
+    }
+
+    /**
+     * Refuses new records once the writer thread has stopped, so they are neither held in memory
+     * nor reported as written. Called under the append lock.
+     *
+     * @throws UncheckedIOException if the log has failed
+     */
+    private void checkWritable() {
+        if (failure != null) {
+            throw new UncheckedIOException("Write-ahead log failed", failure);
+        }
+    }
+
+    private ByteBuffer frame(byte type, int payloadSize) {
+        ByteBuffer record = ByteBuffer.allocate(Integer.BYTES + 1 + payloadSize + Integer.BYTES);
+        record.putInt(1 + payloadSize);
+        record.put(type);
+        return record;
+    }
+
+    private long enqueue(ByteBuffer record) {
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), Integer.BYTES, record.position() - Integer.BYTES);
+        record.putInt((int) crc.getValue());
+        record.flip();
+        appendLock.lock();
+        try {
+            checkWritable();
+            long sequence = ++lastSequence;
+            queue.add(new Pending(sequence, record, 0));
+            return sequence;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    private void writeLoop() {
+        List<Pending> batch = new ArrayList<>();
+        long lastForce = System.nanoTime();
+        boolean unforced = false;
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    if (durability != Durability.SYNC) {
+                        queue.drainTo(batch);
+                    }
+                    int from = 0;
+                    for (int i = 0; i < batch.size(); i++) {
+                        if (batch.get(i).record() == null) {
+                            write(batch.subList(from, i));
+                            rotate(batch.get(i).segment());
+                            from = i + 1;
+                        }
+                    }
+                    write(batch.subList(from, batch.size()));
+                    unforced = from < batch.size();
+                }
+                if (unforced && (durability != Durability.ASYNC || System.nanoTime() - lastForce > ASYNC_FORCE_INTERVAL_NANOS)) {
+                    channel.force(false);
+                    lastForce = System.nanoTime();
+                    unforced = false;
+                }
+                if (!batch.isEmpty()) {
+                    advance(batch.get(batch.size() - 1).sequence());
+                    batch.clear();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException e) {
+                LOG.error("Write-ahead log {} failed, refusing further writes", path, e);
+                failure = e;
+                advance(durableSequence);
+                return;
+            }
+        }
+    }
+
+    private void write(List<Pending> records) throws IOException {
+        if (records.isEmpty()) {
+            return;
+        }
+        ByteBuffer[] buffers = records.stream().map(Pending::record).toArray(ByteBuffer[]::new);
+        while (buffers[buffers.length - 1].hasRemaining()) {
+            channel.write(buffers);
+        }
+    }
+
+    /**
+     * Forces and renames the current file to a segment, then starts a new file.
+     */
+    private void rotate(long segment) throws IOException {
+        channel.force(false);
+        channel.close();
+        Files.move(path, segmentPath(segment), StandardCopyOption.ATOMIC_MOVE);
+        channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        durableLock.lock();
+        try {
+            rotatedSegment = segment;
+            durableAdvanced.signalAll();
+        } finally {
+            durableLock.unlock();
+        }
+    }
+
+    private Path segmentPath(long segment) {
+        return path.resolveSibling(path.getFileName() + "." + segment);
+    }
+
+    /**
+     * Lists the numbers of the rotated segments in ascending order.
+     */
+    private List<Long> segments() throws IOException {
+        Path directory = path.toAbsolutePath().getParent();
+        String prefix = path.getFileName() + ".";
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.startsWith(prefix) && name.substring(prefix.length()).matches("\\d+"))
+                    .map(name -> Long.parseLong(name.substring(prefix.length())))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private void advance(long sequence) {
+        durableLock.lock();
+        try {
+            durableSequence = sequence;
+            durableAdvanced.signalAll();
+        } finally {
+            durableLock.unlock();
+        }
+    }
+
+    /**
+     * Reads the records of a log file from the start, stopping at the first incomplete or corrupt one.
+     *
+     * @param file the current file or a segment
+     * @param maxLength the number of bytes to read at most
+     * @param replay receives the records, or null to only validate them
+     * @return the length of the valid part of the file
+     */
+    private long scan(Path file, long maxLength, Replay replay) throws IOException {
+        try (FileChannel reader = FileChannel.open(file, StandardOpenOption.READ)) {
+            long limit = Math.min(maxLength, reader.size());
+            ByteBuffer header = ByteBuffer.allocate(Integer.BYTES);
+            long position = 0;
+            while (position + Integer.BYTES <= limit) {
+                header.clear();
+                reader.read(header, position);
+                int length = header.flip().getInt();
+                if (length <= 0 || position + Integer.BYTES + length + Integer.BYTES > limit) {
+                    break;
+                }
+                ByteBuffer body = ByteBuffer.allocate(length + Integer.BYTES);
+                while (body.hasRemaining()) {
+                    reader.read(body, position + Integer.BYTES + body.position());
+                }
+                CRC32 crc = new CRC32();
+                crc.update(body.array(), 0, length);
+                if ((int) crc.getValue() != body.getInt(length)) {
+                    break;
+                }
+                if (replay != null) {
+                    body.position(0).limit(length);
+                    byte type = body.get();
+                    if (type == SAVE) {
+                        replay.saved().accept(TodoBinaryFormat.read(body));
+                    } else if (type == DELETE) {
+                        replay.deleted().accept(body.getLong());
+                    }
+                }
+                position += Integer.BYTES + length + Integer.BYTES;
+            }
+            return position;
+        }
+    }
+
+    /**
+     * A queued record, or a rotation into {@code segment} when {@code record} is null.
+     */
+    private record Pending(long sequence, ByteBuffer record, long segment) {
+    }
+
+    private record Replay(Consumer<Todo> saved, Consumer<Long> deleted) {
+    }
+}
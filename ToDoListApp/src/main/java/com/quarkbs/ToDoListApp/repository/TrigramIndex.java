@@ -0,0 +1,192 @@
+package com.quarkbs.ToDoListApp.repository;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Inverted index from the trigrams of the lowercased todo text to the IDs of the todos containing them.
+ * A substring query is answered by intersecting the posting lists of its trigrams, which yields a
+ * superset of the matching todos that still has to be verified against the actual text.
+ */
+public class TrigramIndex {
+    /**
+     * Length of the n-grams kept by the index.
+     */
+    static final int GRAM_LENGTH = 3;
+
+    /**
+     * Rough size in bytes of one map entry: the node, the boxed key and the posting list object.
+     */
+    private static final long ENTRY_OVERHEAD = 32 + 16 + 32;
+
+    private final ConcurrentHashMap<Long, PostingList> postings = new ConcurrentHashMap<>();
+
+    /**
+     * Normalizes text the same way for indexing and querying.
+     *
+     * @param text the text to normalize
+     * @return the lowercased text
+     */
+    public static String normalize(String text) {
+        return text.toLowerCase();
+    }
+
+    /**
+     * Indexes the text of a todo, replacing the text it was indexed with before.
+     * New trigrams are added before stale ones are removed, so concurrent searches keep finding the todo.
+     *
+     * @param id the ID of the todo
+     * @param previousText the text the todo was indexed with, or null if it was not indexed
+     * @param text the new text of the todo, or null to remove the todo from the index
+     */
+    public void update(long id, String previousText, String text) {
+        Set<Long> previousGrams = previousText == null ? Set.of() : grams(normalize(previousText));
+        Set<Long> grams = text == null ? Set.of() : grams(normalize(text));
+        for (Long gram : grams) {
+            if (!previousGrams.contains(gram)) {
+                postings.compute(gram, (key, list) -> {
+                    PostingList result = list == null ? new PostingList() : list;
+                    result.add(id);
+                    return result;
+                });
+            }
+        }
+        for (Long gram : previousGrams) {
+            if (!grams.contains(gram)) {
+                postings.computeIfPresent(gram, (key, list) -> list.remove(id) ? null : list);
+            }
+        }
+    }
+
+    /**
+     * Finds the IDs of the todos whose text may contain the query.
+     *
+     * @param query the normalized query
+     * @return the sorted candidate IDs, or null if the query is too short to use the index
+     */
+    public long[] candidates(String query) {
+        if (query.length() < GRAM_LENGTH) {
+            return null;
+        }
+        Set<Long> grams = grams(query);
+        PostingList[] lists = new PostingList[grams.size()];
+        int i = 0;
+        for (Long gram : grams) {
+            PostingList list = postings.get(gram);
+            if (list == null) {
+                return new long[0];
+            }
+            lists[i++] = list;
+        }
+        Arrays.sort(lists, (a, b) -> Integer.compare(a.size(), b.size()));
+
+        long[] result = lists[0].toArray();
+        for (int l = 1; l < lists.length && result.length > 0; l++) {
+            int kept = 0;
+            for (long id : result) {
+                if (lists[l].contains(id)) {
+                    result[kept++] = id;
+                }
+            }
+            result = Arrays.copyOf(result, kept);
+        }
+        return result;
+    }
+
+    /**
+     * Reports the number of distinct trigrams held by the index.
+     *
+     * @return the number of trigrams
+     */
+    public int trigramCount() {
+        return postings.size();
+    }
+
+    /**
+     * Reports the number of (trigram, todo) pairs held by the index.
+     *
+     * @return the number of postings
+     */
+    public long postingCount() {
+        return postings.values().stream().mapToLong(PostingList::size).sum();
+    }
+
+    /**
+     * Estimates the heap used by the index, including the spare capacity of the posting arrays.
+     *
+     * @return the estimated footprint in bytes
+     */
+    public long footprintBytes() {
+        return postings.values().stream().mapToLong(list -> ENTRY_OVERHEAD + 16 + 8L * list.capacity()).sum();
+    }
+
+    /**
+     * Splits normalized text into its distinct trigrams, each packed into a long.
+     *
+     * @param text the normalized text
+     * @return the distinct trigram codes
+     */
+    private static Set<Long> grams(String text) {
+        Set<Long> grams = new HashSet<>();
+        for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+            grams.add(((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2));
+        }
+        return grams;
+    }
+
+    /**
+     * Sorted array of todo IDs. Todos are created with increasing IDs, so most additions are appends.
+     * The monitor is held only for array operations, never across blocking calls, so it does not keep
+     * a virtual thread pinned to its carrier for longer than the copy itself.
+     */
+    private static final class PostingList {
+        private long[] ids = new long[4];
+        private int size;
+
+        synchronized void add(long id) {
+            int position = Arrays.binarySearch(ids, 0, size, id);
+            if (position >= 0) {
+                return;
+            }
+            position = -position - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size + (size >> 1) + 1);
+            }
+            System.arraycopy(ids, position, ids, position + 1, size - position);
+            ids[position] = id;
+            size++;
+        }
+
+        /**
+         * Removes an ID from the list.
+         *
+         * @return true if the list is empty afterwards
+         */
+        synchronized boolean remove(long id) {
+            int position = Arrays.binarySearch(ids, 0, size, id);
+            if (position >= 0) {
+                System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+                size--;
+            }
+            return size == 0;
+        }
+
+        synchronized boolean contains(long id) {
+            return Arrays.binarySearch(ids, 0, size, id) >= 0;
+        }
+
+        synchronized long[] toArray() {
+            return Arrays.copyOf(ids, size);
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        synchronized int capacity() {
+            return ids.length;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.quarkbs.ToDoListApp.service;
+
+import java.util.Arrays;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Timing wheel of todo IDs by epoch day.
+ * The wheel holds one slot for each of the {@value #SLOTS} days starting at its current day; IDs scheduled
+ * further ahead wait in an overflow map by day and move into the freed slot when their day comes within reach.
+ * Advancing the wheel only touches the slots of the days passed and the overflow days coming within reach,
+ * so its cost follows the number of IDs that fire, not the number scheduled.
+ * IDs are kept as primitives, eight bytes per scheduled ID. An ID may be scheduled more than once; the caller
+ * checks every fired ID against the current todo.
+ * The wheel is guarded by a {@link ReentrantLock} rather than a monitor, so request threads waiting for it
+ * do not pin their carrier when requests run on virtual threads.
+ */
+class DueDateWheel {
+    static final int SLOTS = 32;
+
+    private final Bucket[] slots = new Bucket[SLOTS];
+    private final TreeMap<Long, Bucket> overflow = new TreeMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * First day that has not fired yet.
+     */
+    private long current;
+    private long size;
+
+    /**
+     * Creates an empty wheel.
+     *
+     * @param startDay the first epoch day to fire
+     */
+    DueDateWheel(long startDay) {
+        current = startDay;
+    }
+
+    /**
+     * Schedules an ID to fire on a day.
+     *
+     * @param id the todo ID
+     * @param day the epoch day; days already fired are moved to the first day that has not
+     */
+    void schedule(long id, long day) {
+        lock.lock();
+        try {
+            long at = Math.max(day, current);
+            if (at - current < SLOTS) {
+                int slot = slot(at);
+                if (slots[slot] == null) {
+                    slots[slot] = new Bucket();
+                }
+                slots[slot].add(id);
+            } else {
+                overflow.computeIfAbsent(at, d -> new Bucket()).add(id);
+            }
+            size++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Fires every day up to and including a day.
+     *
+     * @param day the epoch day to advance to
+     * @return the IDs scheduled on the fired days, in no particular order and possibly repeated
+     */
+    long[] advance(long day) {
+        lock.lock();
+        try {
+            Bucket fired = new Bucket();
+            if (day - current >= SLOTS) {
+                for (int slot = 0; slot < SLOTS; slot++) {
+                    fired.addAll(slots[slot]);
+                    slots[slot] = null;
+                }
+                NavigableMap<Long, Bucket> passed = overflow.headMap(day, true);
+                passed.values().forEach(fired::addAll);
+                passed.clear();
+                current = day + 1;
+                NavigableMap<Long, Bucket> reachable = overflow.headMap(current + SLOTS, false);
+                reachable.forEach((reachableDay, bucket) -> slots[slot(reachableDay)] = bucket);
+                reachable.clear();
+            } else {
+                for (; current <= day; current++) {
+                    int slot = slot(current);
+                    fired.addAll(slots[slot]);
+                    slots[slot] = overflow.remove(current + SLOTS);
+                }
+            }
+            size -= fired.size;
+            return Arrays.copyOf(fired.ids, fired.size);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Counts the scheduled IDs, repeats included.
+     *
+     * @return the number of IDs waiting to fire
+     */
+    long size() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static int slot(long day) {
+        return Math.floorMod(day, SLOTS);
+    }
+
+    /**
+     * Growable array of IDs.
+     */
+    private static final class Bucket {
+        private long[] ids = new long[4];
+        private int size;
+
+        void add(long id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+
+        void addAll(Bucket other) {
+            if (other == null) {
+                return;
+            }
+            if (size + other.size > ids.length) {
+                ids = Arrays.copyOf(ids, Math.max(size + other.size, size * 2));
+            }
+            System.arraycopy(other.ids, 0, ids, size, other.size);
+            size += other.size;
+        }
+    }
+}
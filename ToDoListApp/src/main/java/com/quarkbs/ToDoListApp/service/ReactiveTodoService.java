@@ -0,0 +1,150 @@
+package com.quarkbs.ToDoListApp.service;
+
+import com.quarkbs.ToDoListApp.dto.TodoDTO;
+import com.quarkbs.ToDoListApp.entity.Todo;
+import com.quarkbs.ToDoListApp.entity.TodoMetrics;
+import com.quarkbs.ToDoListApp.exception.TodoNotFoundException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+/**
+ * Non-blocking facade over {@link TodoService}.
+ * Store calls can block, on the write-ahead log or on the database, so each one runs on the bounded
+ * elastic scheduler and never on the thread that subscribes.
+ */
+@Service
+public class ReactiveTodoService {
+    @Autowired
+    private TodoService todoService;
+
+    private final Scheduler scheduler = Schedulers.boundedElastic();
+
+    /**
+     * Retrieves a paginated list of todos with optional filters.
+     *
+     * @param pageable the pagination information
+     * @param status the status filter (optional)
+     * @param text the text filter (optional)
+     * @param priority the priority filter (optional)
+     * @param sortBy the field to sort by
+     * @param directionPriority the sort direction for priority
+     * @param directionDueDate the sort direction for due date
+     * @return a Mono of the map containing the paginated list of todos and additional metadata
+     */
+    public Mono<Map<String, Object>> getAllTodos(PageRequest pageable, Boolean status, String text, Integer priority, String sortBy, String directionPriority, String directionDueDate) {
+        return offload(() -> todoService.getAllTodos(pageable, status, text, priority, sortBy, directionPriority, directionDueDate));
+    }
+
+    /**
+     * Retrieves the todos following a keyset cursor.
+     *
+     * @param cursor the cursor returned with the previous page, or empty for the first page
+     * @param size the page size
+     * @param status the status filter (optional)
+     * @param text the text filter (optional)
+     * @param priority the priority filter (optional)
+     * @param sortBy the field to sort by
+     * @param directionPriority the sort direction for priority
+     * @param directionDueDate the sort direction for due date
+     * @return a Mono of the map containing the todos, the total and the cursor of the next page
+     */
+    public Mono<Map<String, Object>> getTodosByCursor(String cursor, int size, Boolean status, String text, Integer priority, String sortBy, String directionPriority, String directionDueDate) {
+        return offload(() -> todoService.getTodosByCursor(cursor, size, status, text, priority, sortBy, directionPriority, directionDueDate));
+    }
+
+    /**
+     * Streams every todo matching the filters in sort order.
+     * The listing is walked with keyset cursors one chunk at a time and chunks are fetched as the
+     * subscriber asks for todos, reading at most one chunk ahead, so a slow client holds back the reads.
+     *
+     * @param chunkSize the number of todos fetched per store call
+     * @param status the status filter (optional)
+     * @param text the text filter (optional)
+     * @param priority the priority filter (optional)
+     * @param sortBy the field to sort by
+     * @param directionPriority the sort direction for priority
+     * @param directionDueDate the sort direction for due date
+     * @return a Flux of the matching todos
+     */
+    public Flux<Todo> streamTodos(int chunkSize, Boolean status, String text, Integer priority, String sortBy, String directionPriority, String directionDueDate) {
+        return Flux.<List<Todo>, String>generate(() -> "", (cursor, sink) -> {
+                    Map<String, Object> page = todoService.getTodosByCursor(cursor, chunkSize, status, text, priority, sortBy, directionPriority, directionDueDate);
+                    sink.next(todos(page));
+                    String nextCursor = (String) page.get("nextCursor");
+                    if (nextCursor == null) {
+                        sink.complete();
+                    }
+                    return nextCursor == null ? "" : nextCursor;
+                })
+                .subscribeOn(scheduler)
+                .concatMapIterable(todos -> todos, 1);
+    }
+
+    /**
+     * Creates a new todo.
+     *
+     * @param todoDTO the todo to create
+     * @return a Mono of the created todo
+     */
+    public Mono<Todo> addTodo(TodoDTO todoDTO) {
+        return offload(() -> todoService.addTodo(todoDTO));
+    }
+
+    /**
+     * Updates an existing todo.
+     *
+     * @param id the ID of the todo to update
+     * @param todoDTO the updated todo data
+     * @return a Mono of the updated todo, failing with {@link TodoNotFoundException} if the todo is not found
+     */
+    public Mono<Todo> updateTodo(Long id, TodoDTO todoDTO) {
+        return offload(() -> todoService.updateTodo(id, todoDTO));
+    }
+
+    /**
+     * Marks a todo as done.
+     *
+     * @param id the ID of the todo to mark as done
+     * @return a Mono of the updated todo, failing with {@link TodoNotFoundException} if the todo is not found
+     */
+    public Mono<Todo> markDone(Long id) {
+        return offload(() -> todoService.markDone(id));
+    }
+
+    /**
+     * Marks a todo as undone.
+     *
+     * @param id the ID of the todo to mark as undone
+     * @return a Mono of the updated todo, failing with {@link TodoNotFoundException} if the todo is not found
+     */
+    public Mono<Todo> markUndone(Long id) {
+        return offload(() -> todoService.markUndone(id));
+    }
+
+    /**
+     * Retrieves todo metrics.
+     *
+     * @return a Mono of the todo metrics
+     */
+    public Mono<TodoMetrics> getMetrics() {
+        return offload(todoService::getMetrics);
+    }
+
+    private <T> Mono<T> offload(Callable<T> call) {
+        return Mono.fromCallable(call).subscribeOn(scheduler);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Todo> todos(Map<String, Object> page) {
+        return (List<Todo>) page.get("todosList");
+    }
+}
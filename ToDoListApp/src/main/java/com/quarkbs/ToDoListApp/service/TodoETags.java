@@ -0,0 +1,90 @@
+package com.quarkbs.ToDoListApp.service;
+
+import com.quarkbs.ToDoListApp.entity.Todo;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Entity tags of the todo API, for conditional requests.
+ * A todo is tagged with a digest of its stored fields, so its tag changes with every change of the todo
+ * and is the same on every backend and instance. A list or metrics result is tagged with the repository
+ * version it was read at and a digest of the parameters that selected it.
+ */
+public final class TodoETags {
+    private static final Pattern ENTITY_TAG = Pattern.compile("(W/)?(\"[^\"]*\")");
+    private static final HexFormat HEX = HexFormat.of();
+
+    private TodoETags() {
+    }
+
+    /**
+     * Builds the tag of a todo.
+     *
+     * @param todo the stored todo
+     * @return a strong entity tag, quoted
+     */
+    public static String of(Todo todo) {
+        return quote(digest(todo.getId() + "\0" + todo.getText() + "\0" + todo.getStatus() + "\0" + todo.getDueDate()
+                + "\0" + todo.getPriority() + "\0" + todo.getCreationDate() + "\0" + todo.getDoneDate()));
+    }
+
+    /**
+     * Builds the tag of a read result.
+     *
+     * @param instance distinguishes the versions of this application instance from those of other instances and runs
+     * @param version the repository version the result was read at, or later
+     * @param parameters the resource and the parameters that select the result
+     * @return a strong entity tag, quoted
+     */
+    static String of(String instance, long version, Object... parameters) {
+        return quote(instance + "-" + version + "-" + digest(Arrays.deepToString(parameters)));
+    }
+
+    /**
+     * Compares a tag to the list of an If-Match or If-None-Match header.
+     * If-Match uses the strong comparison, under which weak tags never match; If-None-Match uses the
+     * weak comparison, which ignores the weak prefix.
+     *
+     * @param header the header value, {@code *} or a comma-separated list of entity tags
+     * @param tag the current tag, quoted
+     * @param weak whether to use the weak comparison
+     * @return true if the header is {@code *} or lists the tag
+     */
+    public static boolean matches(String header, String tag, boolean weak) {
+        if (header.trim().equals("*")) {
+            return true;
+        }
+        Matcher matcher = ENTITY_TAG.matcher(header);
+        while (matcher.find()) {
+            if ((weak || matcher.group(1) == null) && matcher.group(2).equals(tag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String quote(String value) {
+        return "\"" + value + "\"";
+    }
+
+    /**
+     * Digests a string to 64 bits of SHA-256, as hex.
+     *
+     * @param value the string to digest
+     * @return 16 hex digits
+     */
+    private static String digest(String value) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            return HEX.formatHex(hash, 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.quarkbs.ToDoListApp.service;
+
+/**
+ * Format of a todo import body.
+ */
+public enum TodoImportFormat {
+    /**
+     * One JSON todo object per line.
+     */
+    NDJSON,
+    /**
+     * Comma-separated values with a header line naming the text and dueDate columns.
+     */
+    CSV
+}
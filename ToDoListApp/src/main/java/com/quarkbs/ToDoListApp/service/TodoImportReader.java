@@ -0,0 +1,207 @@
+package com.quarkbs.ToDoListApp.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.quarkbs.ToDoListApp.dto.TodoDTO;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Reads the todos of an import one line at a time.
+ * NDJSON input holds one todo object per line; CSV input starts with a header naming the
+ * {@code text} and {@code dueDate} columns, in any order and among other ignored columns.
+ * Only the current line is held in memory and lines longer than the limit are skipped, so a
+ * body of any size is read with the same memory.
+ */
+class TodoImportReader {
+    /**
+     * One line of the input.
+     *
+     * @param line the line number, starting at 1
+     * @param todo the todo read from the line, when it could be read
+     * @param error the reason the line could not be read, when it could not
+     */
+    record Line(long line, TodoDTO todo, String error) {
+    }
+
+    private final BufferedReader reader;
+    private final TodoImportFormat format;
+    private final ObjectReader jsonReader;
+    private final int maxLineLength;
+    private final StringBuilder buffer = new StringBuilder();
+
+    private long lineNumber;
+    private boolean tooLong;
+    private boolean finished;
+    private int textColumn = -1;
+    private int dueDateColumn = -1;
+
+    TodoImportReader(InputStream inputStream, TodoImportFormat format, ObjectReader jsonReader, int maxLineLength) {
+        this.reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+        this.format = format;
+        this.jsonReader = jsonReader.forType(TodoDTO.class);
+        this.maxLineLength = maxLineLength;
+    }
+
+    /**
+     * Reads the next non-blank line. A CSV header without the text and due date columns is
+     * reported as an error of its line and ends the input.
+     *
+     * @return the line, or null at the end of the input
+     * @throws IOException if the input cannot be read
+     */
+    Line next() throws IOException {
+        while (!finished && readLine()) {
+            if (tooLong) {
+                return new Line(lineNumber, null, "Line longer than " + maxLineLength + " characters");
+            }
+            String text = buffer.toString();
+            if (text.isBlank()) {
+                continue;
+            }
+            if (format == TodoImportFormat.NDJSON) {
+                return readJson(text);
+            }
+            if (textColumn >= 0) {
+                return readCsv(text);
+            }
+            String error = readHeader(text);
+            if (error != null) {
+                finished = true;
+                return new Line(lineNumber, null, error);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Reads the next line into the buffer, without its line terminator.
+     * Characters past the length limit are dropped and flag the line as too long.
+     *
+     * @return false at the end of the input
+     * @throws IOException if the input cannot be read
+     */
+    private boolean readLine() throws IOException {
+        buffer.setLength(0);
+        tooLong = false;
+        int c = reader.read();
+        if (c == -1) {
+            return false;
+        }
+        lineNumber++;
+        while (c != -1 && c != '\n') {
+            if (buffer.length() < maxLineLength) {
+                buffer.append((char) c);
+            } else {
+                tooLong = true;
+            }
+            c = reader.read();
+        }
+        if (!buffer.isEmpty() && buffer.charAt(buffer.length() - 1) == '\r') {
+            buffer.setLength(buffer.length() - 1);
+        }
+        return true;
+    }
+
+    private Line readJson(String text) {
+        try {
+            TodoDTO todo = jsonReader.readValue(text);
+            return todo == null ? new Line(lineNumber, null, "Not a todo") : new Line(lineNumber, todo, null);
+        } catch (JsonProcessingException e) {
+            return new Line(lineNumber, null, "Invalid JSON: " + e.getOriginalMessage());
+        }
+    }
+
+    /**
+     * Finds the text and due date columns in the CSV header.
+     *
+     * @param text the header line
+     * @return the reason the header is unusable, or null if it is usable
+     */
+    private String readHeader(String text) {
+        List<String> columns = splitCsv(text);
+        if (columns == null) {
+            return "Unterminated quoted field";
+        }
+        for (int i = 0; i < columns.size(); i++) {
+            String column = columns.get(i).replace("\uFEFF", "").trim().toLowerCase(Locale.ROOT);
+            if (column.equals("text")) {
+                textColumn = i;
+            } else if (column.equals("duedate")) {
+                dueDateColumn = i;
+            }
+        }
+        if (textColumn < 0 || dueDateColumn < 0) {
+            textColumn = -1;
+            return "The CSV header must name the text and dueDate columns";
+        }
+        return null;
+    }
+
+    private Line readCsv(String text) {
+        List<String> fields = splitCsv(text);
+        if (fields == null) {
+            return new Line(lineNumber, null, "Unterminated quoted field");
+        }
+        if (fields.size() <= Math.max(textColumn, dueDateColumn)) {
+            return new Line(lineNumber, null, "Expected at least " + (Math.max(textColumn, dueDateColumn) + 1) + " fields");
+        }
+        TodoDTO todo = new TodoDTO();
+        todo.setText(fields.get(textColumn));
+        String dueDate = fields.get(dueDateColumn).trim();
+        if (!dueDate.isEmpty()) {
+            try {
+                todo.setDueDate(LocalDate.parse(dueDate));
+            } catch (DateTimeParseException e) {
+                return new Line(lineNumber, null, "Invalid due date: " + dueDate);
+            }
+        }
+        return new Line(lineNumber, todo, null);
+    }
+
+    /**
+     * Splits a CSV line into its fields. Fields may be quoted, with doubled quotes inside them.
+     *
+     * @param text the line
+     * @return the fields, or null if a quoted field is not closed
+     */
+    private static List<String> splitCsv(String text) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < text.length() && text.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            return null;
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
@@ -0,0 +1,173 @@
+package com.quarkbs.ToDoListApp.service;
+
+import com.quarkbs.ToDoListApp.entity.Todo;
+import com.quarkbs.ToDoListApp.repository.TodoRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the priorities of open todos current as their due dates come closer.
+ * The priority of a todo only changes when the days left until its due date drop to 14 and to 7, so every
+ * open todo with a due date is scheduled in a {@link DueDateWheel} on the day of its next change. Each day
+ * only the todos scheduled on that day are read. Those whose priority changed are promoted through the
+ * repository's atomic update, which recomputes the priority from the todo as stored at that moment, so a
+ * user's change or deletion made since the read is neither overwritten nor undone.
+ * The wheel is filled by one scan on startup, which also promotes the todos whose day passed while the
+ * application was down.
+ */
+@Component
+public class TodoPriorityScheduler implements MeterBinder {
+    @Autowired
+    private TodoRepository todoRepository;
+
+    private final DueDateWheel wheel = new DueDateWheel(LocalDate.now().toEpochDay());
+    private final AtomicLong promotions = new AtomicLong();
+
+    /**
+     * Schedules every open todo of the repository and promotes those already due.
+     */
+    @PostConstruct
+    public void start() {
+        LocalDate today = LocalDate.now();
+        todoRepository.forEachMatching(null, null, null, todo -> track(todo, today));
+        promote(today);
+    }
+
+    /**
+     * Promotes the todos due today, once the day starts.
+     */
+    @Scheduled(cron = "${todo.priority.cron:0 0 0 * * *}")
+    public void promoteDue() {
+        promote(LocalDate.now());
+    }
+
+    /**
+     * Schedules a saved todo on the day its priority changes next.
+     * Done todos and todos without a due date are not scheduled.
+     *
+     * @param todo the saved todo, with its ID
+     */
+    public void track(Todo todo) {
+        track(todo, LocalDate.now());
+    }
+
+    /**
+     * Schedules saved todos on the day their priority changes next.
+     *
+     * @param todos the saved todos, with their IDs
+     */
+    public void trackAll(List<Todo> todos) {
+        LocalDate today = LocalDate.now();
+        for (Todo todo : todos) {
+            track(todo, today);
+        }
+    }
+
+    /**
+     * Updates the priority of the todos scheduled up to a day and schedules their next change.
+     * Todos that were deleted, done or given another due date since they were scheduled are skipped.
+     *
+     * @param today the day to evaluate the priorities on
+     * @return the number of todos whose priority changed
+     */
+    public int promote(LocalDate today) {
+        long[] ids = wheel.advance(today.toEpochDay());
+        Arrays.sort(ids);
+        int promoted = 0;
+        for (int i = 0; i < ids.length; i++) {
+            if (i > 0 && ids[i] == ids[i - 1]) {
+                continue;
+            }
+            Todo todo = todoRepository.findById(ids[i]).orElse(null);
+            if (todo != null && isTracked(todo) && TodoService.calculatePriority(todo.getDueDate(), today) != todo.getPriority()
+                    && promote(todo.getId(), today)) {
+                promoted++;
+            }
+        }
+        promotions.addAndGet(promoted);
+        return promoted;
+    }
+
+    /**
+     * Registers the number of scheduled todos and the promotion counter.
+     *
+     * @param registry the meter registry
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("todo.priority.scheduled", wheel, DueDateWheel::size)
+                .description("Todos waiting for their next priority change")
+                .register(registry);
+        FunctionCounter.builder("todo.priority.promotions", promotions, AtomicLong::get)
+                .description("Todos whose priority was raised as their due date came closer")
+                .register(registry);
+    }
+
+    /**
+     * Recomputes the priority of a todo in one atomic step with the repository, from its stored state,
+     * and schedules its next change.
+     *
+     * @param id the ID of the todo
+     * @param today the day to evaluate the priority on
+     * @return true if the priority changed
+     */
+    private boolean promote(Long id, LocalDate today) {
+        boolean[] changed = {false};
+        todoRepository.update(id, todo -> {
+            if (isTracked(todo)) {
+                int priority = TodoService.calculatePriority(todo.getDueDate(), today);
+                changed[0] = priority != todo.getPriority();
+                todo.setPriority(priority);
+            }
+        }).ifPresent(todo -> track(todo, today));
+        return changed[0];
+    }
+
+    private void track(Todo todo, LocalDate today) {
+        if (todo.getId() == null || !isTracked(todo)) {
+            return;
+        }
+        LocalDate nextChange = nextChange(todo.getDueDate(), todo.getPriority(), today);
+        if (nextChange != null) {
+            wheel.schedule(todo.getId(), nextChange.toEpochDay());
+        }
+    }
+
+    private static boolean isTracked(Todo todo) {
+        return !Boolean.TRUE.equals(todo.getStatus()) && todo.getDueDate() != null;
+    }
+
+    /**
+     * Finds the day the priority of an open todo changes next.
+     *
+     * @param dueDate the due date of the todo
+     * @param priority the current priority of the todo
+     * @param today the current day
+     * @return today if the priority is already out of date, the next day it changes, or null if it no longer changes
+     */
+    static LocalDate nextChange(LocalDate dueDate, int priority, LocalDate today) {
+        if (priority != TodoService.calculatePriority(dueDate, today)) {
+            return today;
+        }
+        long days = today.until(dueDate, ChronoUnit.DAYS);
+        if (days > 14) {
+            return dueDate.minusDays(14);
+        }
+        if (days > 7) {
+            return dueDate.minusDays(7);
+        }
+        return null;
+    }
+}
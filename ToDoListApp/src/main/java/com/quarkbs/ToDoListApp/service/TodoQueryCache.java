@@ -0,0 +1,133 @@
+package com.quarkbs.ToDoListApp.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Size-bounded LRU cache of list results.
+ * Each entry remembers the repository version it was computed at and only serves lookups
+ * made at that same version, so any write invalidates every cached result.
+ * The LRU map is guarded by a {@link ReentrantLock} rather than a monitor, so request threads waiting
+ * for it do not pin their carrier when requests run on virtual threads.
+ * Its size and counters are also reported to the meter registry.
+ */
+@Component
+public class TodoQueryCache implements MeterBinder {
+    @Value("${todo.cache.max-entries:256}")
+    private int maxEntries = 256;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final LinkedHashMap<QueryKey, Entry> entries = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<QueryKey, Entry> eldest) {
+            if (size() > maxEntries) {
+                evictions.incrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    };
+
+    /**
+     * Returns the cached result of a query, computing and caching it on a miss.
+     *
+     * @param key the normalized query
+     * @param version the current repository version
+     * @param loader computes the result on a miss
+     * @return the result of the query
+     */
+    public Map<String, Object> get(QueryKey key, long version, Supplier<Map<String, Object>> loader) {
+        lock.lock();
+        try {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.version == version) {
+                hits.incrementAndGet();
+                return entry.result;
+            }
+        } finally {
+            lock.unlock();
+        }
+        misses.incrementAndGet();
+        Map<String, Object> result = loader.get();
+        if (maxEntries > 0) {
+            lock.lock();
+            try {
+                entries.put(key, new Entry(version, result));
+            } finally {
+                lock.unlock();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Reports the cache counters.
+     *
+     * @return a map containing the hits, misses, evictions, current size and maximum size
+     */
+    public Map<String, Long> getStats() {
+        return Map.of(
+                "hits", hits.get(),
+                "misses", misses.get(),
+                "evictions", evictions.get(),
+                "size", (long) size(),
+                "maxEntries", (long) maxEntries
+        );
+    }
+
+    /**
+     * Registers the size and the hit, miss and eviction counters of the cache.
+     *
+     * @param registry the meter registry
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("todo.cache.size", this, TodoQueryCache::size)
+                .description("Number of cached list results")
+                .register(registry);
+        FunctionCounter.builder("todo.cache.requests", hits, AtomicLong::get)
+                .description("Lookups in the list result cache")
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("todo.cache.requests", misses, AtomicLong::get)
+                .description("Lookups in the list result cache")
+                .tag("result", "miss")
+                .register(registry);
+        FunctionCounter.builder("todo.cache.evictions", evictions, AtomicLong::get)
+                .description("Results evicted from the list result cache")
+                .register(registry);
+    }
+
+    private int size() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Normalized list query. Equal keys always produce the same result at the same repository version.
+     */
+    public record QueryKey(int page, int size, Boolean status, String text, Integer priority, String sortBy, String directionPriority, String directionDueDate) {
+    }
+
+    private record Entry(long version, Map<String, Object> result) {
+    }
+}
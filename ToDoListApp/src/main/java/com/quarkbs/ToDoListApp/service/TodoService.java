@@ -1,30 +1,109 @@
 package com.quarkbs.ToDoListApp.service;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.quarkbs.ToDoListApp.dto.TodoBatchOperation;
+import com.quarkbs.ToDoListApp.dto.TodoBatchResult;
 import com.quarkbs.ToDoListApp.dto.TodoDTO;
+import com.quarkbs.ToDoListApp.dto.TodoImportEvent;
 import com.quarkbs.ToDoListApp.entity.Todo;
 import com.quarkbs.ToDoListApp.entity.TodoMetrics;
+import com.quarkbs.ToDoListApp.exception.BatchTooLargeException;
+import com.quarkbs.ToDoListApp.exception.InvalidTodoException;
+import com.quarkbs.ToDoListApp.exception.PreconditionFailedException;
 import com.quarkbs.ToDoListApp.exception.TodoNotFoundException;
+import com.quarkbs.ToDoListApp.exception.TooManyImportsException;
 import com.quarkbs.ToDoListApp.repository.TodoRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 /**
  * Service class for managing Todo entities.
+ * Bound to a meter registry, it times the todo operations as {@code todo.service}, tagged with the method name.
  */
 @Service
-public class TodoService {
+public class TodoService implements MeterBinder {
+    private static final Set<String> CURSOR_SORTS = Set.of("priority", "dueDate", "priorityDueDate", "creationDate");
+    private static final Set<String> USES_DIRECTION_PRIORITY = Set.of("priority", "priorityDueDate", "creationDate");
+    private static final Set<String> USES_DIRECTION_DUE_DATE = Set.of("dueDate", "priorityDueDate");
+    private static final List<String> TIMED_OPERATIONS = List.of("getAllTodos", "getTodosByCursor", "addTodo", "updateTodo",
+            "markDone", "markUndone", "applyBatch", "getMetrics");
+
     @Autowired
     private TodoRepository todoRepository;
 
+    @Autowired
+    private TodoQueryCache queryCache;
+
+    @Autowired
+    private TodoPriorityScheduler priorityScheduler;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${todo.batch.max-size:1000}")
+    private int maxBatchSize = 1000;
+
+    @Value("${todo.import.batch-size:500}")
+    private int importBatchSize = 500;
+
+    @Value("${todo.import.max-concurrent:2}")
+    private int maxConcurrentImports = 2;
+
+    @Value("${todo.import.max-line-length:65536}")
+    private int maxImportLineLength = 65536;
+
+    private final AtomicInteger runningImports = new AtomicInteger();
+
+    /**
+     * Prefix of the read tags: versions restart at 0 with the application and each instance counts its own,
+     * so a tag handed out by another run or instance never matches one of this one.
+     */
+    private final String instance = HexFormat.of().toHexDigits(ThreadLocalRandom.current().nextInt());
+
+    /**
+     * Timers of the timed operations by method name, empty until the service is bound to a meter registry.
+     * Exports and imports are not timed here: they last as long as the client takes to read or send the
+     * body, which the request timers already show.
+     */
+    private volatile Map<String, Timer> timers = Map.of();
+
     /**
      * Retrieves a paginated list of todos with optional filters.
+     * Results are served from the query cache while the repository has not changed.
      *
      * @param pageable the pagination information
      * @param status the status filter (optional)
@@ -36,24 +115,199 @@ public class TodoService {
      * @return a map containing the paginated list of todos and additional metadata
      */
     public Map<String, Object> getAllTodos(PageRequest pageable, Boolean status, String text, Integer priority, String sortBy, String directionPriority, String directionDueDate) {
-        directionPriority = directionPriority.toUpperCase();
-        directionDueDate = directionDueDate.toUpperCase();
-        return todoRepository.findByFilter(pageable, status, text, priority, sortBy, directionPriority, directionDueDate);
+        long start = System.nanoTime();
+        try {
+            String upperDirectionPriority = directionPriority.toUpperCase();
+            String upperDirectionDueDate = directionDueDate.toUpperCase();
+            TodoQueryCache.QueryKey key = new TodoQueryCache.QueryKey(pageable.getPageNumber(), pageable.getPageSize(), status,
+                    text == null || text.isEmpty() ? null : text.toLowerCase(), priority, sortBy,
+                    USES_DIRECTION_PRIORITY.contains(sortBy) ? upperDirectionPriority : null,
+                    USES_DIRECTION_DUE_DATE.contains(sortBy) ? upperDirectionDueDate : null);
+            return queryCache.get(key, todoRepository.getVersion(),
+                    () -> todoRepository.findByFilter(pageable, status, text, priority, sortBy, upperDirectionPriority, upperDirectionDueDate));
+        } finally {
+            record("getAllTodos", start);
+        }
+    }
+
+    /**
+     * Builds the entity tag of a read result at the current repository version.
+     * The tag has to be taken before the read: the result is then at least as new as the version in the tag,
+     * and the tag matches again only while the version has not moved, that is while the result is current.
+     *
+     * @param parameters the resource and the parameters that select the result
+     * @return a strong entity tag, quoted
+     */
+    public String getReadETag(Object... parameters) {
+        return TodoETags.of(instance, todoRepository.getVersion(), parameters);
+    }
+
+    /**
+     * Reports the counters of the list result cache.
+     *
+     * @return a map containing the hits, misses, evictions, current size and maximum size of the cache
+     */
+    public Map<String, Long> getCacheStats() {
+        return queryCache.getStats();
+    }
+
+    /**
+     * Retrieves the todos following a keyset cursor.
+     * Listings without a known sort order are walked in creation date order.
+     *
+     * @param cursor the cursor returned with the previous page, or empty for the first page
+     * @param size the page size
+     * @param status the status filter (optional)
+     * @param text the text filter (optional)
+     * @param priority the priority filter (optional)
+     * @param sortBy the field to sort by
+     * @param directionPriority the sort direction for priority
+     * @param directionDueDate the sort direction for due date
+     * @return a map containing the todos, the total and the cursor of the next page
+     */
+    public Map<String, Object> getTodosByCursor(String cursor, int size, Boolean status, String text, Integer priority, String sortBy, String directionPriority, String directionDueDate) {
+        long start = System.nanoTime();
+        try {
+            directionPriority = directionPriority.toUpperCase();
+            directionDueDate = directionDueDate.toUpperCase();
+            if (!CURSOR_SORTS.contains(sortBy)) {
+                sortBy = "creationDate";
+            }
+            return todoRepository.findByCursor(cursor, Math.max(size, 1), status, text, priority, sortBy, directionPriority, directionDueDate);
+        } finally {
+            record("getTodosByCursor", start);
+        }
+    }
+
+    /**
+     * Writes the todos matching the filters to a stream as newline-delimited JSON.
+     * Each todo is serialized as the repository hands it over and only the JSON generator's buffer
+     * is held, so the memory used does not depend on how many todos are exported.
+     *
+     * @param status the status filter (optional)
+     * @param text the text filter (optional)
+     * @param priority the priority filter (optional)
+     * @param outputStream the stream to write to; it is flushed but not closed
+     * @throws IOException if writing to the stream fails
+     */
+    public void exportTodos(Boolean status, String text, Integer priority, OutputStream outputStream) throws IOException {
+        ObjectWriter writer = objectMapper.writerFor(Todo.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .withRootValueSeparator((String) null);
+        JsonGenerator generator = writer.createGenerator(outputStream);
+        try {
+            todoRepository.forEachMatching(status, text, priority, todo -> {
+                try {
+                    writer.writeValue(generator, todo);
+                    generator.writeRaw('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        generator.flush();
+    }
+
+    /**
+     * Imports todos from a stream of NDJSON or CSV lines, reporting progress to another stream.
+     * Lines are parsed as they arrive and the accepted todos, prepared like {@link #addTodo}, are
+     * written in batches of bounded size; the next lines are only read once a batch is stored, so a
+     * slow store slows down the upload instead of filling the heap. Rejected lines are reported as
+     * error events, a progress event follows every batch and a done event ends the report. At most
+     * {@code todo.import.max-concurrent} imports run at once, leaving the other request threads and
+     * the store to the rest of the API.
+     *
+     * @param inputStream the import body
+     * @param format the format of the import body
+     * @param outputStream receives the progress report as newline-delimited JSON; it is flushed after every batch
+     * @throws IOException if the body cannot be read or the report cannot be written
+     * @throws TooManyImportsException if the maximum number of imports is already running
+     */
+    public void importTodos(InputStream inputStream, TodoImportFormat format, OutputStream outputStream) throws IOException {
+        if (runningImports.incrementAndGet() > maxConcurrentImports) {
+            runningImports.decrementAndGet();
+            throw new TooManyImportsException("At most " + maxConcurrentImports + " imports can run at once");
+        }
+        try {
+            TodoImportReader reader = new TodoImportReader(inputStream, format, objectMapper.reader(), maxImportLineLength);
+            ObjectWriter writer = objectMapper.writerFor(TodoImportEvent.class)
+                    .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                    .withRootValueSeparator((String) null);
+            JsonGenerator generator = writer.createGenerator(outputStream);
+            List<Todo> batch = new ArrayList<>(importBatchSize);
+            long imported = 0;
+            long failed = 0;
+            long lastLine = 0;
+            TodoImportReader.Line line;
+            while ((line = reader.next()) != null) {
+                lastLine = line.line();
+                String error = line.error();
+                if (error == null) {
+                    Todo todo = newTodo(line.todo());
+                    error = validate(todo);
+                    if (error == null) {
+                        batch.add(todo);
+                    }
+                }
+                if (error != null) {
+                    failed++;
+                    writeEvent(writer, generator, TodoImportEvent.error(lastLine, error));
+                }
+                if (batch.size() == importBatchSize) {
+                    priorityScheduler.trackAll(todoRepository.saveAll(batch));
+                    imported += batch.size();
+                    batch.clear();
+                    writeEvent(writer, generator, TodoImportEvent.progress(lastLine, imported, failed));
+                    generator.flush();
+                }
+            }
+            if (!batch.isEmpty()) {
+                priorityScheduler.trackAll(todoRepository.saveAll(batch));
+                imported += batch.size();
+            }
+            writeEvent(writer, generator, TodoImportEvent.done(lastLine, imported, failed));
+            generator.flush();
+        } finally {
+            runningImports.decrementAndGet();
+        }
+    }
+
+    private static void writeEvent(ObjectWriter writer, JsonGenerator generator, TodoImportEvent event) throws IOException {
+        writer.writeValue(generator, event);
+        generator.writeRaw('\n');
     }
 
     /**
      * Creates a new todo.
      *
+     * Todos are validated here rather than by the store, so every backend rejects the same ones.
+     *
      * @param todoDTO the todo to create
      * @return the created todo
+     * @throws InvalidTodoException if the todo has no text or due date, or a priority out of range
      */
     public Todo addTodo(TodoDTO todoDTO) {
-        Todo todo = convertToEntity(todoDTO);
-        if (todo.getDueDate() != null) {
-            todo.setPriority(calculatePriority(todo.getDueDate()));
+        long start = System.nanoTime();
+        try {
+            Todo saved = todoRepository.save(checked(newTodo(todoDTO)));
+            priorityScheduler.track(saved);
+            return saved;
+        } finally {
+            record("addTodo", start);
         }
-        todo.setStatus(false);
-        return todoRepository.save(todo);
+    }
+
+    /**
+     * Retrieves a todo.
+     *
+     * @param id the ID of the todo
+     * @return the todo
+     * @throws TodoNotFoundException if the todo is not found
+     */
+    public Todo getTodo(Long id) {
+        return todoRepository.findById(id).orElseThrow(() -> new TodoNotFoundException("To Do not found"));
     }
 
     /**
@@ -63,16 +317,49 @@ public class TodoService {
      * @param todoDTO the updated todo data
      * @return the updated todo
      * @throws TodoNotFoundException if the todo is not found
+     * @throws InvalidTodoException if the updated todo has no text or due date
      */
     public Todo updateTodo(Long id, TodoDTO todoDTO) {
-        Todo existingTodo = todoRepository.findById(id)
-                .orElseThrow(() -> new TodoNotFoundException("To Do not found"));
-        existingTodo.setText(todoDTO.getText());
-        existingTodo.setDueDate(todoDTO.getDueDate());
-        existingTodo.setPriority(calculatePriority(todoDTO.getDueDate()));
-        existingTodo.setStatus(todoDTO.getStatus());
+        long start = System.nanoTime();
+        try {
+            Todo saved = updateExisting(id, todo -> {
+                applyUpdate(todo, todoDTO);
+                checked(todo);
+            });
+            priorityScheduler.track(saved);
+            return saved;
+        } finally {
+            record("updateTodo", start);
+        }
+    }
 
-        return todoRepository.save(existingTodo);
+    /**
+     * Updates an existing todo if it is still one of the versions a client read.
+     * The tags are compared and the todo changed in one atomic step for its ID.
+     *
+     * @param id the ID of the todo to update
+     * @param todoDTO the updated todo data
+     * @param ifMatch the If-Match header, or null to update unconditionally
+     * @return the updated todo
+     * @throws TodoNotFoundException if the todo is not found
+     * @throws PreconditionFailedException if the todo changed since it was read
+     * @throws InvalidTodoException if the updated todo has no text or due date
+     */
+    public Todo updateTodo(Long id, TodoDTO todoDTO, String ifMatch) {
+        if (ifMatch == null) {
+            return updateTodo(id, todoDTO);
+        }
+        long start = System.nanoTime();
+        try {
+            Todo saved = updateIfMatch(id, ifMatch, todo -> {
+                applyUpdate(todo, todoDTO);
+                checked(todo);
+            });
+            priorityScheduler.track(saved);
+            return saved;
+        } finally {
+            record("updateTodo", start);
+        }
     }
 
     /**
@@ -83,12 +370,33 @@ public class TodoService {
      * @throws TodoNotFoundException if the todo is not found
      */
     public Todo markDone(Long id) {
-        Todo todo = todoRepository.findById(id).orElseThrow(() -> new TodoNotFoundException("To Do not found"));
-        todo.setStatus(true);
-        todo.setDoneDate(LocalDateTime.now());
-        Long diffTime = ChronoUnit.SECONDS.between(todo.getCreationDate(), todo.getDoneDate());
-        todo.setElapsedTime(diffTime);
-        return todoRepository.save(todo);
+        long start = System.nanoTime();
+        try {
+            return updateExisting(id, this::applyDone);
+        } finally {
+            record("markDone", start);
+        }
+    }
+
+    /**
+     * Marks a todo as done if it is still one of the versions a client read.
+     *
+     * @param id the ID of the todo to mark as done
+     * @param ifMatch the If-Match header, or null to update unconditionally
+     * @return the updated todo
+     * @throws TodoNotFoundException if the todo is not found
+     * @throws PreconditionFailedException if the todo changed since it was read
+     */
+    public Todo markDone(Long id, String ifMatch) {
+        if (ifMatch == null) {
+            return markDone(id);
+        }
+        long start = System.nanoTime();
+        try {
+            return updateIfMatch(id, ifMatch, this::applyDone);
+        } finally {
+            record("markDone", start);
+        }
     }
 
     /**
@@ -99,23 +407,151 @@ public class TodoService {
      * @throws TodoNotFoundException if the todo is not found
      */
     public Todo markUndone(Long id) {
-        Todo todo = todoRepository.findById(id)
-                .orElseThrow(() -> new TodoNotFoundException("To Do not found"));
-        todo.setStatus(false);
-        todo.setDoneDate(null);
-        todo.setElapsedTime(null);
-        return todoRepository.save(todo);
+        long start = System.nanoTime();
+        try {
+            Todo saved = updateExisting(id, this::applyUndone);
+            priorityScheduler.track(saved);
+            return saved;
+        } finally {
+            record("markUndone", start);
+        }
+    }
+
+    /**
+     * Marks a todo as undone if it is still one of the versions a client read.
+     *
+     * @param id the ID of the todo to mark as undone
+     * @param ifMatch the If-Match header, or null to update unconditionally
+     * @return the updated todo
+     * @throws TodoNotFoundException if the todo is not found
+     * @throws PreconditionFailedException if the todo changed since it was read
+     */
+    public Todo markUndone(Long id, String ifMatch) {
+        if (ifMatch == null) {
+            return markUndone(id);
+        }
+        long start = System.nanoTime();
+        try {
+            Todo saved = updateIfMatch(id, ifMatch, this::applyUndone);
+            priorityScheduler.track(saved);
+            return saved;
+        } finally {
+            record("markUndone", start);
+        }
+    }
+
+    /**
+     * Applies a batch of create, update, done and undone operations.
+     * Each operation is checked on its own and gets its own result; the todos changed by the
+     * successful ones are then written with a single repository call, so indexes, the write-ahead
+     * log and the query cache are updated once for the whole batch. Operations on the same todo
+     * apply in order.
+     *
+     * @param operations the operations to apply
+     * @return one result per operation, in request order
+     * @throws BatchTooLargeException if there are more operations than the configured maximum
+     */
+    public List<TodoBatchResult> applyBatch(List<TodoBatchOperation> operations) {
+        long start = System.nanoTime();
+        try {
+            if (operations.size() > maxBatchSize) {
+                throw new BatchTooLargeException("A batch can hold at most " + maxBatchSize + " operations");
+            }
+            Map<Long, Todo> changed = new LinkedHashMap<>();
+            List<Todo> created = new ArrayList<>();
+            List<Todo> outcomes = new ArrayList<>(operations.size());
+            TodoBatchResult[] results = new TodoBatchResult[operations.size()];
+            for (int i = 0; i < operations.size(); i++) {
+                TodoBatchOperation operation = operations.get(i);
+                if (operation == null || operation.getOp() == null) {
+                    results[i] = TodoBatchResult.failure(i, 400, "Unknown operation");
+                    outcomes.add(null);
+                    continue;
+                }
+                if (operation.getOp() == TodoBatchOperation.Type.CREATE) {
+                    if (operation.getTodo() == null) {
+                        results[i] = TodoBatchResult.failure(i, 400, "Missing todo");
+                        outcomes.add(null);
+                        continue;
+                    }
+                    Todo todo = newTodo(operation.getTodo());
+                    String error = validate(todo);
+                    if (error != null) {
+                        results[i] = TodoBatchResult.failure(i, 400, error);
+                        outcomes.add(null);
+                        continue;
+                    }
+                    created.add(todo);
+                    outcomes.add(todo);
+                    continue;
+                }
+
+                Long id = operation.getId();
+                Todo todo = id == null ? null : changed.get(id);
+                if (todo == null && id != null) {
+                    todo = todoRepository.findById(id).orElse(null);
+                }
+                if (todo == null) {
+                    results[i] = TodoBatchResult.failure(i, 404, "To Do not found");
+                    outcomes.add(null);
+                    continue;
+                }
+                switch (operation.getOp()) {
+                    case UPDATE -> {
+                        if (operation.getTodo() == null) {
+                            results[i] = TodoBatchResult.failure(i, 400, "Missing todo");
+                            outcomes.add(null);
+                            continue;
+                        }
+                        Todo updated = new Todo(todo);
+                        applyUpdate(updated, operation.getTodo());
+                        String error = validate(updated);
+                        if (error != null) {
+                            results[i] = TodoBatchResult.failure(i, 400, error);
+                            outcomes.add(null);
+                            continue;
+                        }
+                        todo = updated;
+                    }
+                    case DONE -> {
+                        todo = new Todo(todo);
+                        applyDone(todo);
+                    }
+                    default -> {
+                        todo = new Todo(todo);
+                        applyUndone(todo);
+                    }
+                }
+                changed.put(id, todo);
+                outcomes.add(todo);
+            }
+
+            List<Todo> batch = new ArrayList<>(created.size() + changed.size());
+            batch.addAll(created);
+            batch.addAll(changed.values());
+            priorityScheduler.trackAll(todoRepository.saveAll(batch));
+
+            for (int i = 0; i < results.length; i++) {
+                if (results[i] == null) {
+                    Todo todo = outcomes.get(i);
+                    int status = operations.get(i).getOp() == TodoBatchOperation.Type.CREATE ? 201 : 200;
+                    results[i] = TodoBatchResult.success(i, status, new Todo(todo));
+                }
+            }
+            return Arrays.asList(results);
+        } finally {
+            record("applyBatch", start);
+        }
     }
 
     /**
      * Calculates the priority of a todo based on its due date.
      *
      * @param dueDate the due date of the todo
+     * @param today the day to calculate the priority on
      * @return the calculated priority
      */
-    private int calculatePriority(LocalDate dueDate) {
-        LocalDate today = LocalDate.now();
-
+    static int calculatePriority(LocalDate dueDate, LocalDate today) {
         if (dueDate != null) {
             if ((today.until(dueDate, ChronoUnit.DAYS) > 14)) {
                 return 1;
@@ -137,28 +573,156 @@ public class TodoService {
      * @return the todo metrics
      */
     public TodoMetrics getMetrics() {
-        List<Todo> todos = todoRepository.findAll();
-        double allTotal = 0;
-        double allTotalLow = 0;
-        double allTotalMedium = 0;
-        double allTotalHigh = 0;
-
-        for (Todo todo : todos) {
-            if (todo.getElapsedTime() != null) {
-                if (todo.getPriority() == 1) {
-                    allTotalLow += todo.getElapsedTime();
-                }
-                if (todo.getPriority() == 2) {
-                    allTotalMedium += todo.getElapsedTime();
-                }
-                if (todo.getPriority() == 3) {
-                    allTotalHigh += todo.getElapsedTime();
-                }
-                allTotal += todo.getElapsedTime();
+        long start = System.nanoTime();
+        try {
+            return todoRepository.getMetrics();
+        } finally {
+            record("getMetrics", start);
+        }
+    }
+
+    /**
+     * Registers a timer with a percentile histogram for each timed operation.
+     *
+     * @param registry the meter registry
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Map<String, Timer> registered = new HashMap<>();
+        for (String operation : TIMED_OPERATIONS) {
+            registered.put(operation, Timer.builder("todo.service")
+                    .description("Time taken by TodoService operations")
+                    .tag("method", operation)
+                    .publishPercentileHistogram()
+                    .register(registry));
+        }
+        timers = Map.copyOf(registered);
+    }
+
+    /**
+     * Records the time an operation took, when the service is bound to a meter registry.
+     *
+     * @param operation the method name
+     * @param start the start of the operation, from {@link System#nanoTime()}
+     */
+    private void record(String operation, long start) {
+        Timer timer = timers.get(operation);
+        if (timer != null) {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Builds a new todo from the data of a create request.
+     *
+     * @param todoDTO the todo to create
+     * @return the new, unsaved todo
+     */
+    private Todo newTodo(TodoDTO todoDTO) {
+        Todo todo = convertToEntity(todoDTO);
+        if (todo.getDueDate() != null) {
+            todo.setPriority(calculatePriority(todo.getDueDate(), LocalDate.now()));
+        }
+        todo.setStatus(false);
+        return todo;
+    }
+
+    /**
+     * Changes a todo through the repository's atomic update, after checking it against an If-Match header.
+     * A failed check throws inside the update, which leaves the todo unchanged.
+     *
+     * @param id the ID of the todo to change
+     * @param ifMatch the If-Match header
+     * @param change the change to apply
+     * @return the changed todo
+     * @throws TodoNotFoundException if the todo is not found
+     * @throws PreconditionFailedException if the todo matches none of the tags
+     */
+    private Todo updateIfMatch(Long id, String ifMatch, Consumer<Todo> change) {
+        return updateExisting(id, todo -> {
+            if (!TodoETags.matches(ifMatch, TodoETags.of(todo), false)) {
+                throw new PreconditionFailedException("To Do was changed since it was read");
             }
+            change.accept(todo);
+        });
+    }
+
+    /**
+     * Changes a stored todo in one atomic step for its ID, so a concurrent change, such as a
+     * priority promotion, is neither lost nor overwritten with stale fields.
+     *
+     * @param id the ID of the todo
+     * @param change the change to apply to the stored todo
+     * @return the updated todo
+     * @throws TodoNotFoundException if the todo is not found
+     */
+    private Todo updateExisting(Long id, Consumer<Todo> change) {
+        return todoRepository.update(id, change).orElseThrow(() -> new TodoNotFoundException("To Do not found"));
+    }
+
+    /**
+     * Copies the data of an update request onto a todo.
+     *
+     * @param todo the todo to update
+     * @param todoDTO the updated todo data
+     */
+    private void applyUpdate(Todo todo, TodoDTO todoDTO) {
+        todo.setText(todoDTO.getText());
+        todo.setDueDate(todoDTO.getDueDate());
+        todo.setPriority(calculatePriority(todoDTO.getDueDate(), LocalDate.now()));
+        todo.setStatus(todoDTO.getStatus());
+    }
+
+    /**
+     * Marks a todo as done now and records how long it took.
+     *
+     * @param todo the todo to mark as done
+     */
+    private void applyDone(Todo todo) {
+        todo.setStatus(true);
+        todo.setDoneDate(LocalDateTime.now());
+        Long diffTime = ChronoUnit.SECONDS.between(todo.getCreationDate(), todo.getDoneDate());
+        todo.setElapsedTime(diffTime);
+    }
+
+    /**
+     * Marks a todo as undone and clears its completion data.
+     *
+     * @param todo the todo to mark as undone
+     */
+    private void applyUndone(Todo todo) {
+        todo.setStatus(false);
+        todo.setDoneDate(null);
+        todo.setElapsedTime(null);
+    }
+
+    /**
+     * Checks the constraints of a todo.
+     *
+     * @param todo the todo to check
+     * @return the constraint violation messages, or null if the todo is valid
+     */
+    private String validate(Todo todo) {
+        Set<ConstraintViolation<Todo>> violations = validator.validate(todo);
+        if (violations.isEmpty()) {
+            return null;
         }
+        return violations.stream().map(ConstraintViolation::getMessage).sorted().collect(Collectors.joining(" "));
+    }
 
-        return todoRepository.getMetrics(allTotal, allTotalLow, allTotalMedium, allTotalHigh);
+    /**
+     * Checks the constraints of a todo about to be saved.
+     *
+     * @param todo the todo to check
+     * @return the todo
+     * @throws InvalidTodoException if the todo violates a constraint
+     */
+    private Todo checked(Todo todo) {
+        String error = validate(todo);
+        if (error != null) {
+            throw new InvalidTodoException(error);
+        }
+        return todo;
     }
 
     /**
@@ -1,6 +1,9 @@
 package com.quarkbs.ToDoListApp;
 
 import com.quarkbs.ToDoListApp.exception.GlobalExceptionHandler;
+import com.quarkbs.ToDoListApp.exception.InvalidCursorException;
+import com.quarkbs.ToDoListApp.exception.InvalidTodoException;
+import com.quarkbs.ToDoListApp.exception.PreconditionFailedException;
 import com.quarkbs.ToDoListApp.exception.TodoNotFoundException;
 import org.junit.jupiter.api.Test;
 import org.springframework.http.HttpStatus;
@@ -21,4 +24,34 @@ public class GlobalExceptionHandlerTest {
         assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
         assertEquals("Todo not found", response.getBody());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testHandleInvalidCursorException() {
+        InvalidCursorException exception = new InvalidCursorException("Malformed cursor");
+
+        ResponseEntity<String> response = globalExceptionHandler.handleInvalidCursorException(exception);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals("Malformed cursor", response.getBody());
+    }
+
+    @Test
+    public void testHandleInvalidTodoException() {
+        InvalidTodoException exception = new InvalidTodoException("You can't leave the task empty!");
+
+        ResponseEntity<String> response = globalExceptionHandler.handleInvalidTodoException(exception);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals("You can't leave the task empty!", response.getBody());
+    }
+
+    @Test
+    public void testHandlePreconditionFailedException() {
+        PreconditionFailedException exception = new PreconditionFailedException("To Do was changed since it was read");
+
+        ResponseEntity<String> response = globalExceptionHandler.handlePreconditionFailedException(exception);
+
+        assertEquals(HttpStatus.PRECONDITION_FAILED, response.getStatusCode());
+        assertEquals("To Do was changed since it was read", response.getBody());
+    }
+}
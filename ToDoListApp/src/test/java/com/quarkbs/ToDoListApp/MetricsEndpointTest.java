@@ -0,0 +1,52 @@
+package com.quarkbs.ToDoListApp;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Test class for the metrics exposed on the Prometheus scrape endpoint.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability(tracing = false)
+public class MetricsEndpointTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    /**
+     * Tests that requests, service operations, findByFilter phases and store gauges are scraped.
+     */
+    @Test
+    public void testPrometheusScrape() throws Exception {
+        mockMvc.perform(post("/api/todos")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"text\":\"Scraped task\",\"dueDate\":\"2030-01-01\"}"))
+                .andExpect(status().isCreated());
+        mockMvc.perform(get("/api/todos").param("text", "scraped"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("http_server_requests_seconds_bucket{")))
+                .andExpect(content().string(containsString("uri=\"/api/todos\"")))
+                .andExpect(content().string(containsString("todo_service_seconds_bucket{")))
+                .andExpect(content().string(containsString("method=\"getAllTodos\"")))
+                .andExpect(content().string(containsString("todo_repository_find_seconds_bucket{")))
+                .andExpect(content().string(containsString("phase=\"sort\"")))
+                .andExpect(content().string(containsString("todo_store_size")))
+                .andExpect(content().string(containsString("todo_store_todos{status=\"open\"}")))
+                .andExpect(content().string(containsString("todo_cache_requests_total{result=\"miss\"}")));
+    }
+}
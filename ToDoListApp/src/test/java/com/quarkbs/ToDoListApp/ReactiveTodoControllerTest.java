@@ -0,0 +1,216 @@
+package com.quarkbs.ToDoListApp;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import com.quarkbs.ToDoListApp.controller.ReactiveTodoController;
+import com.quarkbs.ToDoListApp.dto.TodoDTO;
+import com.quarkbs.ToDoListApp.entity.Todo;
+import com.quarkbs.ToDoListApp.entity.TodoMetrics;
+import com.quarkbs.ToDoListApp.exception.TodoNotFoundException;
+import com.quarkbs.ToDoListApp.service.ReactiveTodoService;
+import com.quarkbs.ToDoListApp.service.TodoService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import reactor.test.StepVerifier;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Test class for ReactiveTodoController and ReactiveTodoService.
+ */
+@WebMvcTest(value = ReactiveTodoController.class)
+@Import(ReactiveTodoService.class)
+public class ReactiveTodoControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ReactiveTodoService reactiveTodoService;
+
+    @MockBean
+    private TodoService todoService;
+
+    private Todo todoA;
+    private Todo todoB;
+
+    /**
+     * Sets up test data before each test.
+     */
+    @BeforeEach
+    public void setUp() {
+        todoA = new Todo();
+        todoA.setId(1L);
+        todoA.setText("TEST FOR TODO A");
+        todoA.setDueDate(LocalDate.now().plusDays(2L));
+        todoA.setStatus(false);
+        todoA.setPriority(3);
+
+        todoB = new Todo();
+        todoB.setId(2L);
+        todoB.setText("TEST FOR TODO B");
+        todoB.setDueDate(LocalDate.now().minusDays(2L));
+        todoB.setStatus(true);
+    }
+
+    /**
+     * Tests that the list endpoint answers a page as JSON by default.
+     */
+    @Test
+    public void testGetAllTodos() throws Exception {
+        Mockito.when(todoService.getAllTodos(PageRequest.of(0, 10), null, null, null, "creationDate", "ASC", "ASC"))
+                .thenReturn(Map.of("todosList", List.of(todoA, todoB), "total", 2));
+
+        MvcResult result = mockMvc.perform(get("/api/reactive/todos"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.total").value(2))
+                .andExpect(jsonPath("$.todosList[1].text").value(todoB.getText()));
+    }
+
+    /**
+     * Tests that the list endpoint streams every matching todo across cursor pages as NDJSON.
+     */
+    @Test
+    public void testStreamTodos() throws Exception {
+        Mockito.when(todoService.getTodosByCursor("", 1, false, null, null, "dueDate", "ASC", "ASC"))
+                .thenReturn(Map.of("todosList", List.of(todoA), "total", 2, "nextCursor", "next"));
+        Mockito.when(todoService.getTodosByCursor("next", 1, false, null, null, "dueDate", "ASC", "ASC"))
+                .thenReturn(Map.of("todosList", List.of(todoB), "total", 2));
+
+        MvcResult result = mockMvc.perform(get("/api/reactive/todos")
+                        .accept(MediaType.APPLICATION_NDJSON)
+                        .param("size", "1")
+                        .param("status", "false")
+                        .param("sortBy", "dueDate"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(objectMapper.writeValueAsString(todoA) + "\n" + objectMapper.writeValueAsString(todoB) + "\n"));
+    }
+
+    /**
+     * Tests that streamTodos reads ahead at most one cursor page beyond what the subscriber asked for.
+     */
+    @Test
+    public void testStreamTodosFetchesOnDemand() {
+        Todo todoC = new Todo();
+        todoC.setId(3L);
+        Mockito.when(todoService.getTodosByCursor("", 1, null, null, null, "priority", "ASC", "ASC"))
+                .thenReturn(Map.of("todosList", List.of(todoA), "total", 3, "nextCursor", "second"));
+        Mockito.when(todoService.getTodosByCursor("second", 1, null, null, null, "priority", "ASC", "ASC"))
+                .thenReturn(Map.of("todosList", List.of(todoB), "total", 3, "nextCursor", "third"));
+        Mockito.when(todoService.getTodosByCursor("third", 1, null, null, null, "priority", "ASC", "ASC"))
+                .thenReturn(Map.of("todosList", List.of(todoC), "total", 3));
+
+        StepVerifier.create(reactiveTodoService.streamTodos(1, null, null, null, "priority", "ASC", "ASC"), 1)
+                .expectNext(todoA)
+                .then(() -> Mockito.verify(todoService, Mockito.after(200).never()).getTodosByCursor(Mockito.eq("third"), Mockito.anyInt(), Mockito.any(), Mockito.any(), Mockito.any(), Mockito.anyString(), Mockito.anyString(), Mockito.anyString()))
+                .thenRequest(2)
+                .expectNext(todoB, todoC)
+                .verifyComplete();
+    }
+
+    /**
+     * Tests the addTodo method of ReactiveTodoController.
+     */
+    @Test
+    public void testAddTodo() throws Exception {
+        Mockito.when(todoService.addTodo(Mockito.any(TodoDTO.class))).thenReturn(todoA);
+
+        MvcResult result = mockMvc.perform(post("/api/reactive/todos")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"text\":\"TEST FOR TODO A\",\"dueDate\":\"" + todoA.getDueDate() + "\"}"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.text").value(todoA.getText()));
+    }
+
+    /**
+     * Tests the updateTodo, doneTodo and undoneTodo methods of ReactiveTodoController.
+     */
+    @Test
+    public void testUpdateDoneAndUndoneTodo() throws Exception {
+        Mockito.when(todoService.updateTodo(Mockito.eq(1L), Mockito.any(TodoDTO.class))).thenReturn(todoA);
+        Mockito.when(todoService.markDone(2L)).thenReturn(todoB);
+        Mockito.when(todoService.markUndone(1L)).thenReturn(todoA);
+
+        MvcResult updated = mockMvc.perform(put("/api/reactive/todos/{id}", 1L)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"text\":\"TEST FOR TODO A\"}"))
+                .andReturn();
+        mockMvc.perform(asyncDispatch(updated))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.text").value(todoA.getText()));
+
+        MvcResult done = mockMvc.perform(post("/api/reactive/todos/{id}/done", 2L)).andReturn();
+        mockMvc.perform(asyncDispatch(done))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value(true));
+
+        MvcResult undone = mockMvc.perform(put("/api/reactive/todos/{id}/undone", 1L)).andReturn();
+        mockMvc.perform(asyncDispatch(undone))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value(false));
+    }
+
+    /**
+     * Tests that a missing todo is reported through the exception handler, as on TodoController.
+     */
+    @Test
+    public void testDoneTodoNotFound() throws Exception {
+        Mockito.when(todoService.markDone(9L)).thenThrow(new TodoNotFoundException("To Do not found"));
+
+        MvcResult result = mockMvc.perform(post("/api/reactive/todos/{id}/done", 9L)).andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isInternalServerError())
+                .andExpect(content().string("To Do not found"));
+    }
+
+    /**
+     * Tests the metrics method of ReactiveTodoController.
+     */
+    @Test
+    public void testTodoMetrics() throws Exception {
+        Mockito.when(todoService.getMetrics()).thenReturn(new TodoMetrics(120L, 180L, 60L, 120L));
+
+        MvcResult result = mockMvc.perform(get("/api/reactive/todos/metrics")).andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.avgTime").value(120.0));
+    }
+}
@@ -0,0 +1,220 @@
+package com.quarkbs.ToDoListApp;
+
+import com.quarkbs.ToDoListApp.entity.Todo;
+import com.quarkbs.ToDoListApp.entity.TodoMetrics;
+import com.quarkbs.ToDoListApp.repository.ShardedTodoRepository;
+import com.quarkbs.ToDoListApp.repository.TodoRepository;
+import com.quarkbs.ToDoListApp.repository.TodoRepositoryImpl;
+import com.quarkbs.ToDoListApp.repository.TodoSnapshotScheduler;
+import com.quarkbs.ToDoListApp.repository.TodoWriteAheadLog;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the sharded backend with four shards and checks it against the in-memory backend.
+ * The write-ahead log and snapshots are switched on, which only the in-memory backend uses.
+ */
+@SpringBootTest(properties = {"todo.repository.backend=sharded", "todo.repository.shards=4",
+        "todo.wal.enabled=true", "todo.snapshot.enabled=true"})
+public class ShardedTodoRepositoryTest {
+    @Autowired
+    private TodoRepository todoRepository;
+
+    @Autowired
+    private ApplicationContext context;
+
+    private TodoRepositoryImpl referenceRepository;
+
+    @BeforeEach
+    public void setUp() {
+        todoRepository.findAll().forEach(todo -> todoRepository.deleteById(todo.getId()));
+        referenceRepository = new TodoRepositoryImpl();
+        Random random = new Random(7);
+        List<Todo> todos = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            Todo todo = new Todo();
+            todo.setText("TODO " + i + (i % 7 == 0 ? " 100%_done" : ""));
+            todo.setStatus(random.nextBoolean());
+            todo.setPriority(random.nextInt(3) + 1);
+            todo.setDueDate(LocalDate.now().plusDays(random.nextInt(10)));
+            todo.setCreationDate(LocalDateTime.now().minusHours(random.nextInt(50)).withNano(random.nextInt(1_000_000_000)));
+            if (todo.getStatus()) {
+                todo.setDoneDate(todo.getCreationDate().plusMinutes(random.nextInt(300)));
+                todo.setElapsedTime((long) random.nextInt(18_000));
+            }
+            todos.add(todo);
+        }
+        todoRepository.saveAll(todos);
+        todos.forEach(referenceRepository::save);
+    }
+
+    /**
+     * Tests that a saved todo is found by its ID, updated and deleted.
+     */
+    @Test
+    public void testSaveFindAndDelete() {
+        long version = todoRepository.getVersion();
+        Todo todo = new Todo();
+        todo.setText("NEW TODO");
+        todo.setStatus(false);
+        todo.setDueDate(LocalDate.now());
+        todoRepository.save(todo);
+        assertNotNull(todo.getId());
+        assertTrue(todoRepository.getVersion() > version);
+
+        Todo found = todoRepository.findById(todo.getId()).orElseThrow();
+        assertEquals("NEW TODO", found.getText());
+        assertEquals(todo.getCreationDate(), found.getCreationDate());
+
+        found.setText("UPDATED TODO");
+        todoRepository.save(found);
+        assertEquals("UPDATED TODO", todoRepository.findById(todo.getId()).orElseThrow().getText());
+
+        todoRepository.deleteById(todo.getId());
+        assertTrue(todoRepository.findById(todo.getId()).isEmpty());
+    }
+
+    /**
+     * Tests that the sharded backend is the one selected by the property.
+     */
+    @Test
+    public void testBackendSelected() {
+        assertInstanceOf(ShardedTodoRepository.class, todoRepository);
+        assertEquals(0, context.getBeanNamesForType(TodoWriteAheadLog.class).length);
+        assertEquals(0, context.getBeanNamesForType(TodoSnapshotScheduler.class).length);
+    }
+
+    /**
+     * Tests that batches spread over the shards are saved and deleted as a whole, and that new IDs
+     * follow the largest ID saved so far.
+     */
+    @Test
+    public void testBatchesAcrossShards() {
+        List<Todo> batch = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Todo todo = new Todo();
+            todo.setText("BATCH " + i);
+            todo.setStatus(false);
+            batch.add(todo);
+        }
+        todoRepository.saveAll(batch);
+        List<Long> ids = batch.stream().map(Todo::getId).toList();
+        assertEquals(10, ids.stream().distinct().count());
+        assertEquals(10, todoRepository.findByFilter(PageRequest.of(0, 20), null, "batch", null, "creationDate", "ASC", "ASC").get("total"));
+
+        todoRepository.deleteAll(ids);
+        assertTrue(ids.stream().allMatch(id -> todoRepository.findById(id).isEmpty()));
+        assertEquals(120, todoRepository.findAll().size());
+
+        Todo imported = new Todo();
+        imported.setId(1_000_003L);
+        imported.setText("IMPORTED");
+        todoRepository.save(imported);
+        Todo next = new Todo();
+        next.setText("NEXT");
+        todoRepository.save(next);
+        assertEquals(1_000_004L, next.getId());
+    }
+
+    /**
+     * Tests that the pages, totals and metrics merged from the shards match the in-memory backend.
+     */
+    @Test
+    public void testFindByFilterMatchesInMemoryBackend() {
+        List<Boolean> statuses = Arrays.asList(null, true);
+        List<Integer> priorities = Arrays.asList(null, 2);
+        List<String> texts = Arrays.asList(null, "todo 1", "100%_");
+        for (String sortBy : List.of("priority", "dueDate", "priorityDueDate", "creationDate")) {
+            for (String directionPriority : List.of("ASC", "DESC")) {
+                for (String directionDueDate : List.of("ASC", "DESC")) {
+                    for (Boolean status : statuses) {
+                        for (Integer priority : priorities) {
+                            for (String text : texts) {
+                                for (int page = 0; page < 2; page++) {
+                                    Map<String, Object> expected = referenceRepository.findByFilter(PageRequest.of(page, 10), status, text, priority, sortBy, directionPriority, directionDueDate);
+                                    Map<String, Object> result = todoRepository.findByFilter(PageRequest.of(page, 10), status, text, priority, sortBy, directionPriority, directionDueDate);
+                                    assertEquals(ids(expected), ids(result));
+                                    assertEquals(expected.get("total"), result.get("total"));
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        TodoMetrics expected = referenceRepository.getMetrics();
+        TodoMetrics metrics = todoRepository.getMetrics();
+        assertEquals(expected.getAvgTime(), metrics.getAvgTime(), 1e-9);
+        assertEquals(expected.getAvgTimeLow(), metrics.getAvgTimeLow(), 1e-9);
+        assertEquals(expected.getAvgTimeMedium(), metrics.getAvgTimeMedium(), 1e-9);
+        assertEquals(expected.getAvgTimeHigh(), metrics.getAvgTimeHigh(), 1e-9);
+    }
+
+    /**
+     * Tests that following cursors visits the todos in the same order as the in-memory backend.
+     */
+    @Test
+    public void testFindByCursorMatchesInMemoryBackend() {
+        for (String sortBy : List.of("priority", "dueDate", "priorityDueDate", "creationDate")) {
+            for (String directionPriority : List.of("ASC", "DESC")) {
+                for (String directionDueDate : List.of("ASC", "DESC")) {
+                    List<Long> expected = new ArrayList<>();
+                    List<Long> visited = new ArrayList<>();
+                    String expectedCursor = null;
+                    String cursor = null;
+                    do {
+                        Map<String, Object> expectedPage = referenceRepository.findByCursor(expectedCursor, 7, null, null, null, sortBy, directionPriority, directionDueDate);
+                        Map<String, Object> page = todoRepository.findByCursor(cursor, 7, null, null, null, sortBy, directionPriority, directionDueDate);
+                        expected.addAll(ids(expectedPage));
+                        visited.addAll(ids(page));
+                        expectedCursor = (String) expectedPage.get("nextCursor");
+                        cursor = (String) page.get("nextCursor");
+                    } while (cursor != null);
+                    assertEquals(120, visited.size());
+                    assertEquals(expected, visited);
+                }
+            }
+        }
+    }
+
+    /**
+     * Tests that forEachMatching streams the same todos as the in-memory backend.
+     */
+    @Test
+    public void testForEachMatchingMatchesInMemoryBackend() {
+        List<Boolean> statuses = Arrays.asList(null, false);
+        List<Integer> priorities = Arrays.asList(null, 3);
+        List<String> texts = Arrays.asList(null, "todo 1", "100%_");
+        for (Boolean status : statuses) {
+            for (Integer priority : priorities) {
+                for (String text : texts) {
+                    List<Long> expected = new ArrayList<>();
+                    List<Long> visited = new ArrayList<>();
+                    referenceRepository.forEachMatching(status, text, priority, todo -> expected.add(todo.getId()));
+                    todoRepository.forEachMatching(status, text, priority, todo -> visited.add(todo.getId()));
+                    assertEquals(expected.stream().sorted().toList(), visited.stream().sorted().toList());
+                }
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Long> ids(Map<String, Object> result) {
+        return ((List<Todo>) result.get("todosList")).stream().map(Todo::getId).toList();
+    }
+}
@@ -1,5 +1,8 @@
 package com.quarkbs.ToDoListApp;
 
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.List;
@@ -7,7 +10,15 @@ import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
+import com.quarkbs.ToDoListApp.dto.TodoBatchOperation;
+import com.quarkbs.ToDoListApp.dto.TodoBatchResult;
 import com.quarkbs.ToDoListApp.dto.TodoDTO;
+import com.quarkbs.ToDoListApp.dto.TodoImportEvent;
+import com.quarkbs.ToDoListApp.exception.InvalidTodoException;
+import com.quarkbs.ToDoListApp.exception.PreconditionFailedException;
+import com.quarkbs.ToDoListApp.exception.TooManyImportsException;
+import com.quarkbs.ToDoListApp.service.TodoETags;
+import com.quarkbs.ToDoListApp.service.TodoImportFormat;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -17,13 +28,18 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import com.fasterxml.jackson.core.type.TypeReference;
@@ -85,11 +101,7 @@ public class TodoControllerTest {
         todoDTOB.setStatus(true);
         todoDTOB.setPriority(3);
 
-        metrics = new TodoMetrics();
-        metrics.setAvgTime(120L);
-        metrics.setAvgTimeHigh(120L);
-        metrics.setAvgTimeMedium(60L);
-        metrics.setAvgTimeLow(180L);
+        metrics = new TodoMetrics(120L, 180L, 60L, 120L);
     }
 
     /**
@@ -109,6 +121,44 @@ public class TodoControllerTest {
                 .andExpect(jsonPath("$.priority").value(todoA.getPriority()));
     }
 
+    /**
+     * Tests that a todo the service rejects as invalid is answered with 400.
+     */
+    @Test
+    public void testAddTodoInvalid() throws Exception {
+        todoDTOA.setText(" ");
+        Mockito.when(todoService.addTodo(Mockito.any(TodoDTO.class))).thenThrow(new InvalidTodoException("You can't leave the task empty!"));
+
+        mockMvc.perform(post("/api/todos")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(todoDTOA)))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("You can't leave the task empty!"));
+    }
+
+    /**
+     * Tests that creating a todo without a due date, or updating one to remove it, is answered with 400.
+     * The in-memory backend used to store such todos; since the JPA backend every backend rejects them.
+     */
+    @Test
+    public void testAddAndUpdateTodoWithoutDueDate() throws Exception {
+        todoDTOA.setDueDate(null);
+        InvalidTodoException exception = new InvalidTodoException("You can't leave the due date empty!");
+        Mockito.when(todoService.addTodo(Mockito.any(TodoDTO.class))).thenThrow(exception);
+        Mockito.when(todoService.updateTodo(Mockito.anyLong(), Mockito.any(TodoDTO.class), Mockito.isNull())).thenThrow(exception);
+
+        mockMvc.perform(post("/api/todos")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(todoDTOA)))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("You can't leave the due date empty!"));
+        mockMvc.perform(put("/api/todos/1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(todoDTOA)))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("You can't leave the due date empty!"));
+    }
+
     /**
      * Tests the updateTodo method of TodoController.
      */
@@ -116,7 +166,7 @@ public class TodoControllerTest {
     public void testUpdateTodo() throws Exception {
         Todo updatedTodo = todoA;
         updatedTodo.setText("Updated Text");
-        Mockito.when(todoService.updateTodo(Mockito.anyLong(), Mockito.any(TodoDTO.class))).thenReturn(updatedTodo);
+        Mockito.when(todoService.updateTodo(Mockito.anyLong(), Mockito.any(TodoDTO.class), Mockito.isNull())).thenReturn(updatedTodo);
 
         mockMvc.perform(put("/api/todos/{id}", updatedTodo.getId())
                         .contentType(MediaType.APPLICATION_JSON)
@@ -160,7 +210,7 @@ public class TodoControllerTest {
     public void testDoneTodo() throws Exception {
         Todo updatedTodo = todoA;
         updatedTodo.setStatus(true);
-        Mockito.when(todoService.markDone(todoA.getId())).thenReturn(updatedTodo);
+        Mockito.when(todoService.markDone(todoA.getId(), null)).thenReturn(updatedTodo);
 
         mockMvc.perform(post("/api/todos/{id}/done", updatedTodo.getId())
                         .contentType(MediaType.APPLICATION_JSON)
@@ -176,7 +226,7 @@ public class TodoControllerTest {
     public void testUndoneTodo() throws Exception {
         Todo updatedTodo = todoB;
         updatedTodo.setStatus(false);
-        Mockito.when(todoService.markUndone(todoB.getId())).thenReturn(updatedTodo);
+        Mockito.when(todoService.markUndone(todoB.getId(), null)).thenReturn(updatedTodo);
 
         mockMvc.perform(put("/api/todos/{id}/undone", updatedTodo.getId())
                         .contentType(MediaType.APPLICATION_JSON)
@@ -203,5 +253,165 @@ public class TodoControllerTest {
         assertEquals(result.getAvgTimeHigh(), metrics.getAvgTimeHigh());
     }
 
+    /**
+     * Tests that the list and the metrics are tagged, and answered with 304 without reading the store while the tag matches.
+     */
+    @Test
+    public void testConditionalGet() throws Exception {
+        Mockito.when(todoService.getReadETag(Mockito.any(Object[].class))).thenReturn("\"a-1-todos\"");
+        Mockito.when(todoService.getAllTodos(Mockito.any(PageRequest.class), Mockito.isNull(), Mockito.isNull(), Mockito.isNull(), Mockito.anyString(), Mockito.anyString(), Mockito.anyString()))
+                .thenReturn(Map.of("todosList", List.of(todoA), "total", 1));
+        Mockito.when(todoService.getMetrics()).thenReturn(metrics);
+
+        mockMvc.perform(get("/api/todos"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"a-1-todos\""))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"))
+                .andExpect(jsonPath("$.total").value(1));
+        mockMvc.perform(get("/api/todos").header(HttpHeaders.IF_NONE_MATCH, "\"a-0-todos\", W/\"a-1-todos\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"a-1-todos\""))
+                .andExpect(content().string(""));
+        mockMvc.perform(get("/api/todos/metrics").header(HttpHeaders.IF_NONE_MATCH, "\"a-1-todos\""))
+                .andExpect(status().isNotModified());
+        Mockito.verify(todoService, Mockito.times(1)).getAllTodos(Mockito.any(PageRequest.class), Mockito.isNull(), Mockito.isNull(), Mockito.isNull(), Mockito.anyString(), Mockito.anyString(), Mockito.anyString());
+        Mockito.verify(todoService, Mockito.never()).getMetrics();
+
+        mockMvc.perform(get("/api/todos/metrics").header(HttpHeaders.IF_NONE_MATCH, "\"a-0-todos\""))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.avgTime").value(metrics.getAvgTime()));
+    }
+
+    /**
+     * Tests that a todo is served with its tag and that a stale If-Match on an update is answered with 412.
+     */
+    @Test
+    public void testConditionalUpdate() throws Exception {
+        Mockito.when(todoService.getTodo(todoA.getId())).thenReturn(todoA);
+        String eTag = TodoETags.of(todoA);
+        mockMvc.perform(get("/api/todos/{id}", todoA.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag))
+                .andExpect(jsonPath("$.text").value(todoA.getText()));
+
+        Mockito.when(todoService.markDone(todoA.getId(), eTag)).thenThrow(new PreconditionFailedException("To Do was changed since it was read"));
+        mockMvc.perform(post("/api/todos/{id}/done", todoA.getId()).header(HttpHeaders.IF_MATCH, eTag))
+                .andExpect(status().isPreconditionFailed());
+
+        Mockito.when(todoService.markUndone(todoA.getId(), eTag)).thenReturn(todoB);
+        mockMvc.perform(put("/api/todos/{id}/undone", todoA.getId()).header(HttpHeaders.IF_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, TodoETags.of(todoB)));
+    }
+
+    /**
+     * Tests that the getAllTodos method of TodoController switches to keyset pagination when a cursor is given.
+     */
+    @Test
+    public void testGetTodosByCursor() throws Exception {
+        Mockito.when(todoService.getTodosByCursor(Mockito.eq(""), Mockito.eq(10), Mockito.isNull(), Mockito.isNull(), Mockito.isNull(), Mockito.eq("dueDate"), Mockito.anyString(), Mockito.anyString()))
+                .thenReturn(Map.of("todosList", List.of(todoA), "total", 2, "nextCursor", "abc"));
+
+        mockMvc.perform(get("/api/todos")
+                        .param("sortBy", "dueDate")
+                        .param("cursor", ""))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.todosList[0].text").value(todoA.getText()))
+                .andExpect(jsonPath("$.nextCursor").value("abc"));
+    }
+
+    /**
+     * Tests the cacheStats method of TodoController.
+     */
+    @Test
+    public void testCacheStats() throws Exception {
+        Mockito.when(todoService.getCacheStats()).thenReturn(Map.of("hits", 3L, "misses", 1L, "evictions", 0L, "size", 1L, "maxEntries", 256L));
+
+        mockMvc.perform(get("/api/todos/cache/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.hits").value(3))
+                .andExpect(jsonPath("$.misses").value(1));
+    }
+
+    /**
+     * Tests the batch method of TodoController.
+     */
+    @Test
+    public void testBatch() throws Exception {
+        Mockito.when(todoService.applyBatch(Mockito.anyList()))
+                .thenReturn(List.of(TodoBatchResult.success(0, 201, todoA), TodoBatchResult.failure(1, 404, "To Do not found")));
+
+        mockMvc.perform(post("/api/todos/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"op\":\"create\",\"todo\":{\"text\":\"NEW\",\"dueDate\":\"2030-01-01\"}},{\"op\":\"done\",\"id\":42}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value(201))
+                .andExpect(jsonPath("$[0].todo.text").value(todoA.getText()))
+                .andExpect(jsonPath("$[1].status").value(404))
+                .andExpect(jsonPath("$[1].error").value("To Do not found"))
+                .andExpect(jsonPath("$[1].todo").doesNotExist());
+        Mockito.verify(todoService).applyBatch(Mockito.argThat(operations -> operations.size() == 2
+                && operations.get(0).getOp() == TodoBatchOperation.Type.CREATE
+                && operations.get(1).getId() == 42L));
+    }
+
+    /**
+     * Tests the exportTodos method of TodoController.
+     */
+    @Test
+    public void testExportTodos() throws Exception {
+        Mockito.doAnswer(invocation -> {
+            OutputStream outputStream = invocation.getArgument(3);
+            outputStream.write((objectMapper.writeValueAsString(todoA) + "\n").getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(todoService).exportTodos(Mockito.eq(true), Mockito.isNull(), Mockito.eq(2), Mockito.any(OutputStream.class));
+
+        MvcResult result = mockMvc.perform(get("/api/todos/export")
+                        .param("status", "true")
+                        .param("priority", "2"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(objectMapper.writeValueAsString(todoA) + "\n"));
+    }
+
+    /**
+     * Tests the importTodos method of TodoController.
+     */
+    @Test
+    public void testImportTodos() throws Exception {
+        Mockito.doAnswer(invocation -> {
+            InputStream body = invocation.getArgument(0);
+            OutputStream outputStream = invocation.getArgument(2);
+            long lines = new String(body.readAllBytes(), StandardCharsets.UTF_8).lines().count();
+            outputStream.write(objectMapper.writeValueAsBytes(TodoImportEvent.done(lines, lines - 1, 0)));
+            return null;
+        }).when(todoService).importTodos(Mockito.any(InputStream.class), Mockito.eq(TodoImportFormat.CSV), Mockito.any(OutputStream.class));
+
+        mockMvc.perform(post("/api/todos/import")
+                        .contentType("text/csv")
+                        .content("text,dueDate\nBuy milk,2030-01-01\n"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andExpect(jsonPath("$.type").value("done"))
+                .andExpect(jsonPath("$.imported").value(1));
+    }
+
+    /**
+     * Tests that the importTodos method of TodoController answers 429 while too many imports are running.
+     */
+    @Test
+    public void testImportTodosTooMany() throws Exception {
+        Mockito.doThrow(new TooManyImportsException("At most 2 imports can run at once"))
+                .when(todoService).importTodos(Mockito.any(InputStream.class), Mockito.eq(TodoImportFormat.NDJSON), Mockito.any(OutputStream.class));
+
+        mockMvc.perform(post("/api/todos/import")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content("{}\n"))
+                .andExpect(status().isTooManyRequests());
+    }
 
-}
\ No newline at end of file
+}
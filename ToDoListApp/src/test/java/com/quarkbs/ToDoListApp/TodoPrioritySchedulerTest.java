@@ -0,0 +1,183 @@
+package com.quarkbs.ToDoListApp;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import com.quarkbs.ToDoListApp.entity.Todo;
+import com.quarkbs.ToDoListApp.repository.TodoRepositoryImpl;
+import com.quarkbs.ToDoListApp.service.TodoPriorityScheduler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test class for TodoPriorityScheduler, run against the in-memory repository.
+ */
+public class TodoPrioritySchedulerTest {
+    private TodoRepositoryImpl todoRepository;
+    private TodoPriorityScheduler scheduler;
+    private LocalDate today;
+
+    /**
+     * Sets up an empty repository and scheduler before each test.
+     */
+    @BeforeEach
+    public void setUp() {
+        todoRepository = spy(new TodoRepositoryImpl());
+        scheduler = new TodoPriorityScheduler();
+        ReflectionTestUtils.setField(scheduler, "todoRepository", todoRepository);
+        scheduler.start();
+        today = LocalDate.now();
+    }
+
+    /**
+     * Tests that todos are promoted on the days their due date is 14 and 7 days away, and only those are read.
+     */
+    @Test
+    public void testPromotesOnBoundaries() {
+        Todo far = track(todo(today.plusDays(60), 1, false));
+        Todo soon = track(todo(today.plusDays(20), 1, false));
+        Todo near = track(todo(today.plusDays(10), 2, false));
+        Todo urgent = track(todo(today.plusDays(3), 3, false));
+        track(todo(today.plusDays(20), 1, true));
+
+        assertEquals(0, scheduler.promote(today.plusDays(2)));
+        verify(todoRepository, never()).findById(anyLong());
+
+        assertEquals(1, scheduler.promote(today.plusDays(3)));
+        verify(todoRepository, times(1)).findById(anyLong());
+        assertEquals(3, priorityOf(near));
+
+        assertEquals(1, scheduler.promote(today.plusDays(6)));
+        assertEquals(2, priorityOf(soon));
+        assertEquals(1, priorityOf(far));
+
+        assertEquals(1, scheduler.promote(today.plusDays(13)));
+        assertEquals(3, priorityOf(soon));
+
+        assertEquals(1, scheduler.promote(today.plusDays(46)));
+        assertEquals(2, priorityOf(far));
+        assertEquals(1, scheduler.promote(today.plusDays(53)));
+        assertEquals(3, priorityOf(far));
+        assertEquals(3, priorityOf(urgent));
+
+        Map<String, Object> page = todoRepository.findByFilter(PageRequest.of(0, 10), false, null, 3, "dueDate", "ASC", "ASC");
+        assertEquals(4, page.get("total"));
+    }
+
+    /**
+     * Tests that todos deleted, done or moved since they were scheduled are left alone.
+     */
+    @Test
+    public void testSkipsChangedTodos() {
+        Todo deleted = track(todo(today.plusDays(20), 1, false));
+        Todo done = track(todo(today.plusDays(20), 1, false));
+        Todo moved = track(todo(today.plusDays(20), 1, false));
+
+        todoRepository.deleteById(deleted.getId());
+        done.setStatus(true);
+        track(todoRepository.save(done));
+        moved.setDueDate(today.plusDays(30));
+        track(todoRepository.save(moved));
+
+        assertEquals(0, scheduler.promote(today.plusDays(6)));
+        assertEquals(1, priorityOf(done));
+        assertEquals(1, priorityOf(moved));
+
+        assertEquals(1, scheduler.promote(today.plusDays(16)));
+        assertEquals(2, priorityOf(moved));
+    }
+
+    /**
+     * Tests that a todo done or deleted between the read of a promotion and its update stays as the user left it.
+     */
+    @Test
+    public void testKeepsChangesMadeDuringPromotion() {
+        Todo done = track(todo(today.plusDays(20), 1, false));
+        Todo deleted = track(todo(today.plusDays(20), 1, false));
+        doAnswer(invocation -> {
+            Object read = invocation.callRealMethod();
+            Long id = invocation.getArgument(0);
+            if (id.equals(done.getId())) {
+                done.setStatus(true);
+                todoRepository.save(new Todo(done));
+            } else {
+                todoRepository.deleteById(id);
+            }
+            return read;
+        }).when(todoRepository).findById(anyLong());
+
+        assertEquals(0, scheduler.promote(today.plusDays(6)));
+        doCallRealMethod().when(todoRepository).findById(anyLong());
+        Todo stored = todoRepository.findById(done.getId()).orElseThrow();
+        assertTrue(stored.getStatus());
+        assertEquals(1, stored.getPriority());
+        assertTrue(todoRepository.findById(deleted.getId()).isEmpty());
+    }
+
+    /**
+     * Tests that the todos stored before startup are scheduled and the out of date ones promoted at once,
+     * and that a long gap between runs promotes every todo it covers.
+     */
+    @Test
+    public void testStartupAndCatchUp() {
+        Todo stale = todoRepository.save(todo(today.plusDays(2), 1, false));
+        Todo later = todoRepository.save(todo(today.plusDays(40), 1, false));
+        Todo other = todoRepository.save(todo(today.plusDays(60), 1, false));
+        Todo noDueDate = todoRepository.save(todo(null, 1, false));
+
+        scheduler = new TodoPriorityScheduler();
+        ReflectionTestUtils.setField(scheduler, "todoRepository", todoRepository);
+        scheduler.start();
+        assertEquals(3, priorityOf(stale));
+
+        assertEquals(2, scheduler.promote(today.plusDays(100)));
+        assertEquals(3, priorityOf(later));
+        assertEquals(3, priorityOf(other));
+        assertEquals(1, priorityOf(noDueDate));
+        assertEquals(0, scheduler.promote(today.plusDays(101)));
+    }
+
+    /**
+     * Tests that the scheduled todos and the promotions are reported to the meter registry.
+     */
+    @Test
+    public void testBindToMeterRegistry() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        scheduler.bindTo(registry);
+        track(todo(today.plusDays(20), 1, false));
+        track(todo(today.plusDays(10), 2, false));
+        assertEquals(2, registry.get("todo.priority.scheduled").gauge().value());
+
+        scheduler.promote(today.plusDays(3));
+        assertEquals(1, registry.get("todo.priority.scheduled").gauge().value());
+        assertEquals(1, registry.get("todo.priority.promotions").functionCounter().count());
+    }
+
+    private Todo track(Todo todo) {
+        Todo saved = todo.getId() == null ? todoRepository.save(todo) : todo;
+        scheduler.track(saved);
+        return saved;
+    }
+
+    private int priorityOf(Todo todo) {
+        return todoRepository.findById(todo.getId()).orElseThrow().getPriority();
+    }
+
+    private static Todo todo(LocalDate dueDate, int priority, boolean status) {
+        Todo todo = new Todo();
+        todo.setText("Due " + dueDate);
+        todo.setDueDate(dueDate);
+        todo.setPriority(priority);
+        todo.setStatus(status);
+        todo.setCreationDate(LocalDateTime.now());
+        return todo;
+    }
+}
@@ -1,20 +1,49 @@
 package com.quarkbs.ToDoListApp;
 
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.LongStream;
 
+import com.quarkbs.ToDoListApp.exception.InvalidCursorException;
 import com.quarkbs.ToDoListApp.repository.TodoRepositoryImpl;
+import com.quarkbs.ToDoListApp.repository.TodoScanPool;
+import com.quarkbs.ToDoListApp.repository.TodoSnapshotStore;
+import com.quarkbs.ToDoListApp.repository.TodoSort;
+import com.quarkbs.ToDoListApp.repository.TodoWriteAheadLog;
+import com.quarkbs.ToDoListApp.service.TodoETags;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.openjdk.jol.info.GraphLayout;
+import org.openjdk.jol.vm.VM;
 
 import com.quarkbs.ToDoListApp.entity.Todo;
 import com.quarkbs.ToDoListApp.entity.TodoMetrics;
+import org.springframework.boot.actuate.health.Status;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -87,18 +116,67 @@ public class TodoRepositoryTest {
         assertEquals(savedTodo.getText(), foundTodo.get().getText());
     }
 
+    /**
+     * Tests that saveAll and deleteAll change the indexes and metrics and bump the version once per batch.
+     */
+    @Test
+    public void testSaveAllAndDeleteAll() {
+        Todo todoD = new Todo();
+        todoD.setId(4L);
+        todoD.setText("TEST FOR TODO D");
+        todoD.setDueDate(LocalDate.now());
+        todoD.setStatus(false);
+        todoD.setPriority(3);
+
+        long version = todoRepository.getVersion();
+        todoRepository.saveAll(List.of(todoA, todoB, todoC, todoD));
+        assertEquals(version + 1, todoRepository.getVersion());
+        assertNotNull(todoD.getCreationDate());
+        assertEquals(4, todoRepository.findByFilter(PageRequest.of(0, 10), null, null, null, "priority", "ASC", "ASC").get("total"));
+        assertEquals(1, todoRepository.findByFilter(PageRequest.of(0, 10), false, "todo d", 3, "priority", "ASC", "ASC").get("total"));
+
+        todoRepository.deleteAll(List.of(todoA.getId(), todoD.getId(), 99L));
+        assertEquals(version + 2, todoRepository.getVersion());
+        assertTrue(todoRepository.findById(todoA.getId()).isEmpty());
+        assertEquals(2, todoRepository.findAll().size());
+        assertEquals(0, todoRepository.findByFilter(PageRequest.of(0, 10), null, null, 3, "priority", "ASC", "ASC").get("total"));
+        assertEquals(3.0, todoRepository.getMetrics().getAvgTime(), 1e-9);
+    }
+
+    /**
+     * Tests that forEachMatching visits exactly the todos matching the filters.
+     */
+    @Test
+    public void testForEachMatching() {
+        todoRepository.saveAll(List.of(todoA, todoB, todoC));
+        todoB.setStatus(false);
+        todoRepository.save(todoB);
+
+        List<Long> all = new ArrayList<>();
+        todoRepository.forEachMatching(null, null, null, todo -> all.add(todo.getId()));
+        assertEquals(List.of(1L, 2L, 3L), all.stream().sorted().toList());
+
+        List<Long> done = new ArrayList<>();
+        todoRepository.forEachMatching(true, "todo", null, todo -> done.add(todo.getId()));
+        assertEquals(List.of(1L, 3L), done.stream().sorted().toList());
+
+        List<Todo> matching = new ArrayList<>();
+        todoRepository.forEachMatching(true, "FOR TODO C", 1, matching::add);
+        assertEquals(1, matching.size());
+        matching.get(0).setText("CHANGED");
+        assertEquals("TEST FOR TODO C", todoRepository.findById(3L).orElseThrow().getText());
+    }
+
     /**
      * Tests the getMetrics method of TodoRepository.
      */
     @Test
     public void testGetMetrics() {
         todoRepository.save(todoA);
-        todoA.setElapsedTime(60L);
         todoRepository.save(todoB);
-        todoB.setElapsedTime(120L);
 
         double allTotal = todoA.getElapsedTime() + todoB.getElapsedTime();
-        TodoMetrics metrics = todoRepository.getMetrics(allTotal, 0, todoB.getElapsedTime(), todoA.getElapsedTime());
+        TodoMetrics metrics = todoRepository.getMetrics();
 
         assertEquals(allTotal / 2 / 60, metrics.getAvgTime());
         assertEquals(todoA.getElapsedTime() / 60, metrics.getAvgTimeHigh());
@@ -106,6 +184,31 @@ public class TodoRepositoryTest {
         assertEquals(0, metrics.getAvgTimeLow());
     }
 
+    /**
+     * Tests that getMetrics follows todos being marked undone, updated and deleted.
+     */
+    @Test
+    public void testGetMetricsAfterChanges() {
+        todoRepository.save(todoA);
+        todoRepository.save(todoB);
+        todoRepository.save(todoC);
+
+        todoA.setStatus(false);
+        todoA.setDoneDate(null);
+        todoA.setElapsedTime(null);
+        todoRepository.save(todoA);
+        todoB.setElapsedTime(600L);
+        todoRepository.save(todoB);
+        todoRepository.deleteById(todoC.getId());
+
+        TodoMetrics metrics = todoRepository.getMetrics();
+
+        assertEquals(10, metrics.getAvgTime());
+        assertEquals(10, metrics.getAvgTimeMedium());
+        assertEquals(0, metrics.getAvgTimeHigh());
+        assertEquals(0, metrics.getAvgTimeLow());
+    }
+
     /**
      * Tests the findByFilter method of TodoRepository with different parameters.
      */
@@ -118,14 +221,14 @@ public class TodoRepositoryTest {
         // Test with status filter
         PageRequest pageable = PageRequest.of(0, 10);
         Map<String, Object> result = todoRepository.findByFilter(pageable, true, "", null, "", "ASC", "ASC");
-        List<Todo> todos = (List<Todo>) result.get("todosList");
+        List<Todo> todos = todosList(result);
         int total = (int) result.get("total");
         assertEquals(3, todos.size());
         assertEquals(3, total);
 
         // Test with text filter
         result = todoRepository.findByFilter(pageable, null, "TEST FOR TODO A", null, "", "ASC", "ASC");
-        todos = (List<Todo>) result.get("todosList");
+        todos = todosList(result);
         total = (int) result.get("total");
         assertEquals(1, todos.size());
         assertEquals(1, total);
@@ -133,7 +236,7 @@ public class TodoRepositoryTest {
 
         // Test with priority filter
         result = todoRepository.findByFilter(pageable, null, "", 2, "", "ASC", "ASC");
-        todos = (List<Todo>) result.get("todosList");
+        todos = todosList(result);
         total = (int) result.get("total");
         assertEquals(1, todos.size());
         assertEquals(1, total);
@@ -141,11 +244,658 @@ public class TodoRepositoryTest {
 
         // Test with combined filters
         result = todoRepository.findByFilter(pageable, true, "TEST FOR TODO B", 2, "", "ASC", "ASC");
-        todos = (List<Todo>) result.get("todosList");
+        todos = todosList(result);
         total = (int) result.get("total");
         assertEquals(1, todos.size());
         assertEquals(1, total);
         assertEquals(todoB.getText(), todos.get(0).getText());
     }
 
-}
\ No newline at end of file
+    /**
+     * Tests that the status and priority indexes follow updates of a saved todo.
+     */
+    @Test
+    public void testFindByFilterAfterUpdate() {
+        todoRepository.save(todoA);
+        todoRepository.save(todoB);
+
+        todoA.setStatus(false);
+        todoA.setPriority(1);
+        todoRepository.save(todoA);
+
+        PageRequest pageable = PageRequest.of(0, 10);
+        Map<String, Object> result = todoRepository.findByFilter(pageable, false, null, 1, "", "ASC", "ASC");
+        List<Todo> todos = todosList(result);
+        assertEquals(1, todos.size());
+        assertEquals(todoA.getText(), todos.get(0).getText());
+
+        result = todoRepository.findByFilter(pageable, true, null, 3, "", "ASC", "ASC");
+        assertEquals(0, (int) result.get("total"));
+
+        todoRepository.deleteById(todoB.getId());
+        result = todoRepository.findByFilter(pageable, true, null, null, "", "ASC", "ASC");
+        assertEquals(0, (int) result.get("total"));
+    }
+
+    /**
+     * Tests that an atomic update changes the stored todo and its indexes, and that a change that throws
+     * leaves the todo and the version as they were.
+     */
+    @Test
+    public void testUpdate() {
+        todoRepository.save(todoA);
+        long version = todoRepository.getVersion();
+
+        Todo updated = todoRepository.update(todoA.getId(), todo -> {
+            todo.setStatus(false);
+            todo.setPriority(1);
+        }).orElseThrow();
+        assertFalse(updated.getStatus());
+        assertEquals(version + 1, todoRepository.getVersion());
+        assertEquals(1, todoRepository.findById(todoA.getId()).orElseThrow().getPriority());
+        assertEquals(1, (int) todoRepository.findByFilter(PageRequest.of(0, 10), false, null, 1, "", "ASC", "ASC").get("total"));
+
+        assertThrows(IllegalStateException.class, () -> todoRepository.update(todoA.getId(), todo -> {
+            todo.setText("LOST");
+            throw new IllegalStateException();
+        }));
+        assertEquals(todoA.getText(), todoRepository.findById(todoA.getId()).orElseThrow().getText());
+        assertEquals(version + 1, todoRepository.getVersion());
+
+        assertTrue(todoRepository.update(99L, todo -> fail()).isEmpty());
+    }
+
+    /**
+     * Tests that concurrent readers never miss an existing todo while writers keep updating it.
+     */
+    @Test
+    public void testFindByIdDuringConcurrentSaves() throws Exception {
+        int todoCount = 100;
+        for (int i = 0; i < todoCount; i++) {
+            Todo todo = new Todo();
+            todo.setText("TODO " + i);
+            todo.setStatus(false);
+            todo.setDueDate(LocalDate.now());
+            todoRepository.save(todo);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicInteger misses = new AtomicInteger();
+        List<Future<?>> tasks = new ArrayList<>();
+        for (int w = 0; w < 4; w++) {
+            tasks.add(executor.submit(() -> {
+                for (int round = 0; round < 2_000; round++) {
+                    for (long id = 1; id <= todoCount; id++) {
+                        Todo todo = todoRepository.findById(id).orElseThrow();
+                        todo.setStatus(!todo.getStatus());
+                        todo.setPriority(round % 4);
+                        todoRepository.save(todo);
+                    }
+                }
+            }));
+        }
+        for (int r = 0; r < 4; r++) {
+            executor.submit(() -> {
+                while (running.get()) {
+                    for (long id = 1; id <= todoCount; id++) {
+                        if (todoRepository.findById(id).isEmpty()) {
+                            misses.incrementAndGet();
+                        }
+                    }
+                }
+            });
+        }
+        for (Future<?> task : tasks) {
+            task.get(60, TimeUnit.SECONDS);
+        }
+        running.set(false);
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(0, misses.get());
+        PageRequest pageable = PageRequest.of(0, todoCount);
+        int open = (int) todoRepository.findByFilter(pageable, false, null, null, "", "ASC", "ASC").get("total");
+        int done = (int) todoRepository.findByFilter(pageable, true, null, null, "", "ASC", "ASC").get("total");
+        assertEquals(todoCount, open + done);
+    }
+
+    /**
+     * Tests that a sorted walk never skips a todo that moves ahead of it while being updated.
+     */
+    @Test
+    public void testSortedWalkDuringConcurrentUpdates() throws Exception {
+        int todoCount = 100;
+        int writers = 4;
+        for (int i = 0; i < todoCount; i++) {
+            Todo todo = new Todo();
+            todo.setText("TODO " + i);
+            todo.setStatus(false);
+            todo.setDueDate(LocalDate.now());
+            todoRepository.save(todo);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(writers + 4);
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicInteger misses = new AtomicInteger();
+        List<Future<?>> tasks = new ArrayList<>();
+        for (int w = 0; w < writers; w++) {
+            long first = w + 1;
+            tasks.add(executor.submit(() -> {
+                // Each writer owns its todos and only moves them later, so an ascending walk has them all ahead or behind
+                for (int round = 0; round < 1_000; round++) {
+                    for (long id = first; id <= todoCount; id += writers) {
+                        todoRepository.update(id, todo -> todo.setDueDate(todo.getDueDate().plusDays(1)));
+                    }
+                }
+            }));
+        }
+        PageRequest pageable = PageRequest.of(0, todoCount);
+        for (int r = 0; r < 4; r++) {
+            executor.submit(() -> {
+                while (running.get()) {
+                    List<Todo> page = todosList(todoRepository.findByFilter(pageable, null, null, null, "dueDate", "ASC", "ASC"));
+                    if (page.size() != todoCount) {
+                        misses.incrementAndGet();
+                    }
+                }
+            });
+        }
+        for (Future<?> task : tasks) {
+            task.get(60, TimeUnit.SECONDS);
+        }
+        running.set(false);
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(0, misses.get());
+    }
+
+    /**
+     * Tests that the text filter follows text updates and handles short and mixed case queries.
+     */
+    @Test
+    public void testFindByFilterWithTextIndex() {
+        todoRepository.save(todoA);
+        todoRepository.save(todoB);
+        todoRepository.save(todoC);
+
+        PageRequest pageable = PageRequest.of(0, 10);
+        assertEquals(3, (int) todoRepository.findByFilter(pageable, null, "test for", null, "", "ASC", "ASC").get("total"));
+        assertEquals(1, (int) todoRepository.findByFilter(pageable, null, "todo c", null, "", "ASC", "ASC").get("total"));
+        assertEquals(3, (int) todoRepository.findByFilter(pageable, null, "Fo", null, "", "ASC", "ASC").get("total"));
+        assertEquals(0, (int) todoRepository.findByFilter(pageable, null, "TODO D", null, "", "ASC", "ASC").get("total"));
+
+        todoC.setText("Buy groceries");
+        todoRepository.save(todoC);
+        assertEquals(2, (int) todoRepository.findByFilter(pageable, null, "test for", null, "", "ASC", "ASC").get("total"));
+        Map<String, Object> result = todoRepository.findByFilter(pageable, null, "GROCERIES", null, "", "ASC", "ASC");
+        List<Todo> todos = todosList(result);
+        assertEquals(1, todos.size());
+        assertEquals(todoC.getId(), todos.get(0).getId());
+
+        todoRepository.deleteById(todoC.getId());
+        assertEquals(0, (int) todoRepository.findByFilter(pageable, null, "groceries", null, "", "ASC", "ASC").get("total"));
+        assertTrue(todoRepository.getTextIndexFootprint() > 0);
+    }
+
+    /**
+     * Tests that every sort path, index walks and the bounded heap alike, returns the same windows as
+     * fully sorting the matches with the TodoSort comparator.
+     */
+    @Test
+    public void testFindByFilterPagesMatchFullSort() {
+        Random random = new Random(7);
+        for (int i = 0; i < 200; i++) {
+            Todo todo = new Todo();
+            todo.setText("TODO " + i);
+            todo.setStatus(random.nextBoolean());
+            todo.setPriority(random.nextInt(3) + 1);
+            todo.setDueDate(random.nextInt(20) == 0 ? null : LocalDate.now().plusDays(random.nextInt(10)));
+            todo.setCreationDate(LocalDateTime.now().minusHours(random.nextInt(50)));
+            todoRepository.save(todo);
+        }
+
+        List<Boolean> statuses = Arrays.asList(null, true);
+        List<Integer> priorities = Arrays.asList(null, 2);
+        List<String> texts = Arrays.asList(null, "todo 1");
+        for (String sortBy : List.of("priority", "dueDate", "priorityDueDate", "creationDate")) {
+            for (String directionPriority : List.of("ASC", "DESC")) {
+                for (String directionDueDate : List.of("ASC", "DESC")) {
+                    for (Boolean status : statuses) {
+                        for (Integer priority : priorities) {
+                            for (String text : texts) {
+                                List<Todo> expected = todoRepository.findAll().stream()
+                                        .filter(todo -> status == null || status.equals(todo.getStatus()))
+                                        .filter(todo -> priority == null || priority == todo.getPriority())
+                                        .filter(todo -> text == null || todo.getText().toLowerCase().contains(text))
+                                        .sorted(TodoSort.comparator(sortBy, directionPriority, directionDueDate))
+                                        .toList();
+                                for (int page = 0; page < 3; page++) {
+                                    Map<String, Object> result = todoRepository.findByFilter(PageRequest.of(page, 10), status, text, priority, sortBy, directionPriority, directionDueDate);
+                                    List<Todo> todos = todosList(result);
+                                    List<Todo> window = expected.subList(Math.min(page * 10, expected.size()), Math.min(page * 10 + 10, expected.size()));
+                                    assertEquals(window.stream().map(Todo::getId).toList(), todos.stream().map(Todo::getId).toList());
+                                    assertEquals(expected.size(), (int) result.get("total"));
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        Map<String, Object> result = todoRepository.findByFilter(PageRequest.of(50, 10), null, null, null, "dueDate", "ASC", "ASC");
+        assertEquals(0, todosList(result).size());
+        assertEquals(200, (int) result.get("total"));
+    }
+
+    /**
+     * Tests that text queries scanned and sorted on the scan pool return the same pages, in the same order,
+     * as the sequential scan, on both the top-K and the full sort path.
+     */
+    @Test
+    public void testParallelScanMatchesSequentialScan() {
+        TodoScanPool scanPool = new TodoScanPool(4, 0);
+        TodoRepositoryImpl parallelRepository = new TodoRepositoryImpl(scanPool);
+        Random random = new Random(13);
+        List<Todo> todos = new ArrayList<>();
+        for (int i = 0; i < 3_000; i++) {
+            Todo todo = new Todo();
+            todo.setText("Task " + i);
+            todo.setStatus(random.nextBoolean());
+            todo.setPriority(random.nextInt(3) + 1);
+            todo.setDueDate(random.nextInt(20) == 0 ? null : LocalDate.now().plusDays(random.nextInt(10)));
+            todo.setCreationDate(LocalDateTime.now().minusMinutes(random.nextInt(50)));
+            todos.add(todo);
+        }
+        todoRepository.saveAll(todos);
+        parallelRepository.saveAll(todos);
+
+        try {
+            for (String sortBy : List.of("priority", "dueDate", "priorityDueDate", "creationDate")) {
+                for (String direction : List.of("ASC", "DESC")) {
+                    for (String text : List.of("task 1", "2", "task")) {
+                        for (Boolean status : Arrays.asList(null, false)) {
+                            for (PageRequest pageable : List.of(PageRequest.of(0, 10), PageRequest.of(7, 10), PageRequest.of(2, 500))) {
+                                Map<String, Object> expected = todoRepository.findByFilter(pageable, status, text, null, sortBy, direction, "DESC");
+                                Map<String, Object> result = parallelRepository.findByFilter(pageable, status, text, null, sortBy, direction, "DESC");
+                                assertEquals(todosList(expected).stream().map(Todo::getId).toList(),
+                                        todosList(result).stream().map(Todo::getId).toList());
+                                assertEquals(expected.get("total"), result.get("total"));
+                            }
+                        }
+                    }
+                }
+            }
+        } finally {
+            scanPool.close();
+        }
+    }
+
+    /**
+     * Tests that following cursors visits every todo once, in sort order, for every sort path.
+     */
+    @Test
+    public void testFindByCursor() {
+        Random random = new Random(11);
+        for (int i = 0; i < 60; i++) {
+            Todo todo = new Todo();
+            todo.setText("TODO " + i);
+            todo.setStatus(random.nextBoolean());
+            todo.setPriority(random.nextInt(3) + 1);
+            todo.setDueDate(LocalDate.now().plusDays(random.nextInt(5)));
+            todo.setCreationDate(LocalDateTime.now().minusHours(random.nextInt(10)));
+            todoRepository.save(todo);
+        }
+
+        for (String sortBy : List.of("priority", "dueDate", "priorityDueDate", "creationDate")) {
+            for (String directionPriority : List.of("ASC", "DESC")) {
+                for (String directionDueDate : List.of("ASC", "DESC")) {
+                    for (String text : Arrays.asList(null, "todo")) {
+                        List<Long> expected = todoRepository.findAll().stream()
+                                .sorted(TodoSort.comparator(sortBy, directionPriority, directionDueDate))
+                                .map(Todo::getId)
+                                .toList();
+                        List<Long> visited = new ArrayList<>();
+                        String cursor = "";
+                        while (cursor != null) {
+                            Map<String, Object> result = todoRepository.findByCursor(cursor, 7, null, text, null, sortBy, directionPriority, directionDueDate);
+                            todosList(result).forEach(todo -> visited.add(todo.getId()));
+                            assertEquals(60, (int) result.get("total"));
+                            cursor = (String) result.get("nextCursor");
+                        }
+                        assertEquals(expected, visited);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Tests that todos inserted before the cursor neither shift nor repeat the following pages.
+     */
+    @Test
+    public void testFindByCursorWithConcurrentInserts() {
+        for (int i = 0; i < 30; i++) {
+            Todo todo = new Todo();
+            todo.setText("TODO " + i);
+            todo.setStatus(false);
+            todo.setDueDate(LocalDate.now().plusDays(i));
+            todoRepository.save(todo);
+        }
+
+        Map<String, Object> result = todoRepository.findByCursor("", 10, null, null, null, "dueDate", "ASC", "ASC");
+        List<Long> visited = new ArrayList<>(todosList(result).stream().map(Todo::getId).toList());
+        for (int i = 0; i < 5; i++) {
+            Todo todo = new Todo();
+            todo.setText("EARLIER " + i);
+            todo.setStatus(false);
+            todo.setDueDate(LocalDate.now().minusDays(1));
+            todoRepository.save(todo);
+        }
+        String cursor = (String) result.get("nextCursor");
+        while (cursor != null) {
+            result = todoRepository.findByCursor(cursor, 10, null, null, null, "dueDate", "ASC", "ASC");
+            todosList(result).forEach(todo -> visited.add(todo.getId()));
+            cursor = (String) result.get("nextCursor");
+        }
+
+        assertEquals(LongStream.rangeClosed(1, 30).boxed().toList(), visited);
+        assertThrows(InvalidCursorException.class,
+                () -> todoRepository.findByCursor("bm90LWEtY3Vyc29y", 10, null, null, null, "dueDate", "ASC", "ASC"));
+    }
+
+    /**
+     * Tests that a repository recovers its todos, metrics and next ID from the write-ahead log in every durability mode.
+     */
+    @ParameterizedTest
+    @EnumSource(TodoWriteAheadLog.Durability.class)
+    public void testWriteAheadLogReplay(TodoWriteAheadLog.Durability durability, @TempDir Path directory) throws Exception {
+        Path path = directory.resolve("todo-wal.log");
+        TodoWriteAheadLog log = new TodoWriteAheadLog(path, durability);
+        log.open();
+        TodoRepositoryImpl repository = new TodoRepositoryImpl(log);
+        repository.recover();
+        todoA.setId(null);
+        todoB.setId(null);
+        todoC.setId(null);
+        repository.save(todoA);
+        repository.save(todoB);
+        repository.save(todoC);
+        todoA.setText("UPDATED TODO A");
+        repository.save(todoA);
+        repository.deleteById(todoB.getId());
+        log.close();
+
+        Files.write(path, new byte[]{0, 0, 0, 42, 1, 2}, StandardOpenOption.APPEND);
+
+        TodoWriteAheadLog reopened = new TodoWriteAheadLog(path, durability);
+        reopened.open();
+        TodoRepositoryImpl recovered = new TodoRepositoryImpl(reopened);
+        recovered.recover();
+
+        assertEquals("UPDATED TODO A", recovered.findById(todoA.getId()).orElseThrow().getText());
+        assertEquals(todoC.getDueDate(), recovered.findById(todoC.getId()).orElseThrow().getDueDate());
+        assertEquals(todoC.getCreationDate(), recovered.findById(todoC.getId()).orElseThrow().getCreationDate());
+        assertTrue(recovered.findById(todoB.getId()).isEmpty());
+        assertEquals(repository.getMetrics().getAvgTime(), recovered.getMetrics().getAvgTime());
+
+        Todo todoD = new Todo();
+        todoD.setId(4L);
+        todoD.setText("TEST FOR TODO D");
+        todoD.setStatus(false);
+        recovered.save(todoD);
+        assertEquals(4L, todoD.getId());
+        reopened.close();
+    }
+
+    /**
+     * Tests that once the write-ahead log failed, it reports it and later writes are refused before they change the store.
+     */
+    @Test
+    public void testWriteAheadLogFailure(@TempDir Path directory) throws Exception {
+        TodoWriteAheadLog log = new TodoWriteAheadLog(directory.resolve("todo-wal.log"), TodoWriteAheadLog.Durability.ASYNC);
+        log.open();
+        TodoRepositoryImpl repository = new TodoRepositoryImpl(log);
+        repository.recover();
+        assertEquals(Status.UP, log.health().getStatus());
+
+        ((FileChannel) ReflectionTestUtils.getField(log, "channel")).close();
+        todoA.setId(null);
+        repository.save(todoA);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (log.health().getStatus() == Status.UP && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(Status.DOWN, log.health().getStatus());
+
+        long version = repository.getVersion();
+        String text = todoA.getText();
+        todoA.setText("NOT LOGGED");
+        todoB.setId(null);
+        assertThrows(UncheckedIOException.class, () -> repository.save(todoA));
+        assertThrows(UncheckedIOException.class, () -> repository.save(todoB));
+        assertThrows(UncheckedIOException.class, () -> repository.update(todoA.getId(), todo -> todo.setText("NOT LOGGED")));
+        assertThrows(UncheckedIOException.class, () -> repository.deleteById(todoA.getId()));
+        assertEquals(text, repository.findById(todoA.getId()).orElseThrow().getText());
+        assertTrue(repository.findById(todoB.getId()).isEmpty());
+        assertEquals(version, repository.getVersion());
+    }
+
+    /**
+     * Tests that a repository recovers from a snapshot followed by the write-ahead log written after it.
+     */
+    @Test
+    public void testSnapshotWithWriteAheadLogRecovery(@TempDir Path directory) throws Exception {
+        Path logPath = directory.resolve("todo-wal.log");
+        TodoWriteAheadLog log = new TodoWriteAheadLog(logPath, TodoWriteAheadLog.Durability.GROUP);
+        log.open();
+        TodoRepositoryImpl repository = new TodoRepositoryImpl(log, new TodoSnapshotStore(directory.resolve("todo-snapshot.bin")));
+        repository.recover();
+        todoA.setId(null);
+        todoB.setId(null);
+        todoC.setId(null);
+        repository.save(todoA);
+        repository.save(todoB);
+        repository.snapshot();
+        assertFalse(Files.exists(directory.resolve("todo-wal.log.1")));
+
+        todoA.setText("UPDATED TODO A");
+        repository.save(todoA);
+        repository.deleteById(todoB.getId());
+        repository.save(todoC);
+        log.close();
+
+        TodoWriteAheadLog reopened = new TodoWriteAheadLog(logPath, TodoWriteAheadLog.Durability.GROUP);
+        reopened.open();
+        TodoRepositoryImpl recovered = new TodoRepositoryImpl(reopened, new TodoSnapshotStore(directory.resolve("todo-snapshot.bin")));
+        recovered.recover();
+
+        assertEquals("UPDATED TODO A", recovered.findById(todoA.getId()).orElseThrow().getText());
+        assertTrue(recovered.findById(todoB.getId()).isEmpty());
+        assertEquals(todoC.getText(), recovered.findById(todoC.getId()).orElseThrow().getText());
+        assertEquals(2, recovered.findAll().size());
+        reopened.close();
+    }
+
+    /**
+     * Tests that the writes made after a restart survive a crash between the next rotation of the log
+     * and the snapshot it was rotated for, although the segments of the loaded snapshot were deleted.
+     */
+    @Test
+    public void testRotationAfterRestartRecovery(@TempDir Path directory) throws Exception {
+        Path logPath = directory.resolve("todo-wal.log");
+        Path snapshotPath = directory.resolve("todo-snapshot.bin");
+        TodoWriteAheadLog log = new TodoWriteAheadLog(logPath, TodoWriteAheadLog.Durability.GROUP);
+        log.open();
+        TodoRepositoryImpl repository = new TodoRepositoryImpl(log, new TodoSnapshotStore(snapshotPath));
+        repository.recover();
+        todoA.setId(null);
+        todoB.setId(null);
+        todoC.setId(null);
+        repository.save(todoA);
+        repository.snapshot();
+        log.close();
+
+        TodoWriteAheadLog restarted = new TodoWriteAheadLog(logPath, TodoWriteAheadLog.Durability.GROUP);
+        restarted.open();
+        repository = new TodoRepositoryImpl(restarted, new TodoSnapshotStore(snapshotPath));
+        repository.recover();
+        repository.save(todoB);
+        repository.save(todoC);
+        restarted.awaitRotation(restarted.rotate());
+        restarted.close();
+
+        TodoWriteAheadLog reopened = new TodoWriteAheadLog(logPath, TodoWriteAheadLog.Durability.GROUP);
+        reopened.open();
+        TodoRepositoryImpl recovered = new TodoRepositoryImpl(reopened, new TodoSnapshotStore(snapshotPath));
+        recovered.recover();
+
+        assertEquals(3, recovered.findAll().size());
+        assertEquals(todoC.getText(), recovered.findById(todoC.getId()).orElseThrow().getText());
+        reopened.close();
+    }
+
+    /**
+     * Tests that a snapshot alone restores the todos, their indexes and the next ID.
+     */
+    @Test
+    public void testSnapshotRecovery(@TempDir Path directory) throws Exception {
+        TodoRepositoryImpl repository = new TodoRepositoryImpl(null, new TodoSnapshotStore(directory.resolve("todo-snapshot.bin")));
+        repository.recover();
+        todoA.setId(null);
+        todoB.setId(null);
+        todoC.setId(null);
+        repository.save(todoA);
+        repository.save(todoB);
+        repository.save(todoC);
+        repository.deleteById(todoC.getId());
+        repository.snapshot();
+
+        TodoRepositoryImpl recovered = new TodoRepositoryImpl(null, new TodoSnapshotStore(directory.resolve("todo-snapshot.bin")));
+        recovered.recover();
+
+        assertEquals(todoA.getCreationDate(), recovered.findById(todoA.getId()).orElseThrow().getCreationDate());
+        for (Todo todo : List.of(todoA, todoB)) {
+            Todo stored = repository.findById(todo.getId()).orElseThrow();
+            Todo loaded = recovered.findById(todo.getId()).orElseThrow();
+            assertEquals(TodoETags.of(stored), TodoETags.of(loaded));
+            assertEquals(stored.getElapsedTime(), loaded.getElapsedTime());
+        }
+        assertEquals(repository.findByFilter(PageRequest.of(0, 10), false, "todo", null, "priority", "ASC", "ASC"),
+                recovered.findByFilter(PageRequest.of(0, 10), false, "todo", null, "priority", "ASC", "ASC"));
+        assertEquals(repository.getMetrics().getAvgTime(), recovered.getMetrics().getAvgTime());
+
+        Todo todoD = new Todo();
+        todoD.setId(4L);
+        todoD.setText("TEST FOR TODO D");
+        todoD.setStatus(false);
+        recovered.save(todoD);
+        assertEquals(4L, todoD.getId());
+    }
+
+    /**
+     * Tests that a bound repository reports its gauges and times the phases of findByFilter.
+     */
+    @Test
+    public void testBindToMeterRegistry() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ReflectionTestUtils.setField(todoRepository, "findSampleRate", 1);
+        todoRepository.bindTo(registry);
+        todoC.setStatus(false);
+        todoRepository.saveAll(List.of(todoA, todoB, todoC));
+
+        assertEquals(3, registry.get("todo.store.size").gauge().value());
+        assertEquals(1, registry.get("todo.store.todos").tag("status", "open").gauge().value());
+        assertEquals(2, registry.get("todo.store.todos").tag("status", "done").gauge().value());
+        assertTrue(registry.get("todo.index.text.trigrams").gauge().value() > 0);
+
+        todoRepository.findByFilter(PageRequest.of(0, 10), null, null, null, "priority", "ASC", "ASC");
+        assertEquals(1, registry.get("todo.repository.find").tag("phase", "filter").timer().count());
+        assertEquals(0, registry.get("todo.repository.find").tag("phase", "sort").timer().count());
+        assertEquals(1, registry.get("todo.repository.find").tag("phase", "page").timer().count());
+
+        todoRepository.findByFilter(PageRequest.of(0, 10), null, "todo", null, "priority", "ASC", "ASC");
+        assertEquals(2, registry.get("todo.repository.find").tag("phase", "filter").timer().count());
+        assertEquals(1, registry.get("todo.repository.find").tag("phase", "sort").timer().count());
+        assertEquals(2, registry.get("todo.repository.find").tag("phase", "page").timer().count());
+    }
+
+    /**
+     * Tests that every field of a todo survives the compact stored form, including null and negative values,
+     * and that values it cannot hold are rejected.
+     */
+    @Test
+    public void testStoredFormKeepsEveryField() {
+        Todo todo = new Todo();
+        todo.setText("Réviser l'été");
+        todo.setPriority(-2);
+        todo.setCreationDate(LocalDateTime.of(1969, 7, 20, 20, 17, 40, 123_456_789));
+        todo.setDoneDate(LocalDateTime.of(2024, 2, 29, 23, 59, 59, 999_999_999));
+        todo.setElapsedTime(-1L);
+        todoRepository.save(todo);
+
+        Todo found = todoRepository.findById(todo.getId()).orElseThrow();
+        assertEquals(todo.getText(), found.getText());
+        assertNull(found.getStatus());
+        assertNull(found.getDueDate());
+        assertEquals(-2, found.getPriority());
+        assertEquals(todo.getCreationDate(), found.getCreationDate());
+        assertEquals(todo.getDoneDate(), found.getDoneDate());
+        assertEquals(-1L, found.getElapsedTime());
+
+        Todo outOfRange = new Todo();
+        outOfRange.setPriority(64);
+        assertThrows(IllegalArgumentException.class, () -> todoRepository.save(outOfRange));
+        outOfRange.setPriority(1);
+        outOfRange.setDueDate(LocalDate.MAX);
+        assertThrows(IllegalArgumentException.class, () -> todoRepository.save(outOfRange));
+    }
+
+    /**
+     * Measures with JOL the heap retained per todo by Todo objects and by the stored form, texts included.
+     */
+    @Test
+    public void testStoredFormFootprint() {
+        List<Todo> todos = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            Todo todo = new Todo();
+            todo.setText("Task number " + i);
+            todo.setStatus(i % 2 == 0);
+            todo.setPriority(i % 3 + 1);
+            todo.setDueDate(LocalDate.now().plusDays(i % 30));
+            todo.setCreationDate(LocalDateTime.now().minusMinutes(i));
+            if (todo.getStatus()) {
+                todo.setDoneDate(todo.getCreationDate().plusMinutes(i));
+                todo.setElapsedTime(i * 60L + 1_000);
+            }
+            todos.add(todo);
+        }
+        todoRepository.saveAll(todos);
+        Map<?, ?> stored = (Map<?, ?>) ReflectionTestUtils.getField(todoRepository, "todos");
+
+        // JOL needs this to read the field offsets of a record
+        String magicFieldOffset = System.setProperty("jol.magicFieldOffset", "true");
+        try {
+            double todoBytes = bytesPerElement(todos.toArray());
+            double storedBytes = bytesPerElement(stored.values().toArray());
+            assertTrue(storedBytes * 2 < todoBytes, () -> storedBytes + " bytes stored per todo, " + todoBytes + " as Todo");
+        } finally {
+            if (magicFieldOffset == null) {
+                System.clearProperty("jol.magicFieldOffset");
+            } else {
+                System.setProperty("jol.magicFieldOffset", magicFieldOffset);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Todo> todosList(Map<String, Object> result) {
+        return (List<Todo>) result.get("todosList");
+    }
+
+    private static double bytesPerElement(Object[] elements) {
+        return (double) (GraphLayout.parseInstance((Object) elements).totalSize() - VM.current().sizeOf(elements)) / elements.length;
+    }
+}
@@ -1,14 +1,36 @@
 package com.quarkbs.ToDoListApp;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
+import com.quarkbs.ToDoListApp.dto.TodoBatchOperation;
+import com.quarkbs.ToDoListApp.dto.TodoBatchResult;
 import com.quarkbs.ToDoListApp.dto.TodoDTO;
+import com.quarkbs.ToDoListApp.dto.TodoImportEvent;
+import com.quarkbs.ToDoListApp.exception.BatchTooLargeException;
+import com.quarkbs.ToDoListApp.exception.InvalidTodoException;
+import com.quarkbs.ToDoListApp.exception.PreconditionFailedException;
 import com.quarkbs.ToDoListApp.exception.TodoNotFoundException;
+import com.quarkbs.ToDoListApp.exception.TooManyImportsException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -16,13 +38,20 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import com.quarkbs.ToDoListApp.entity.Todo;
 import com.quarkbs.ToDoListApp.entity.TodoMetrics;
 import com.quarkbs.ToDoListApp.repository.TodoRepository;
+import com.quarkbs.ToDoListApp.service.TodoImportFormat;
+import com.quarkbs.ToDoListApp.service.TodoETags;
+import com.quarkbs.ToDoListApp.service.TodoPriorityScheduler;
+import com.quarkbs.ToDoListApp.service.TodoQueryCache;
 import com.quarkbs.ToDoListApp.service.TodoService;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.*;
@@ -44,6 +73,18 @@ public class TodoServiceTest {
     @Mock
     private TodoRepository todoRepository;
 
+    @Mock
+    private TodoPriorityScheduler priorityScheduler;
+
+    @Spy
+    private TodoQueryCache queryCache = new TodoQueryCache();
+
+    @Spy
+    private ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    @Spy
+    private Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
     @InjectMocks
     private TodoService todoService;
 
@@ -84,11 +125,7 @@ public class TodoServiceTest {
         todoDTOB.setCreationDate(LocalDateTime.now());
         todoDTOB.setDoneDate(LocalDateTime.now().plusMinutes(60));
 
-        metrics = new TodoMetrics();
-        metrics.setAvgTime(120L);
-        metrics.setAvgTimeHigh(120L);
-        metrics.setAvgTimeMedium(60L);
-        metrics.setAvgTimeLow(180L);
+        metrics = new TodoMetrics(120L, 180L, 60L, 120L);
     }
 
     /**
@@ -105,6 +142,27 @@ public class TodoServiceTest {
         Assertions.assertEquals(response, todos.get("todos"));
     }
 
+    /**
+     * Tests that getAllTodos serves repeated queries from the cache until the repository version changes.
+     */
+    @Test
+    public void testGetTodosUsesCache() {
+        Mockito.when(todoRepository.findByFilter(any(PageRequest.class), any(), any(), any(), anyString(), anyString(), anyString())).thenReturn(Map.of("todos", List.of(todoA)));
+        Mockito.when(todoRepository.getVersion()).thenReturn(1L);
+
+        todoService.getAllTodos(PageRequest.of(0, 10), false, "Test", 3, "dueDate", "asc", "desc");
+        todoService.getAllTodos(PageRequest.of(0, 10), false, "TEST", 3, "dueDate", "DESC", "DESC");
+        Mockito.verify(todoRepository, Mockito.times(1)).findByFilter(any(PageRequest.class), any(), any(), any(), anyString(), anyString(), anyString());
+
+        Mockito.when(todoRepository.getVersion()).thenReturn(2L);
+        todoService.getAllTodos(PageRequest.of(0, 10), false, "test", 3, "dueDate", "ASC", "DESC");
+        Mockito.verify(todoRepository, Mockito.times(2)).findByFilter(any(PageRequest.class), any(), any(), any(), anyString(), anyString(), anyString());
+
+        Map<String, Long> stats = todoService.getCacheStats();
+        Assertions.assertEquals(1L, stats.get("hits"));
+        Assertions.assertEquals(2L, stats.get("misses"));
+    }
+
     /**
      * Tests the addTodo method of TodoService.
      */
@@ -120,6 +178,27 @@ public class TodoServiceTest {
         final Todo newTodo = todoService.addTodo(todoDTOA);
 
         Assertions.assertEquals(response.getText(), newTodo.getText());
+        Mockito.verify(priorityScheduler).track(response);
+    }
+
+    /**
+     * Tests that addTodo and updateTodo reject todos without text or due date before they reach the store,
+     * as the JPA backend's columns would.
+     */
+    @Test
+    public void testAddAndUpdateTodoValidate() {
+        TodoDTO noDueDate = new TodoDTO();
+        noDueDate.setText("No due date");
+        noDueDate.setPriority(-100);
+        InvalidTodoException exception = assertThrows(InvalidTodoException.class, () -> todoService.addTodo(noDueDate));
+        Assertions.assertTrue(exception.getMessage().contains("You can't leave the due date empty!"));
+
+        TodoDTO blank = new TodoDTO();
+        blank.setText(" ");
+        blank.setDueDate(LocalDate.now());
+        stubUpdate(new Todo(todoA));
+        assertThrows(InvalidTodoException.class, () -> todoService.updateTodo(todoA.getId(), blank));
+        Mockito.verify(todoRepository, Mockito.never()).save(any(Todo.class));
     }
 
     /**
@@ -142,8 +221,7 @@ public class TodoServiceTest {
         updatedTodoDTO.setPriority(2);
         updatedTodoDTO.setCreationDate(LocalDateTime.now());
 
-        Mockito.when(todoRepository.findById(1L)).thenReturn(Optional.of(existingTodo));
-        Mockito.when(todoRepository.save(any(Todo.class))).thenReturn(existingTodo);
+        stubUpdate(existingTodo);
 
         Todo updatedTodo = todoService.updateTodo(1L, updatedTodoDTO);
 
@@ -158,16 +236,15 @@ public class TodoServiceTest {
      */
     @Test
     public void testMarkDone() {
-        Mockito.when(todoRepository.findById(todoA.getId())).thenReturn(Optional.of(todoA));
-        Mockito.when(todoRepository.save(any(Todo.class))).thenReturn(todoA);
+        stubUpdate(todoA);
 
         Todo updatedTodo = todoService.markDone(todoA.getId());
 
         Assertions.assertTrue(updatedTodo.getStatus());
         Assertions.assertNotNull(updatedTodo.getDoneDate());
         Assertions.assertNotNull(updatedTodo.getElapsedTime());
-        Mockito.verify(todoRepository, Mockito.times(1)).findById(todoA.getId());
-        Mockito.verify(todoRepository, Mockito.times(1)).save(todoA);
+        Mockito.verify(todoRepository, Mockito.times(1)).update(eq(todoA.getId()), any());
+        Mockito.verify(todoRepository, Mockito.never()).save(any(Todo.class));
     }
 
     /**
@@ -175,16 +252,16 @@ public class TodoServiceTest {
      */
     @Test
     public void testMarkUndone() {
-        Mockito.when(todoRepository.findById(todoB.getId())).thenReturn(Optional.of(todoB));
-        Mockito.when(todoRepository.save(any(Todo.class))).thenReturn(todoB);
+        stubUpdate(todoB);
 
         Todo updatedTodo = todoService.markUndone(todoB.getId());
 
         Assertions.assertFalse(updatedTodo.getStatus());
         Assertions.assertNull(updatedTodo.getDoneDate());
         Assertions.assertNull(updatedTodo.getElapsedTime());
-        Mockito.verify(todoRepository, Mockito.times(1)).findById(todoB.getId());
-        Mockito.verify(todoRepository, Mockito.times(1)).save(todoB);
+        Mockito.verify(todoRepository, Mockito.times(1)).update(eq(todoB.getId()), any());
+        Mockito.verify(todoRepository, Mockito.never()).save(any(Todo.class));
+        Mockito.verify(priorityScheduler).track(todoB);
     }
 
     /**
@@ -194,7 +271,7 @@ public class TodoServiceTest {
     public void testGetMetrics() {
         TodoMetrics todoMetrics = metrics;
 
-        Mockito.when(todoRepository.getMetrics(anyDouble(), anyDouble(), anyDouble(), anyDouble())).thenReturn(todoMetrics);
+        Mockito.when(todoRepository.getMetrics()).thenReturn(todoMetrics);
         final TodoMetrics metricsResponse = todoService.getMetrics();
 
         Assertions.assertEquals(todoMetrics.getAvgTime(), metricsResponse.getAvgTime());
@@ -208,7 +285,7 @@ public class TodoServiceTest {
      */
     @Test
     public void testUpdateTodoThrowsException() {
-        when(todoRepository.findById(1L)).thenReturn(Optional.empty());
+        when(todoRepository.update(eq(1L), any())).thenReturn(Optional.empty());
 
         TodoDTO updatedTodo = new TodoDTO();
         updatedTodo.setText("Updated Text");
@@ -218,12 +295,52 @@ public class TodoServiceTest {
         });
     }
 
+    /**
+     * Tests that an update with If-Match is applied through the atomic repository update only while the tag
+     * still matches the stored todo.
+     */
+    @Test
+    public void testUpdateTodoIfMatch() {
+        when(todoRepository.update(eq(1L), any())).thenAnswer(invocation -> {
+            Todo stored = new Todo(todoA);
+            invocation.<Consumer<Todo>>getArgument(1).accept(stored);
+            return Optional.of(stored);
+        });
+        String eTag = TodoETags.of(todoA);
+
+        Todo updated = todoService.updateTodo(1L, todoDTOB, "\"stale\", " + eTag);
+        Assertions.assertEquals(todoDTOB.getText(), updated.getText());
+        Assertions.assertNotEquals(eTag, TodoETags.of(updated));
+        Mockito.verify(priorityScheduler).track(updated);
+
+        Assertions.assertTrue(todoService.markDone(1L, "*").getStatus());
+        assertThrows(PreconditionFailedException.class, () -> todoService.markUndone(1L, "\"stale\""));
+        assertThrows(PreconditionFailedException.class, () -> todoService.markUndone(1L, "W/" + eTag));
+        Mockito.verify(todoRepository, Mockito.never()).save(any(Todo.class));
+
+        when(todoRepository.update(eq(2L), any())).thenReturn(Optional.empty());
+        assertThrows(TodoNotFoundException.class, () -> todoService.markDone(2L, eTag));
+    }
+
+    /**
+     * Tests that the read tags change with the repository version and with the parameters.
+     */
+    @Test
+    public void testGetReadETag() {
+        when(todoRepository.getVersion()).thenReturn(1L, 1L, 1L, 2L);
+
+        String eTag = todoService.getReadETag("todos", 1, 10, null);
+        Assertions.assertEquals(eTag, todoService.getReadETag("todos", 1, 10, null));
+        Assertions.assertNotEquals(eTag, todoService.getReadETag("todos", 2, 10, null));
+        Assertions.assertNotEquals(eTag, todoService.getReadETag("todos", 1, 10, null));
+    }
+
     /**
      * Tests the markDone method of TodoService to throw TodoNotFoundException.
      */
     @Test
     public void testMarkDoneThrowsException() {
-        when(todoRepository.findById(1L)).thenReturn(Optional.empty());
+        when(todoRepository.update(eq(1L), any())).thenReturn(Optional.empty());
 
         assertThrows(TodoNotFoundException.class, () -> {
             todoService.markDone(1L);
@@ -235,11 +352,302 @@ public class TodoServiceTest {
      */
     @Test
     public void testMarkUndoneThrowsException() {
-        when(todoRepository.findById(1L)).thenReturn(Optional.empty());
+        when(todoRepository.update(eq(1L), any())).thenReturn(Optional.empty());
 
         assertThrows(TodoNotFoundException.class, () -> {
             todoService.markUndone(1L);
         });
     }
 
-}
\ No newline at end of file
+    /**
+     * Tests that applyBatch reports a result per operation and saves the changed todos in one call.
+     */
+    @Test
+    public void testApplyBatch() {
+        when(todoRepository.findById(1L)).thenReturn(Optional.of(todoA));
+        when(todoRepository.findById(3L)).thenReturn(Optional.empty());
+
+        TodoDTO invalid = new TodoDTO();
+        invalid.setText(" ");
+        invalid.setDueDate(LocalDate.now());
+        List<TodoBatchOperation> operations = List.of(
+                operation(TodoBatchOperation.Type.CREATE, null, todoDTOB),
+                operation(TodoBatchOperation.Type.UPDATE, 1L, todoDTOB),
+                operation(TodoBatchOperation.Type.DONE, 1L, null),
+                operation(TodoBatchOperation.Type.DONE, 3L, null),
+                operation(TodoBatchOperation.Type.CREATE, null, invalid));
+
+        List<TodoBatchResult> results = todoService.applyBatch(operations);
+
+        Assertions.assertEquals(List.of(201, 200, 200, 404, 400), results.stream().map(TodoBatchResult::status).toList());
+        Assertions.assertFalse(results.get(0).todo().getStatus());
+        Assertions.assertEquals(todoDTOB.getText(), results.get(1).todo().getText());
+        Assertions.assertTrue(results.get(2).todo().getStatus());
+        Assertions.assertEquals(todoDTOB.getText(), results.get(2).todo().getText());
+        Assertions.assertEquals("You can't leave the task empty!", results.get(4).error());
+        Assertions.assertEquals("TEST FOR TODO A", todoA.getText());
+        Mockito.verify(todoRepository, Mockito.times(1)).findById(1L);
+        Mockito.verify(todoRepository, Mockito.times(1)).saveAll(Mockito.argThat(batch -> batch.size() == 2));
+        Mockito.verify(todoRepository, Mockito.never()).save(any(Todo.class));
+    }
+
+    /**
+     * Tests that applyBatch rejects batches larger than the configured maximum.
+     */
+    @Test
+    public void testApplyBatchTooLarge() {
+        List<TodoBatchOperation> operations = Collections.nCopies(1001, operation(TodoBatchOperation.Type.DONE, 1L, null));
+
+        assertThrows(BatchTooLargeException.class, () -> todoService.applyBatch(operations));
+        Mockito.verifyNoInteractions(todoRepository);
+    }
+
+    private static TodoBatchOperation operation(TodoBatchOperation.Type type, Long id, TodoDTO todo) {
+        TodoBatchOperation operation = new TodoBatchOperation();
+        operation.setOp(type);
+        operation.setId(id);
+        operation.setTodo(todo);
+        return operation;
+    }
+
+    /**
+     * Tests that exportTodos writes one JSON document per line with the repository's filters.
+     */
+    @Test
+    public void testExportTodos() throws IOException {
+        Mockito.doAnswer(invocation -> {
+            Consumer<Todo> action = invocation.getArgument(3);
+            action.accept(todoA);
+            action.accept(todoB);
+            return null;
+        }).when(todoRepository).forEachMatching(eq(false), eq("test"), isNull(), any());
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        todoService.exportTodos(false, "test", null, outputStream);
+
+        String[] lines = outputStream.toString(StandardCharsets.UTF_8).split("\n", -1);
+        Assertions.assertEquals(3, lines.length);
+        Assertions.assertEquals("", lines[2]);
+        Assertions.assertEquals(todoA.getText(), objectMapper.readValue(lines[0], Todo.class).getText());
+        Assertions.assertEquals(todoB.getDueDate(), objectMapper.readValue(lines[1], Todo.class).getDueDate());
+    }
+
+    /**
+     * Tests that exportTodos writes todos while the repository hands them over and that the heap in use
+     * stays flat over a large export.
+     */
+    @Test
+    public void testExportTodosUsesConstantHeap() throws IOException {
+        int total = 1_000_000;
+        int firstCheckpoint = 100_000;
+        int lastCheckpoint = 900_000;
+        int[] produced = new int[1];
+        Mockito.doAnswer(invocation -> {
+            Consumer<Todo> action = invocation.getArgument(3);
+            for (int i = 0; i < total; i++) {
+                Todo todo = new Todo();
+                todo.setId((long) i);
+                todo.setText("Exported task " + i);
+                todo.setStatus(i % 2 == 0);
+                todo.setPriority(i % 3 + 1);
+                todo.setDueDate(LocalDate.now().plusDays(i % 30));
+                todo.setCreationDate(LocalDateTime.now());
+                produced[0]++;
+                action.accept(todo);
+            }
+            return null;
+        }).when(todoRepository).forEachMatching(isNull(), isNull(), isNull(), any());
+
+        long[] heapAt = new long[2];
+        int[] producedAt = new int[2];
+        long[] lines = new long[1];
+        OutputStream outputStream = new OutputStream() {
+            @Override
+            public void write(int b) {
+                write(new byte[] {(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] bytes, int offset, int length) {
+                for (int i = offset; i < offset + length; i++) {
+                    if (bytes[i] == '\n') {
+                        lines[0]++;
+                        if (lines[0] == firstCheckpoint || lines[0] == lastCheckpoint) {
+                            int checkpoint = lines[0] == firstCheckpoint ? 0 : 1;
+                            heapAt[checkpoint] = usedHeap();
+                            producedAt[checkpoint] = produced[0];
+                        }
+                    }
+                }
+            }
+        };
+
+        todoService.exportTodos(null, null, null, outputStream);
+
+        Assertions.assertEquals(total, lines[0]);
+        Assertions.assertTrue(producedAt[0] < lastCheckpoint, "the export was buffered before being written");
+        long growth = heapAt[1] - heapAt[0];
+        Assertions.assertTrue(growth < 16L << 20, "heap grew by " + growth + " bytes over " + (lastCheckpoint - firstCheckpoint) + " todos");
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 2; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Tests that importTodos stores NDJSON lines in batches, prepared like addTodo, and reports rejected lines and progress.
+     */
+    @Test
+    public void testImportTodosNdjson() throws IOException {
+        ReflectionTestUtils.setField(todoService, "importBatchSize", 2);
+        List<Todo> saved = new ArrayList<>();
+        List<Integer> batchSizes = new ArrayList<>();
+        Mockito.doAnswer(invocation -> {
+            List<Todo> batch = invocation.getArgument(0);
+            saved.addAll(batch);
+            batchSizes.add(batch.size());
+            return batch;
+        }).when(todoRepository).saveAll(anyList());
+
+        String body = "{\"text\":\"First\",\"dueDate\":\"" + LocalDate.now().plusDays(20) + "\",\"status\":true}\n"
+                + "not json\n"
+                + "\n"
+                + "{\"text\":\"\",\"dueDate\":\"" + LocalDate.now() + "\"}\r\n"
+                + "{\"text\":\"Second\",\"dueDate\":\"" + LocalDate.now().plusDays(10) + "\"}\n"
+                + "{\"text\":\"Third\",\"dueDate\":\"" + LocalDate.now() + "\"}";
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        todoService.importTodos(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), TodoImportFormat.NDJSON, outputStream);
+
+        Assertions.assertEquals(List.of(2, 1), batchSizes);
+        Assertions.assertEquals(List.of("First", "Second", "Third"), saved.stream().map(Todo::getText).toList());
+        Assertions.assertEquals(List.of(1, 2, 3), saved.stream().map(Todo::getPriority).toList());
+        Assertions.assertFalse(saved.get(0).getStatus());
+
+        List<TodoImportEvent> events = events(outputStream);
+        Assertions.assertEquals(List.of("error", "error", "progress", "done"), events.stream().map(TodoImportEvent::type).toList());
+        Assertions.assertEquals(2, events.get(0).line());
+        Assertions.assertTrue(events.get(0).error().startsWith("Invalid JSON"));
+        Assertions.assertEquals(4, events.get(1).line());
+        Assertions.assertEquals("You can't leave the task empty!", events.get(1).error());
+        Assertions.assertEquals(new TodoImportEvent("progress", 5, 2L, 2L, null), events.get(2));
+        Assertions.assertEquals(new TodoImportEvent("done", 6, 3L, 2L, null), events.get(3));
+    }
+
+    /**
+     * Tests that importTodos reads CSV columns by their header names and rejects malformed rows.
+     */
+    @Test
+    public void testImportTodosCsv() throws IOException {
+        List<Todo> saved = new ArrayList<>();
+        Mockito.doAnswer(invocation -> {
+            saved.addAll(invocation.getArgument(0));
+            return invocation.getArgument(0);
+        }).when(todoRepository).saveAll(anyList());
+
+        String body = "id,DueDate,Text\n"
+                + "1," + LocalDate.now() + ",\"Buy milk, eggs\"\n"
+                + "2,tomorrow,Bad date\n"
+                + "3," + LocalDate.now() + ",\"Say \"\"hi\"\"\"\n"
+                + "4\n";
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        todoService.importTodos(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), TodoImportFormat.CSV, outputStream);
+
+        Assertions.assertEquals(List.of("Buy milk, eggs", "Say \"hi\""), saved.stream().map(Todo::getText).toList());
+        List<TodoImportEvent> events = events(outputStream);
+        Assertions.assertEquals(List.of(3L, 5L, 5L), events.stream().map(TodoImportEvent::line).toList());
+        Assertions.assertEquals("Invalid due date: tomorrow", events.get(0).error());
+        Assertions.assertEquals(new TodoImportEvent("done", 5, 2L, 2L, null), events.get(2));
+
+        ByteArrayOutputStream headerless = new ByteArrayOutputStream();
+        todoService.importTodos(new ByteArrayInputStream("Buy milk,2030-01-01\nMore,2030-01-01\n".getBytes(StandardCharsets.UTF_8)), TodoImportFormat.CSV, headerless);
+        Assertions.assertEquals("The CSV header must name the text and dueDate columns", events(headerless).get(0).error());
+        Assertions.assertEquals(new TodoImportEvent("done", 1, 0L, 1L, null), events(headerless).get(1));
+    }
+
+    /**
+     * Tests that importTodos stores the first batches before the rest of the body has been read.
+     */
+    @Test
+    public void testImportTodosReadsIncrementally() throws IOException {
+        ReflectionTestUtils.setField(todoService, "importBatchSize", 100);
+        int lines = 10_000;
+        byte[] line = ("{\"text\":\"Imported task\",\"dueDate\":\"" + LocalDate.now() + "\"}\n").getBytes(StandardCharsets.UTF_8);
+        long total = (long) lines * line.length;
+        long[] read = new long[1];
+        InputStream body = new InputStream() {
+            @Override
+            public int read() {
+                if (read[0] == total) {
+                    return -1;
+                }
+                return line[(int) (read[0]++ % line.length)];
+            }
+        };
+        List<Long> readAtSave = new ArrayList<>();
+        Mockito.doAnswer(invocation -> {
+            readAtSave.add(read[0]);
+            return invocation.getArgument(0);
+        }).when(todoRepository).saveAll(anyList());
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        todoService.importTodos(body, TodoImportFormat.NDJSON, outputStream);
+
+        Assertions.assertEquals(lines / 100, readAtSave.size());
+        Assertions.assertTrue(readAtSave.get(0) < total / 10, "read " + readAtSave.get(0) + " of " + total + " bytes before the first batch");
+        List<TodoImportEvent> events = events(outputStream);
+        Assertions.assertEquals(new TodoImportEvent("done", lines, (long) lines, 0L, null), events.get(events.size() - 1));
+    }
+
+    /**
+     * Tests that importTodos refuses to start while the maximum number of imports is running.
+     */
+    @Test
+    public void testImportTodosLimitsConcurrentImports() throws Exception {
+        ReflectionTestUtils.setField(todoService, "maxConcurrentImports", 1);
+        PipedOutputStream upload = new PipedOutputStream();
+        PipedInputStream body = new PipedInputStream(upload);
+        Thread running = new Thread(() -> {
+            try {
+                todoService.importTodos(body, TodoImportFormat.NDJSON, new ByteArrayOutputStream());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        running.start();
+        upload.write('\n');
+        upload.flush();
+        while (body.available() > 0) {
+            Thread.onSpinWait();
+        }
+
+        assertThrows(TooManyImportsException.class, () ->
+                todoService.importTodos(new ByteArrayInputStream(new byte[0]), TodoImportFormat.NDJSON, new ByteArrayOutputStream()));
+
+        upload.close();
+        running.join(10_000);
+        todoService.importTodos(new ByteArrayInputStream(new byte[0]), TodoImportFormat.NDJSON, new ByteArrayOutputStream());
+    }
+
+    /**
+     * Stubs the atomic repository update of a todo to apply the change to the given instance.
+     */
+    private void stubUpdate(Todo stored) {
+        when(todoRepository.update(eq(stored.getId()), any())).thenAnswer(invocation -> {
+            invocation.<Consumer<Todo>>getArgument(1).accept(stored);
+            return Optional.of(stored);
+        });
+    }
+
+    private List<TodoImportEvent> events(ByteArrayOutputStream outputStream) throws IOException {
+        List<TodoImportEvent> events = new ArrayList<>();
+        for (String line : outputStream.toString(StandardCharsets.UTF_8).split("\n")) {
+            events.add(objectMapper.readValue(line, TodoImportEvent.class));
+        }
+        return events;
+    }
+
+}
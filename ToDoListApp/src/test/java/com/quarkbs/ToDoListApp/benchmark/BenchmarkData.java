@@ -0,0 +1,96 @@
+package com.quarkbs.ToDoListApp.benchmark;
+
+import com.quarkbs.ToDoListApp.ToDoListAppApplication;
+import com.quarkbs.ToDoListApp.entity.Todo;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Data and application setup shared by the repository and service benchmarks.
+ * A quarter of the generated todos are done and the priorities are spread evenly, so the
+ * {@link Selectivity} filters match a known share of the store.
+ */
+public final class BenchmarkData {
+    /**
+     * Filters of increasing selectivity over the generated todos.
+     */
+    public enum Selectivity {
+        /** No filter, every todo matches. */
+        ALL(null, null),
+        /** Undone todos, about three quarters of the store. */
+        OPEN(false, null),
+        /** Priority 3 todos, about a third of the store. */
+        HIGH(null, 3),
+        /** Done priority 3 todos, about one in twelve. */
+        DONE_HIGH(true, 3);
+
+        final Boolean status;
+        final Integer priority;
+
+        Selectivity(Boolean status, Integer priority) {
+            this.status = status;
+            this.priority = priority;
+        }
+    }
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Starts the application without a web server, on the in-memory repository.
+     *
+     * @param args additional Spring arguments
+     * @return the running application context
+     */
+    static ConfigurableApplicationContext start(String... args) {
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        List<String> arguments = new ArrayList<>(List.of("--todo.repository.backend=memory", "--logging.level.root=warn"));
+        arguments.addAll(List.of(args));
+        return new SpringApplicationBuilder(ToDoListAppApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(arguments.toArray(String[]::new));
+    }
+
+    /**
+     * Generates the same todos for the same size on every run.
+     *
+     * @param size the number of todos
+     * @return the todos, without IDs
+     */
+    static List<Todo> todos(int size) {
+        Random random = new Random(42);
+        List<Todo> todos = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            todos.add(todo(random, i));
+        }
+        return todos;
+    }
+
+    /**
+     * Generates one todo.
+     *
+     * @param random the source of the status, priority and dates
+     * @param i the number used in the text
+     * @return the todo, without an ID
+     */
+    static Todo todo(Random random, int i) {
+        Todo todo = new Todo();
+        todo.setText("Benchmark task " + i);
+        todo.setStatus(random.nextInt(4) == 0);
+        todo.setPriority(random.nextInt(3) + 1);
+        todo.setDueDate(LocalDate.now().plusDays(random.nextInt(60)));
+        todo.setCreationDate(LocalDateTime.now().minusSeconds(random.nextInt(100_000)));
+        if (todo.getStatus()) {
+            todo.setDoneDate(todo.getCreationDate().plusSeconds(random.nextInt(100_000)));
+            todo.setElapsedTime((long) random.nextInt(100_000));
+        }
+        return todo;
+    }
+}
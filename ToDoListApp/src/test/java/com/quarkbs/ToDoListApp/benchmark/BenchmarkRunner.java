@@ -0,0 +1,40 @@
+package com.quarkbs.ToDoListApp.benchmark;
+
+import org.openjdk.jmh.Main;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Runs JMH benchmarks like {@link Main}, but also writes the results as JSON to
+ * {@code target/jmh/<benchmark time>.json} so runs can be compared over time.
+ * An explicit {@code -rf} or {@code -rff} option takes precedence.
+ */
+public class BenchmarkRunner {
+    private static final Path RESULT_DIRECTORY = Path.of("target", "jmh");
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        if (commandLine.shouldHelp() || commandLine.shouldList() || commandLine.shouldListWithParams()
+                || commandLine.shouldListProfilers() || commandLine.shouldListResultFormats()) {
+            Main.main(args);
+            return;
+        }
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLine);
+        ResultFormatType format = commandLine.getResultFormat().orElse(ResultFormatType.JSON);
+        options.resultFormat(format);
+        if (!commandLine.getResult().hasValue()) {
+            Files.createDirectories(RESULT_DIRECTORY);
+            String name = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+            options.result(RESULT_DIRECTORY.resolve(name + "." + format.name().toLowerCase()).toString());
+        }
+        new Runner(options.build()).run();
+    }
+}
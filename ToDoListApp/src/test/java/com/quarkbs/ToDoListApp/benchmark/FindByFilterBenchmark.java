@@ -0,0 +1,75 @@
+package com.quarkbs.ToDoListApp.benchmark;
+
+import com.quarkbs.ToDoListApp.entity.Todo;
+import com.quarkbs.ToDoListApp.repository.TodoRepositoryImpl;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Compares the indexed TodoRepositoryImpl.findByFilter with a full scan over every stored todo.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FindByFilterBenchmark {
+    @Param({"10000", "100000"})
+    private int size;
+
+    private final PageRequest pageable = PageRequest.of(0, 10);
+    private TodoRepositoryImpl repository;
+    private Map<Long, Todo> fullScanStore;
+
+    /**
+     * Fills the repository and the full scan baseline with the same todos.
+     */
+    @Setup
+    public void setUp() {
+        repository = new TodoRepositoryImpl();
+        fullScanStore = new ConcurrentHashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < size; i++) {
+            Todo todo = new Todo();
+            todo.setText("Benchmark task " + i);
+            todo.setStatus(random.nextInt(10) == 0);
+            todo.setPriority(random.nextInt(3) + 1);
+            todo.setDueDate(LocalDate.now().plusDays(random.nextInt(60)));
+            todo.setCreationDate(LocalDateTime.now().minusSeconds(random.nextInt(100_000)));
+            repository.save(todo);
+            fullScanStore.put(todo.getId(), todo);
+        }
+    }
+
+    @Benchmark
+    public Map<String, Object> indexedStatusAndPriority() {
+        return repository.findByFilter(pageable, true, null, 3, "", "ASC", "ASC");
+    }
+
+    @Benchmark
+    public Map<String, Object> fullScanStatusAndPriority() {
+        return fullScan(true, 3);
+    }
+
+    /**
+     * Filters the way findByFilter did before the status and priority indexes existed.
+     */
+    private Map<String, Object> fullScan(Boolean status, Integer priority) {
+        List<Todo> filteredTodos = fullScanStore.values().stream()
+                .filter(todo -> status == null || todo.getStatus().equals(status))
+                .filter(todo -> priority == null || todo.getPriority() == priority)
+                .collect(Collectors.toList());
+        int end = Math.min(pageable.getPageSize(), filteredTodos.size());
+        return Map.of("todosList", filteredTodos.subList(0, end), "total", filteredTodos.size());
+    }
+}
@@ -0,0 +1,379 @@
+package com.quarkbs.ToDoListApp.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.quarkbs.ToDoListApp.ToDoListAppApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * End-to-end load test of the REST API: TodoController, Jackson, TodoService and the repository.
+ * <p>
+ * The app is started in this JVM on a random port and seeded through {@code POST /api/todos/batch}.
+ * Requests are then sent open-loop at a target rate, drawn from a weighted mix of endpoints:
+ * <ul>
+ * <li>{@code list}: a filtered and sorted page, with random status, priority, sort mode and page</li>
+ * <li>{@code search}: a page filtered by text</li>
+ * <li>{@code create}, {@code update}, {@code done}, {@code undone}: changes to random todos</li>
+ * <li>{@code metrics}: the todo metrics</li>
+ * </ul>
+ * Latency is measured from the time a request was scheduled, not from the time it was sent, so a
+ * slow server is not hidden by requests queueing in the generator. Requests that would exceed the
+ * in-flight limit are dropped and counted. Throughput and latency percentiles are printed per endpoint
+ * and written as JSON to {@code target/loadtest/<run time>.json}.
+ * <p>
+ * Run with {@code mvn -Ploadtest test-compile exec:exec -Dloadtest="<key>=<value> ... [--<spring property>=<value> ...]"}.
+ * The keys are {@code rate} (requests per second), {@code seconds}, {@code warmup} (seconds),
+ * {@code todos} (seeded todos), {@code maxInFlight} and {@code mix} (for example
+ * {@code list:40,search:10,create:15,update:10,done:10,undone:5,metrics:10}).
+ * Arguments starting with {@code --} are passed to the app, for example {@code --todo.wal.enabled=true}.
+ */
+public class HttpLoadTest {
+    private static final Map<String, String> DEFAULTS = Map.of(
+            "rate", "500",
+            "seconds", "30",
+            "warmup", "5",
+            "todos", "10000",
+            "maxInFlight", "2000",
+            "mix", "list:40,search:10,create:15,update:10,done:10,undone:5,metrics:10");
+    private static final int SEED_BATCH_SIZE = 1000;
+    private static final String[] SORTS = {"creationDate", "priority", "dueDate", "priorityDueDate"};
+    private static final String[] WORDS = {"report", "review", "invoice", "meeting", "release", "backup", "deploy", "email"};
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final HttpClient client;
+    private final String base;
+    private final AtomicLong minId = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong maxId = new AtomicLong();
+
+    public static void main(String[] args) throws Exception {
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        Map<String, String> options = new LinkedHashMap<>(DEFAULTS);
+        List<String> springArgs = new ArrayList<>(List.of("--server.port=0", "--spring.main.banner-mode=off", "--logging.level.root=warn"));
+        for (String arg : args) {
+            if (arg.startsWith("--")) {
+                springArgs.add(arg);
+            } else {
+                int separator = arg.indexOf('=');
+                if (separator < 0 || !DEFAULTS.containsKey(arg.substring(0, separator))) {
+                    throw new IllegalArgumentException("Expected <key>=<value> with a key in " + DEFAULTS.keySet() + ": " + arg);
+                }
+                options.put(arg.substring(0, separator), arg.substring(separator + 1));
+            }
+        }
+        int rate = Integer.parseInt(options.get("rate"));
+        int seconds = Integer.parseInt(options.get("seconds"));
+        int warmup = Integer.parseInt(options.get("warmup"));
+        int todos = Integer.parseInt(options.get("todos"));
+        int maxInFlight = Integer.parseInt(options.get("maxInFlight"));
+        Mix mix = Mix.parse(options.get("mix"));
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(ToDoListAppApplication.class)
+                .run(springArgs.toArray(String[]::new));
+        try {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            HttpLoadTest loadTest = new HttpLoadTest("http://localhost:" + port + "/api/todos");
+            loadTest.seed(todos);
+            System.out.printf("Seeded %d todos; %d req/s for %d s after a %d s warmup%n", todos, rate, seconds, warmup);
+            loadTest.drive(mix, rate, warmup, maxInFlight);
+            Report report = loadTest.drive(mix, rate, seconds, maxInFlight);
+            report.print(rate);
+            Path file = report.write(options, springArgs);
+            System.out.println("Results saved to " + file);
+        } finally {
+            context.close();
+        }
+    }
+
+    private HttpLoadTest(String base) {
+        this.base = base;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+    }
+
+    /**
+     * Creates the todos through the batch endpoint and remembers the range of their IDs.
+     */
+    private void seed(int todos) throws IOException, InterruptedException {
+        for (int created = 0; created < todos; created += SEED_BATCH_SIZE) {
+            ArrayNode operations = MAPPER.createArrayNode();
+            for (int i = created; i < Math.min(todos, created + SEED_BATCH_SIZE); i++) {
+                operations.addObject().put("op", "create").set("todo", todo("Seeded " + word() + " task " + i));
+            }
+            HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(base + "/batch"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(operations.toString()))
+                    .build(), HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("Seeding failed with status " + response.statusCode() + ": " + response.body());
+            }
+            for (JsonNode result : MAPPER.readTree(response.body())) {
+                remember(result.path("todo").path("id").asLong());
+            }
+        }
+    }
+
+    /**
+     * Sends requests at the given rate for the given time and waits for the ones in flight.
+     */
+    private Report drive(Mix mix, int rate, int seconds, int maxInFlight) throws InterruptedException {
+        Report report = new Report(mix.endpoints());
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        long interval = 1_000_000_000L / rate;
+        long total = (long) rate * seconds;
+        long start = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long i = 0; i < total; i++) {
+                long scheduled = start + i * interval;
+                long delay = scheduled - System.nanoTime();
+                if (delay > 0) {
+                    LockSupport.parkNanos(delay);
+                }
+                String endpoint = mix.next();
+                Stats stats = report.stats(endpoint);
+                if (!inFlight.tryAcquire()) {
+                    stats.dropped.increment();
+                    continue;
+                }
+                executor.submit(() -> {
+                    try {
+                        send(endpoint, stats);
+                    } finally {
+                        stats.record(System.nanoTime() - scheduled);
+                        inFlight.release();
+                    }
+                });
+            }
+        }
+        report.elapsedNanos = System.nanoTime() - start;
+        return report;
+    }
+
+    private void send(String endpoint, Stats stats) {
+        try {
+            HttpResponse<String> response = client.send(request(endpoint), HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() >= 400) {
+                stats.errors.increment();
+            } else if (endpoint.equals("create")) {
+                remember(MAPPER.readTree(response.body()).path("id").asLong());
+            }
+        } catch (IOException e) {
+            stats.errors.increment();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            stats.errors.increment();
+        }
+    }
+
+    private HttpRequest request(String endpoint) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return switch (endpoint) {
+            case "list" -> get(base + "?page=" + (random.nextInt(20) + 1)
+                    + "&size=10&sortBy=" + SORTS[random.nextInt(SORTS.length)]
+                    + "&directionPriority=" + (random.nextBoolean() ? "ASC" : "DESC")
+                    + "&directionDueDate=" + (random.nextBoolean() ? "ASC" : "DESC")
+                    + (random.nextBoolean() ? "&status=" + random.nextBoolean() : "")
+                    + (random.nextInt(3) == 0 ? "&priority=" + (random.nextInt(3) + 1) : ""));
+            case "search" -> get(base + "?text=" + word() + "&sortBy=dueDate");
+            case "create" -> HttpRequest.newBuilder(URI.create(base))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(todo("Load " + word() + " task").toString()))
+                    .build();
+            case "update" -> HttpRequest.newBuilder(URI.create(base + "/" + randomId()))
+                    .header("Content-Type", "application/json")
+                    .PUT(HttpRequest.BodyPublishers.ofString(todo("Updated " + word() + " task").put("status", false).toString()))
+                    .build();
+            case "done" -> HttpRequest.newBuilder(URI.create(base + "/" + randomId() + "/done"))
+                    .POST(HttpRequest.BodyPublishers.noBody())
+                    .build();
+            case "undone" -> HttpRequest.newBuilder(URI.create(base + "/" + randomId() + "/undone"))
+                    .PUT(HttpRequest.BodyPublishers.noBody())
+                    .build();
+            case "metrics" -> get(base + "/metrics");
+            default -> throw new IllegalArgumentException("Unknown endpoint: " + endpoint);
+        };
+    }
+
+    private static HttpRequest get(String uri) {
+        return HttpRequest.newBuilder(URI.create(uri)).GET().build();
+    }
+
+    private static ObjectNode todo(String text) {
+        ObjectNode todo = MAPPER.createObjectNode();
+        todo.put("text", text);
+        todo.put("dueDate", LocalDate.now().plusDays(ThreadLocalRandom.current().nextInt(60)).toString());
+        return todo;
+    }
+
+    private static String word() {
+        return WORDS[ThreadLocalRandom.current().nextInt(WORDS.length)];
+    }
+
+    private void remember(long id) {
+        minId.accumulateAndGet(id, Math::min);
+        maxId.accumulateAndGet(id, Math::max);
+    }
+
+    private long randomId() {
+        return ThreadLocalRandom.current().nextLong(minId.get(), maxId.get() + 1);
+    }
+
+    /**
+     * Weighted choice of the endpoint of the next request.
+     */
+    private record Mix(String[] names, int[] cumulativeWeights) {
+        static Mix parse(String mix) {
+            String[] entries = mix.split(",");
+            String[] names = new String[entries.length];
+            int[] cumulativeWeights = new int[entries.length];
+            int total = 0;
+            for (int i = 0; i < entries.length; i++) {
+                String[] entry = entries[i].split(":");
+                names[i] = entry[0].trim();
+                total += Integer.parseInt(entry[1].trim());
+                cumulativeWeights[i] = total;
+            }
+            return new Mix(names, cumulativeWeights);
+        }
+
+        List<String> endpoints() {
+            return List.of(names);
+        }
+
+        String next() {
+            int draw = ThreadLocalRandom.current().nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+            int i = 0;
+            while (draw >= cumulativeWeights[i]) {
+                i++;
+            }
+            return names[i];
+        }
+    }
+
+    /**
+     * Latencies and failures of one endpoint.
+     */
+    private static final class Stats {
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder dropped = new LongAdder();
+        private long[] latencies = new long[1024];
+        private int count;
+
+        synchronized void record(long latency) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = latency;
+        }
+
+        synchronized long[] sorted() {
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            return sorted;
+        }
+    }
+
+    /**
+     * The results of one run, per endpoint and in total.
+     */
+    private static final class Report {
+        private static final double[] PERCENTILES = {0.50, 0.90, 0.99, 0.999, 1.0};
+        private static final String[] PERCENTILE_NAMES = {"p50", "p90", "p99", "p99.9", "max"};
+
+        private final Map<String, Stats> stats = new LinkedHashMap<>();
+        private long elapsedNanos;
+
+        Report(List<String> endpoints) {
+            endpoints.forEach(endpoint -> stats.put(endpoint, new Stats()));
+        }
+
+        Stats stats(String endpoint) {
+            return stats.get(endpoint);
+        }
+
+        void print(int rate) {
+            System.out.printf("%-8s %8s %9s %9s %9s %9s %9s %9s %7s %8s%n",
+                    "endpoint", "requests", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "errors", "dropped");
+            List<long[]> all = new ArrayList<>();
+            long errors = 0;
+            long dropped = 0;
+            for (Map.Entry<String, Stats> entry : stats.entrySet()) {
+                long[] latencies = entry.getValue().sorted();
+                all.add(latencies);
+                errors += entry.getValue().errors.sum();
+                dropped += entry.getValue().dropped.sum();
+                printRow(entry.getKey(), latencies, entry.getValue().errors.sum(), entry.getValue().dropped.sum());
+            }
+            long[] total = all.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+            printRow("total", total, errors, dropped);
+            System.out.printf("Target %d req/s, achieved %.0f req/s%n", rate, total.length / (elapsedNanos / 1e9));
+        }
+
+        private void printRow(String name, long[] latencies, long errors, long dropped) {
+            System.out.printf("%-8s %8d %9.0f %9.2f %9.2f %9.2f %9.2f %9.2f %7d %8d%n", name, latencies.length,
+                    latencies.length / (elapsedNanos / 1e9), percentile(latencies, 0.50), percentile(latencies, 0.90),
+                    percentile(latencies, 0.99), percentile(latencies, 0.999), percentile(latencies, 1.0), errors, dropped);
+        }
+
+        Path write(Map<String, String> options, List<String> springArgs) throws IOException {
+            ObjectNode root = MAPPER.createObjectNode();
+            options.forEach(root.putObject("options")::put);
+            springArgs.forEach(root.putArray("springArgs")::add);
+            root.put("elapsedSeconds", elapsedNanos / 1e9);
+            ObjectNode endpoints = root.putObject("endpoints");
+            for (Map.Entry<String, Stats> entry : stats.entrySet()) {
+                long[] latencies = entry.getValue().sorted();
+                ObjectNode endpoint = endpoints.putObject(entry.getKey());
+                endpoint.put("requests", latencies.length);
+                endpoint.put("throughput", latencies.length / (elapsedNanos / 1e9));
+                endpoint.put("errors", entry.getValue().errors.sum());
+                endpoint.put("dropped", entry.getValue().dropped.sum());
+                ObjectNode percentiles = endpoint.putObject("latencyMillis");
+                for (int i = 0; i < PERCENTILES.length; i++) {
+                    percentiles.put(PERCENTILE_NAMES[i], percentile(latencies, PERCENTILES[i]));
+                }
+            }
+            Path directory = Path.of("target", "loadtest");
+            Files.createDirectories(directory);
+            Path file = directory.resolve(LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".json");
+            MAPPER.writerWithDefaultPrettyPrinter().writeValue(file.toFile(), root);
+            return file;
+        }
+
+        private static double percentile(long[] latencies, double fraction) {
+            if (latencies.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.min(latencies.length - 1, Math.ceil(fraction * latencies.length) - 1);
+            return latencies[Math.max(index, 0)] / 1e6;
+        }
+    }
+}
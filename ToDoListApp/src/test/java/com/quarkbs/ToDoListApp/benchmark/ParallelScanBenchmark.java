@@ -0,0 +1,59 @@
+package com.quarkbs.ToDoListApp.benchmark;
+
+import com.quarkbs.ToDoListApp.repository.TodoRepositoryImpl;
+import com.quarkbs.ToDoListApp.repository.TodoScanPool;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares sequential and parallel scans of sorted text queries by the number of scan threads, one thread
+ * being the sequential scan. The queries match most of the store, so the scan is neither cut short by
+ * the trigram index nor served by a sorted index.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class ParallelScanBenchmark {
+    @Param({"1", "4", "16"})
+    private int scanThreads;
+
+    @Param({"100000", "1000000"})
+    private int size;
+
+    private TodoScanPool scanPool;
+    private TodoRepositoryImpl repository;
+
+    @Setup
+    public void setUp() {
+        scanPool = new TodoScanPool(scanThreads, 0);
+        repository = new TodoRepositoryImpl(scanPool);
+        repository.saveAll(BenchmarkData.todos(size));
+    }
+
+    @TearDown
+    public void tearDown() {
+        scanPool.close();
+    }
+
+    /**
+     * First page of a text query: parallel filter, then parallel top-K.
+     */
+    @Benchmark
+    public Map<String, Object> firstPage() {
+        return repository.findByFilter(PageRequest.of(0, 10), null, "task", null, "priorityDueDate", "DESC", "ASC");
+    }
+
+    /**
+     * A page deep enough for the matches to be fully sorted.
+     */
+    @Benchmark
+    public Map<String, Object> fullSort() {
+        return repository.findByFilter(PageRequest.of(0, size / 2), false, "task", null, "creationDate", "ASC", "ASC");
+    }
+}
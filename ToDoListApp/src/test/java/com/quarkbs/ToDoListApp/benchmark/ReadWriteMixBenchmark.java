@@ -0,0 +1,97 @@
+package com.quarkbs.ToDoListApp.benchmark;
+
+import com.quarkbs.ToDoListApp.dto.TodoDTO;
+import com.quarkbs.ToDoListApp.entity.Todo;
+import com.quarkbs.ToDoListApp.repository.TodoRepository;
+import com.quarkbs.ToDoListApp.service.TodoService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs readers listing filtered pages through TodoService concurrently with writers updating todos,
+ * in a read-heavy (three readers, one writer) and a write-heavy (one reader, three writers) mix.
+ * Every write moves the repository version on, so readers also measure how the query cache holds up.
+ * Each group reports the average time of its reads and of its writes separately.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ReadWriteMixBenchmark {
+    @Param({"10000", "100000"})
+    private int size;
+
+    private ConfigurableApplicationContext context;
+    private TodoService service;
+    private long[] ids;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkData.start();
+        service = context.getBean(TodoService.class);
+        List<Todo> saved = context.getBean(TodoRepository.class).saveAll(BenchmarkData.todos(size));
+        ids = saved.stream().mapToLong(Todo::getId).toArray();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @Group("readHeavy")
+    @GroupThreads(3)
+    public Map<String, Object> readHeavyRead() {
+        return read();
+    }
+
+    @Benchmark
+    @Group("readHeavy")
+    @GroupThreads(1)
+    public Todo readHeavyWrite() {
+        return write();
+    }
+
+    @Benchmark
+    @Group("writeHeavy")
+    @GroupThreads(1)
+    public Map<String, Object> writeHeavyRead() {
+        return read();
+    }
+
+    @Benchmark
+    @Group("writeHeavy")
+    @GroupThreads(3)
+    public Todo writeHeavyWrite() {
+        return write();
+    }
+
+    /**
+     * Lists one of the first ten pages of undone todos by priority and due date.
+     */
+    private Map<String, Object> read() {
+        PageRequest pageable = PageRequest.of(ThreadLocalRandom.current().nextInt(10), 10);
+        return service.getAllTodos(pageable, false, null, null, "priorityDueDate", "DESC", "ASC");
+    }
+
+    /**
+     * Updates a random todo with a new due date, which also sets its priority.
+     */
+    private Todo write() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        TodoDTO todoDTO = new TodoDTO();
+        todoDTO.setText("Updated benchmark task");
+        todoDTO.setDueDate(LocalDate.now().plusDays(random.nextInt(60)));
+        todoDTO.setStatus(false);
+        return service.updateTodo(ids[random.nextInt(ids.length)], todoDTO);
+    }
+}
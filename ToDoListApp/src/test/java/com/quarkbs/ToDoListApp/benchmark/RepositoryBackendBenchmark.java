@@ -0,0 +1,104 @@
+package com.quarkbs.ToDoListApp.benchmark;
+
+import com.quarkbs.ToDoListApp.ToDoListAppApplication;
+import com.quarkbs.ToDoListApp.entity.Todo;
+import com.quarkbs.ToDoListApp.entity.TodoMetrics;
+import com.quarkbs.ToDoListApp.repository.TodoRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the in-memory, columnar and JPA (embedded H2) repository backends on filtered pages, text search, deep sorted pages and metrics.
+ * H2's reuse of the previous result of an identical query is turned off, so every call runs the query.
+ * The heap retained by the seeded store is printed after setup, measured as the used heap after a GC.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class RepositoryBackendBenchmark {
+    @Param({"memory", "columnar", "jpa"})
+    private String backend;
+
+    @Param({"10000", "100000", "1000000"})
+    private int size;
+
+    private ConfigurableApplicationContext context;
+    private TodoRepository repository;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(ToDoListAppApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--todo.repository.backend=" + backend,
+                        "--spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1;OPTIMIZE_REUSE_RESULTS=FALSE",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--logging.level.root=warn");
+        repository = context.getBean(TodoRepository.class);
+
+        long before = retainedHeap();
+        Random random = new Random(42);
+        List<Todo> todos = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            Todo todo = new Todo();
+            todo.setText("Benchmark task " + i);
+            todo.setStatus(random.nextInt(4) == 0);
+            todo.setPriority(random.nextInt(3) + 1);
+            todo.setDueDate(LocalDate.now().plusDays(random.nextInt(60)));
+            todo.setCreationDate(LocalDateTime.now().minusSeconds(random.nextInt(100_000)));
+            if (todo.getStatus()) {
+                todo.setElapsedTime((long) random.nextInt(100_000));
+            }
+            todos.add(todo);
+        }
+        repository.saveAll(todos);
+        todos = null;
+        System.out.printf("%n%s backend retains %.1f MB for %d todos%n", backend, (retainedHeap() - before) / 1e6, size);
+    }
+
+    private static long retainedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Map<String, Object> filteredPage() {
+        return repository.findByFilter(PageRequest.of(10, 10), false, null, 2, "priorityDueDate", "DESC", "ASC");
+    }
+
+    @Benchmark
+    public Map<String, Object> textSearch() {
+        return repository.findByFilter(PageRequest.of(0, 10), null, "task 12", null, "dueDate", "ASC", "ASC");
+    }
+
+    @Benchmark
+    public Map<String, Object> deepSortedPage() {
+        return repository.findByFilter(PageRequest.of(99, 10), null, null, null, "creationDate", "DESC", "ASC");
+    }
+
+    @Benchmark
+    public TodoMetrics metrics() {
+        return repository.getMetrics();
+    }
+}
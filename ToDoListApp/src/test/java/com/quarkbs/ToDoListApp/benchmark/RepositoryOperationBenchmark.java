@@ -0,0 +1,85 @@
+package com.quarkbs.ToDoListApp.benchmark;
+
+import com.quarkbs.ToDoListApp.dto.TodoDTO;
+import com.quarkbs.ToDoListApp.entity.Todo;
+import com.quarkbs.ToDoListApp.entity.TodoMetrics;
+import com.quarkbs.ToDoListApp.repository.TodoRepository;
+import com.quarkbs.ToDoListApp.service.TodoService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the single todo operations of TodoRepository and TodoService: lookups by ID, saves and metrics.
+ * Saves overwrite existing todos, so the store keeps its size during a run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class RepositoryOperationBenchmark {
+    @Param({"10000", "100000", "1000000"})
+    private int size;
+
+    private ConfigurableApplicationContext context;
+    private TodoRepository repository;
+    private TodoService service;
+    private long[] ids;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkData.start();
+        repository = context.getBean(TodoRepository.class);
+        service = context.getBean(TodoService.class);
+        List<Todo> saved = repository.saveAll(BenchmarkData.todos(size));
+        ids = saved.stream().mapToLong(Todo::getId).toArray();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Optional<Todo> repositoryFindById() {
+        return repository.findById(randomId());
+    }
+
+    @Benchmark
+    public Todo repositorySave() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Todo todo = BenchmarkData.todo(random, random.nextInt(size));
+        todo.setId(randomId());
+        return repository.save(todo);
+    }
+
+    @Benchmark
+    public TodoMetrics repositoryGetMetrics() {
+        return repository.getMetrics();
+    }
+
+    @Benchmark
+    public Todo serviceUpdateTodo() {
+        TodoDTO todoDTO = new TodoDTO();
+        todoDTO.setText("Updated benchmark task");
+        todoDTO.setDueDate(LocalDate.now().plusDays(ThreadLocalRandom.current().nextInt(60)));
+        todoDTO.setStatus(false);
+        return service.updateTodo(randomId(), todoDTO);
+    }
+
+    @Benchmark
+    public TodoMetrics serviceGetMetrics() {
+        return service.getMetrics();
+    }
+
+    private long randomId() {
+        return ids[ThreadLocalRandom.current().nextInt(ids.length)];
+    }
+}
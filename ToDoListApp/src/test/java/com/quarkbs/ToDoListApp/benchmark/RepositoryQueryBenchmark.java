@@ -0,0 +1,64 @@
+package com.quarkbs.ToDoListApp.benchmark;
+
+import com.quarkbs.ToDoListApp.repository.TodoRepository;
+import com.quarkbs.ToDoListApp.service.TodoService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures filtered, sorted pages through TodoRepository.findByFilter and TodoService.getAllTodos
+ * across store sizes, filter selectivities, sort modes and page depths.
+ * The store does not change during a run, so the service benchmark measures answers from its query cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class RepositoryQueryBenchmark {
+    @Param({"10000", "100000"})
+    private int size;
+
+    @Param({"ALL", "OPEN", "HIGH", "DONE_HIGH"})
+    private BenchmarkData.Selectivity selectivity;
+
+    @Param({"priority", "dueDate", "priorityDueDate", "creationDate"})
+    private String sortBy;
+
+    @Param({"0", "99"})
+    private int page;
+
+    private ConfigurableApplicationContext context;
+    private TodoRepository repository;
+    private TodoService service;
+    private PageRequest pageable;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkData.start();
+        repository = context.getBean(TodoRepository.class);
+        service = context.getBean(TodoService.class);
+        repository.saveAll(BenchmarkData.todos(size));
+        pageable = PageRequest.of(page, 10);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Map<String, Object> repositoryFindByFilter() {
+        return repository.findByFilter(pageable, selectivity.status, null, selectivity.priority, sortBy, "DESC", "ASC");
+    }
+
+    @Benchmark
+    public Map<String, Object> serviceGetAllTodos() {
+        return service.getAllTodos(pageable, selectivity.status, null, selectivity.priority, sortBy, "DESC", "ASC");
+    }
+}
@@ -0,0 +1,73 @@
+package com.quarkbs.ToDoListApp.benchmark;
+
+import com.quarkbs.ToDoListApp.entity.Todo;
+import com.quarkbs.ToDoListApp.entity.TodoMetrics;
+import com.quarkbs.ToDoListApp.repository.ShardedTodoRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of the sharded backend by number of shards, one shard being the plain in-memory store.
+ * Run it with JMH's {@code -t} option at 1 and at the number of cores: with one caller the fan-out spreads
+ * each query over the cores, with many callers the shards keep writers apart.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class ShardedRepositoryBenchmark {
+    @Param({"1", "4", "16", "32"})
+    private int shards;
+
+    @Param({"100000", "1000000"})
+    private int size;
+
+    private ShardedTodoRepository repository;
+    private long[] ids;
+
+    @Setup
+    public void setUp() {
+        repository = new ShardedTodoRepository(shards);
+        List<Todo> saved = repository.saveAll(BenchmarkData.todos(size));
+        ids = saved.stream().mapToLong(Todo::getId).toArray();
+    }
+
+    @TearDown
+    public void tearDown() {
+        repository.close();
+    }
+
+    @Benchmark
+    public Map<String, Object> filteredPage() {
+        return repository.findByFilter(PageRequest.of(10, 10), false, null, 2, "priorityDueDate", "DESC", "ASC");
+    }
+
+    @Benchmark
+    public Map<String, Object> textSearch() {
+        return repository.findByFilter(PageRequest.of(0, 10), null, "task 12", null, "dueDate", "ASC", "ASC");
+    }
+
+    @Benchmark
+    public TodoMetrics metrics() {
+        return repository.getMetrics();
+    }
+
+    /**
+     * Saves a random todo again with a new status, priority and dates.
+     */
+    @Benchmark
+    public Todo save() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Todo todo = BenchmarkData.todo(new Random(random.nextLong()), 0);
+        todo.setId(ids[random.nextInt(ids.length)]);
+        return repository.save(todo);
+    }
+}
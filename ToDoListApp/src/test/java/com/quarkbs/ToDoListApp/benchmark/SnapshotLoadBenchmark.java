@@ -0,0 +1,89 @@
+package com.quarkbs.ToDoListApp.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.quarkbs.ToDoListApp.entity.Todo;
+import com.quarkbs.ToDoListApp.repository.TodoRepositoryImpl;
+import com.quarkbs.ToDoListApp.repository.TodoSnapshotStore;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the time to get a repository of one million todos ready from a binary snapshot,
+ * compared with reading a JSON dump with Jackson and saving every todo.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class SnapshotLoadBenchmark {
+    @Param({"1000000"})
+    private int size;
+
+    private Path directory;
+    private Path snapshotPath;
+    private Path jsonPath;
+    private ObjectMapper objectMapper;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("todo-snapshot-benchmark");
+        snapshotPath = directory.resolve("todo-snapshot.bin");
+        jsonPath = directory.resolve("todos.json");
+        objectMapper = new ObjectMapper().findAndRegisterModules();
+
+        TodoRepositoryImpl repository = new TodoRepositoryImpl(null, new TodoSnapshotStore(snapshotPath));
+        Random random = new Random(42);
+        for (int i = 0; i < size; i++) {
+            Todo todo = new Todo();
+            todo.setText("Benchmark task " + i);
+            todo.setStatus(random.nextBoolean());
+            todo.setPriority(random.nextInt(3) + 1);
+            todo.setDueDate(LocalDate.now().plusDays(random.nextInt(60)));
+            todo.setCreationDate(LocalDateTime.now().minusSeconds(random.nextInt(100_000)));
+            repository.save(todo);
+        }
+        repository.snapshot();
+        objectMapper.writeValue(jsonPath.toFile(), repository.findAll());
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(snapshotPath);
+        Files.deleteIfExists(jsonPath);
+        Files.deleteIfExists(directory);
+    }
+
+    @Benchmark
+    public TodoRepositoryImpl loadSnapshot() throws IOException {
+        TodoRepositoryImpl repository = new TodoRepositoryImpl(null, new TodoSnapshotStore(snapshotPath));
+        repository.recover();
+        return repository;
+    }
+
+    @Benchmark
+    public long decodeSnapshot() throws IOException {
+        long[] ids = {0};
+        new TodoSnapshotStore(snapshotPath).load(todo -> ids[0] += todo.getId());
+        return ids[0];
+    }
+
+    @Benchmark
+    public TodoRepositoryImpl loadJson() throws IOException {
+        TodoRepositoryImpl repository = new TodoRepositoryImpl();
+        List<Todo> todos = objectMapper.readValue(jsonPath.toFile(), new TypeReference<>() {
+        });
+        todos.forEach(repository::save);
+        return repository;
+    }
+}
@@ -0,0 +1,65 @@
+package com.quarkbs.ToDoListApp.benchmark;
+
+import com.quarkbs.ToDoListApp.entity.Todo;
+import com.quarkbs.ToDoListApp.repository.TodoRepositoryImpl;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Compares the trigram-indexed text filter with lowercasing and scanning every todo's text.
+ * The estimated footprint of the text index is printed once the store is filled.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class TextSearchBenchmark {
+    private static final String[] WORDS = {"buy", "call", "write", "review", "plan", "fix", "book", "send",
+            "groceries", "report", "meeting", "invoice", "dentist", "flight", "budget", "slides"};
+
+    @Param({"100000", "1000000"})
+    private int size;
+
+    @Param({"invoice 4711", "Dentist"})
+    private String query;
+
+    private final PageRequest pageable = PageRequest.of(0, 10);
+    private TodoRepositoryImpl repository;
+
+    @Setup
+    public void setUp() {
+        repository = new TodoRepositoryImpl();
+        Random random = new Random(42);
+        for (int i = 0; i < size; i++) {
+            Todo todo = new Todo();
+            todo.setText(WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + " " + random.nextInt(10_000));
+            todo.setStatus(false);
+            todo.setPriority(1);
+            todo.setDueDate(LocalDate.now());
+            repository.save(todo);
+        }
+        System.out.printf("%n%d todos, text index footprint: %.1f MB%n", size, repository.getTextIndexFootprint() / 1_048_576.0);
+    }
+
+    @Benchmark
+    public Map<String, Object> indexedText() {
+        return repository.findByFilter(pageable, null, query, null, "", "ASC", "ASC");
+    }
+
+    @Benchmark
+    public int fullScanText() {
+        List<Todo> filteredTodos = repository.findAll().stream()
+                .filter(todo -> todo.getText().toLowerCase().contains(query.toLowerCase()))
+                .collect(Collectors.toList());
+        return filteredTodos.size();
+    }
+}
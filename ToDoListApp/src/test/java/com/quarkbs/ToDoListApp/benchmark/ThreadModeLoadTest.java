@@ -0,0 +1,161 @@
+package com.quarkbs.ToDoListApp.benchmark;
+
+import com.quarkbs.ToDoListApp.ToDoListAppApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Load test comparing the ways a request can be executed:
+ * <ul>
+ * <li>{@code platform}: {@code /api/todos} on Tomcat's platform thread pool</li>
+ * <li>{@code virtual}: {@code /api/todos} on virtual threads</li>
+ * <li>{@code reactive}: {@code /api/reactive/todos}, with the store calls on Reactor's bounded elastic scheduler</li>
+ * </ul>
+ * The app runs with the write-ahead log in GROUP mode, so every create blocks until its group is
+ * fsynced, which is the kind of I/O wait a durable backend adds. Closed-loop clients, each on its own
+ * virtual thread, alternate between creating a todo and listing a filtered page; throughput and latency
+ * percentiles are reported per mode and client count.
+ * <p>
+ * Run with {@code mvn -Pbenchmark test-compile exec:exec -Dbenchmark.main=com.quarkbs.ToDoListApp.benchmark.ThreadModeLoadTest -Dbenchmark="<clients,...> <seconds> [<mode,...>]"}.
+ */
+public class ThreadModeLoadTest {
+    private static final String DEFAULT_CLIENTS = "1000";
+    private static final String DEFAULT_MODES = "platform,virtual,reactive";
+    private static final int DEFAULT_SECONDS = 20;
+    private static final int WARMUP_SECONDS = 5;
+
+    public static void main(String[] args) throws Exception {
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        String[] clientCounts = (args.length > 0 ? args[0] : DEFAULT_CLIENTS).split(",");
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_SECONDS;
+        String[] modes = (args.length > 2 ? args[2] : DEFAULT_MODES).split(",");
+        System.out.printf("%-8s %8s %10s %10s %10s %10s %8s%n", "mode", "clients", "req/s", "p50 ms", "p99 ms", "max ms", "errors");
+        for (String clients : clientCounts) {
+            for (String mode : modes) {
+                Result result = run(mode, Integer.parseInt(clients), seconds);
+                System.out.printf("%-8s %8s %10.0f %10.2f %10.2f %10.2f %8d%n", mode, clients,
+                        result.throughput(), result.percentile(0.50), result.percentile(0.99), result.percentile(1.0), result.errors());
+            }
+        }
+    }
+
+    private static Result run(String mode, int clients, int seconds) throws Exception {
+        Path directory = Files.createTempDirectory("todo-load");
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(ToDoListAppApplication.class)
+                .run("--server.port=0",
+                        "--spring.threads.virtual.enabled=" + mode.equals("virtual"),
+                        "--todo.wal.enabled=true",
+                        "--todo.wal.durability=GROUP",
+                        "--todo.wal.path=" + directory.resolve("todo-wal.log"),
+                        "--spring.main.banner-mode=off",
+                        "--logging.level.root=warn");
+        try {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .executor(Executors.newVirtualThreadPerTaskExecutor())
+                    .build();
+            String base = "http://localhost:" + port + (mode.equals("reactive") ? "/api/reactive/todos" : "/api/todos");
+            URI todos = URI.create(base);
+            URI page = URI.create(base + "?status=false&sortBy=priorityDueDate&page=3&size=10");
+
+            drive(client, todos, page, clients, WARMUP_SECONDS);
+            return drive(client, todos, page, clients, seconds);
+        } finally {
+            context.close();
+            try (var files = Files.list(directory)) {
+                for (Path file : files.toList()) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(directory);
+        }
+    }
+
+    private static Result drive(HttpClient client, URI todos, URI page, int clients, int seconds) throws Exception {
+        long start = System.nanoTime();
+        long end = start + Duration.ofSeconds(seconds).toNanos();
+        AtomicLong errors = new AtomicLong();
+        List<Future<long[]>> futures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < clients; i++) {
+                futures.add(executor.submit(() -> {
+                    long[] latencies = new long[1024];
+                    int count = 0;
+                    boolean create = ThreadLocalRandom.current().nextBoolean();
+                    while (System.nanoTime() < end) {
+                        HttpRequest request = create
+                                ? HttpRequest.newBuilder(todos)
+                                        .header("Content-Type", "application/json")
+                                        .POST(HttpRequest.BodyPublishers.ofString("{\"text\":\"Load test task\",\"dueDate\":\""
+                                                + LocalDate.now().plusDays(ThreadLocalRandom.current().nextInt(30)) + "\"}"))
+                                        .build()
+                                : HttpRequest.newBuilder(page).GET().build();
+                        create = !create;
+                        long sent = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() >= 400) {
+                                errors.incrementAndGet();
+                            }
+                        } catch (IOException e) {
+                            errors.incrementAndGet();
+                        }
+                        if (count == latencies.length) {
+                            latencies = Arrays.copyOf(latencies, count * 2);
+                        }
+                        latencies[count++] = System.nanoTime() - sent;
+                    }
+                    return Arrays.copyOf(latencies, count);
+                }));
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        int total = 0;
+        for (Future<long[]> future : futures) {
+            total += future.get().length;
+        }
+        long[] latencies = new long[total];
+        int position = 0;
+        for (Future<long[]> future : futures) {
+            long[] part = future.get();
+            System.arraycopy(part, 0, latencies, position, part.length);
+            position += part.length;
+        }
+        Arrays.sort(latencies);
+        return new Result(latencies, elapsed, errors.get());
+    }
+
+    private record Result(long[] latencies, long elapsedNanos, long errors) {
+        double throughput() {
+            return latencies.length / (elapsedNanos / 1e9);
+        }
+
+        double percentile(double fraction) {
+            if (latencies.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.min(latencies.length - 1, Math.ceil(fraction * latencies.length) - 1);
+            return latencies[Math.max(index, 0)] / 1e6;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.quarkbs.ToDoListApp.benchmark;
+
+import com.quarkbs.ToDoListApp.entity.Todo;
+import com.quarkbs.ToDoListApp.repository.TodoRepositoryImpl;
+import com.quarkbs.ToDoListApp.repository.TodoSort;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares paged listing through TodoRepositoryImpl.findByFilter with sorting every match and taking a sub list.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TopKBenchmark {
+    @Param({"100000"})
+    private int size;
+
+    @Param({"priority", "dueDate", "priorityDueDate", "creationDate"})
+    private String sortBy;
+
+    @Param({"0", "99"})
+    private int page;
+
+    private TodoRepositoryImpl repository;
+    private List<Todo> todos;
+
+    @Setup
+    public void setUp() {
+        repository = new TodoRepositoryImpl();
+        Random random = new Random(42);
+        for (int i = 0; i < size; i++) {
+            Todo todo = new Todo();
+            todo.setText("Benchmark task " + i);
+            todo.setStatus(false);
+            todo.setPriority(random.nextInt(3) + 1);
+            todo.setDueDate(LocalDate.now().plusDays(random.nextInt(60)));
+            todo.setCreationDate(LocalDateTime.now().minusSeconds(random.nextInt(100_000)));
+            repository.save(todo);
+        }
+        todos = repository.findAll();
+    }
+
+    @Benchmark
+    public Map<String, Object> findByFilter() {
+        return repository.findByFilter(PageRequest.of(page, 10), null, null, null, sortBy, "ASC", "DESC");
+    }
+
+    @Benchmark
+    public List<Todo> fullSort() {
+        List<Todo> sorted = new ArrayList<>(todos);
+        sorted.sort(TodoSort.comparator(sortBy, "ASC", "DESC"));
+        return sorted.subList(page * 10, page * 10 + 10);
+    }
+}
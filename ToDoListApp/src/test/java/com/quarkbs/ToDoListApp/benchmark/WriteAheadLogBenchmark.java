@@ -0,0 +1,59 @@
+package com.quarkbs.ToDoListApp.benchmark;
+
+import com.quarkbs.ToDoListApp.entity.Todo;
+import com.quarkbs.ToDoListApp.repository.TodoRepositoryImpl;
+import com.quarkbs.ToDoListApp.repository.TodoWriteAheadLog;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the save throughput of TodoRepositoryImpl with the write-ahead log in each durability mode,
+ * with concurrent writers so group commit can batch their records.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+@Threads(8)
+public class WriteAheadLogBenchmark {
+    @Param({"SYNC", "GROUP", "ASYNC"})
+    private TodoWriteAheadLog.Durability durability;
+
+    private Path directory;
+    private TodoWriteAheadLog log;
+    private TodoRepositoryImpl repository;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("todo-wal-benchmark");
+        log = new TodoWriteAheadLog(directory.resolve("todo-wal.log"), durability);
+        log.open();
+        repository = new TodoRepositoryImpl(log);
+        repository.recover();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        log.close();
+        Files.deleteIfExists(directory.resolve("todo-wal.log"));
+        Files.deleteIfExists(directory);
+    }
+
+    @Benchmark
+    public Todo save() {
+        Todo todo = new Todo();
+        todo.setText("Benchmark task");
+        todo.setStatus(false);
+        todo.setPriority(ThreadLocalRandom.current().nextInt(3) + 1);
+        todo.setDueDate(LocalDate.now().plusDays(ThreadLocalRandom.current().nextInt(60)));
+        return repository.save(todo);
+    }
+}